@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package benchmark;
+
+import controller.LendingController;
+import controller.LendingSystem;
+import entities.LendingObject;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks fuer die Bestandsabfrage und den Ausleihvorgang, jeweils mit
+ * Abfrage ueber den Persistierer und ueber den AvailabilityIndex
+ * ({@link LendingController#IN_MEMORY_AVAILABILITY_PROPERTY}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class AvailabilityBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    /**
+     * Anzahl der Ausleihobjekte in den Testdaten.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+    /**
+     * Bestandsabfrage ueber den AvailabilityIndex statt ueber den
+     * Persistierer.
+     */
+    @Param({"false", "true"})
+    public boolean inMemory;
+
+    private BenchmarkFixture fixture;
+    private LendingController lendingController;
+    private LendingSystem lendingSystem;
+    private long[] materialIds;
+    private Date[] begins;
+    private Date[] ends;
+    private int cursor;
+    private PrintStream out;
+
+    /**
+     * Baut die Testdaten und die Abfragen auf.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty(LendingController.IN_MEMORY_AVAILABILITY_PROPERTY, Boolean.toString(this.inMemory));
+
+        this.fixture = new BenchmarkFixture(this.size, 42);
+        this.lendingController = this.fixture.wire(new LendingController());
+        this.lendingSystem = this.fixture.getLendingSystem();
+
+        Random rn = new Random(7);
+        this.materialIds = new long[QUERIES];
+        this.begins = new Date[QUERIES];
+        this.ends = new Date[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int begin = rn.nextInt(BenchmarkFixture.DAYS);
+            this.materialIds[i] = this.fixture.getMaterials().get(rn.nextInt(BenchmarkFixture.MATERIALS)).getId();
+            this.begins[i] = BenchmarkFixture.day(begin);
+            this.ends[i] = BenchmarkFixture.day(begin + rn.nextInt(14));
+        }
+
+        // Das LendingSystem gibt jede Aenderung der Ausleihliste auf der Konsole aus.
+        this.out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+    }
+
+    /**
+     * Stellt die Konsolenausgabe wieder her.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(this.out);
+    }
+
+    /**
+     * Entfernt die waehrend einer Iteration angelegten Ausleihen wieder, damit
+     * die Datenmenge konstant bleibt.
+     */
+    @TearDown(Level.Iteration)
+    public void reset() {
+        this.fixture.getDb().reset();
+        this.lendingSystem.clearLendingArrangements();
+    }
+
+    /**
+     * Anzahl der in einem Zeitraum ausgeliehenen Gegenstaende eines Materials.
+     *
+     * @return ausgeliehene Menge
+     */
+    @Benchmark
+    public int lentObjects() {
+        int i = this.cursor++ & (QUERIES - 1);
+
+        return this.lendingController.lentObjects(this.materialIds[i], this.begins[i], this.ends[i]);
+    }
+
+    /**
+     * Vollstaendiger Ausleihvorgang mit einem Material.
+     *
+     * @return Fehlercode von addLending
+     */
+    @Benchmark
+    public int addLending() {
+        int i = this.cursor++ & (QUERIES - 1);
+
+        this.lendingSystem.saveForCurrentLendings(this.fixture.getMaterials().get(i % BenchmarkFixture.MATERIALS), 1);
+        for (LendingObject lo : this.lendingSystem.getCurrentLendingArrangements()) {
+            lo.setStartLendDate(this.begins[i]);
+            lo.setEndLendDate(this.ends[i]);
+        }
+
+        List<String> errors = new ArrayList<>();
+        return this.lendingSystem.addLending(this.fixture.getPersonNames().get(i % 100), errors);
+    }
+}
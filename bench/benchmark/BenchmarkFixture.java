@@ -0,0 +1,252 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package benchmark;
+
+import controller.AvailabilityIndex;
+import controller.LendingSystem;
+import database.Persistierer;
+import entities.LendingObject;
+import entities.Material;
+import entities.Person;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import model.MaterialCatalog;
+import model.PersonModel;
+
+/**
+ * Synthetische Testdaten fuer die Benchmarks. Das LendingSystem wird ohne
+ * Container aufgebaut und per Reflection mit einem {@link InMemoryPersistierer}
+ * sowie gemeinsamen Instanzen von AvailabilityIndex und MaterialCatalog
+ * verdrahtet, so wie es CDI im Server tun wuerde.
+ */
+public class BenchmarkFixture {
+
+    /**
+     * Anzahl der Materialien.
+     */
+    public static final int MATERIALS = 1000;
+    /**
+     * Anzahl der Tage, ueber die die Ausleihen verteilt werden.
+     */
+    public static final int DAYS = 730;
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final long FIRST_DAY = java.sql.Date.valueOf("2016-01-01").getTime();
+
+    private final InMemoryPersistierer db;
+    private final AvailabilityIndex availability;
+    private final MaterialCatalog catalog;
+    private final LendingSystem lendingSystem;
+    private final PersonModel personModel;
+    private final List<Material> materials;
+    private final List<String> materialNames;
+    private final List<String> personNames;
+
+    /**
+     * Erstellt die Testdaten mit der uebergebenen Anzahl an Ausleihobjekten.
+     *
+     * @param lendingObjects Anzahl der Ausleihobjekte
+     * @param seed Startwert fuer den Zufallsgenerator
+     */
+    public BenchmarkFixture(int lendingObjects, long seed) {
+        Random rn = new Random(seed);
+
+        this.availability = new AvailabilityIndex();
+        this.catalog = new MaterialCatalog();
+        this.db = new InMemoryPersistierer(this.availability);
+        this.materials = new ArrayList<>();
+        this.materialNames = new ArrayList<>();
+        this.personNames = new ArrayList<>();
+
+        for (int i = 0; i < MATERIALS; i++) {
+            String name = "Objektiv Nr. " + i + (i % 3 == 0 ? " für Außenaufnahmen" : "");
+            Material m = new Material(name, "Beschreibung " + i, lendingObjects);
+            this.db.persist(m);
+            this.materials.add(m);
+            this.materialNames.add(name);
+        }
+
+        int persons = Math.max(100, lendingObjects / 10);
+        for (int i = 0; i < persons; i++) {
+            String name = (i % 2 == 0 ? "Müller " : "Schröder ") + i;
+            this.db.persist(new Person(name));
+            this.personNames.add(name);
+        }
+
+        List<LendingObject> objects = new ArrayList<>(lendingObjects);
+        for (int i = 0; i < lendingObjects; i++) {
+            int start = rn.nextInt(DAYS);
+            LendingObject lo = new LendingObject(this.materials.get(rn.nextInt(MATERIALS)), 1 + rn.nextInt(3),
+                    day(start), day(start + rn.nextInt(14)));
+            this.db.persist(lo);
+            objects.add(lo);
+        }
+        this.availability.rebuild(objects);
+
+        this.db.markBase();
+
+        this.lendingSystem = new LendingSystem();
+        this.personModel = new PersonModel();
+        this.wire(this.lendingSystem);
+        this.wire(this.personModel);
+        this.wire(this.availability);
+        this.wire(this.catalog);
+
+        Collections.shuffle(this.materialNames, rn);
+        Collections.shuffle(this.personNames, rn);
+    }
+
+    /**
+     * Gibt das Datum des uebergebenen Tages nach dem 01.01.2016 zurueck.
+     *
+     * @param n Tag
+     * @return Datum
+     */
+    public static Date day(int n) {
+        return new java.sql.Date(FIRST_DAY + n * DAY);
+    }
+
+    /**
+     * Gibt den InMemoryPersistierer zurueck.
+     *
+     * @return InMemoryPersistierer
+     */
+    public InMemoryPersistierer getDb() {
+        return db;
+    }
+
+    /**
+     * Gibt den gemeinsamen AvailabilityIndex zurueck.
+     *
+     * @return AvailabilityIndex
+     */
+    public AvailabilityIndex getAvailability() {
+        return availability;
+    }
+
+    /**
+     * Gibt das verdrahtete LendingSystem zurueck.
+     *
+     * @return LendingSystem
+     */
+    public LendingSystem getLendingSystem() {
+        return lendingSystem;
+    }
+
+    /**
+     * Gibt das verdrahtete PersonModel zurueck.
+     *
+     * @return PersonModel
+     */
+    public PersonModel getPersonModel() {
+        return personModel;
+    }
+
+    /**
+     * Gibt alle Materialien zurueck.
+     *
+     * @return Materialien
+     */
+    public List<Material> getMaterials() {
+        return materials;
+    }
+
+    /**
+     * Gibt die Materialnamen in zufaelliger Reihenfolge zurueck.
+     *
+     * @return Materialnamen
+     */
+    public List<String> getMaterialNames() {
+        return materialNames;
+    }
+
+    /**
+     * Gibt die Personennamen in zufaelliger Reihenfolge zurueck.
+     *
+     * @return Personennamen
+     */
+    public List<String> getPersonNames() {
+        return personNames;
+    }
+
+    /**
+     * Ersetzt im Objektgraphen unter root alle Persistierer-, AvailabilityIndex-
+     * und MaterialCatalog-Felder durch die Instanzen dieser Testdaten.
+     *
+     * @param <T> Typ des Objekts
+     * @param root Objekt, z.B. ein neu erzeugter Controller
+     * @return root
+     */
+    public <T> T wire(T root) {
+        wire(root, this.db, this.availability, this.catalog,
+                Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+
+        return root;
+    }
+
+    private static void wire(Object target, Persistierer db, AvailabilityIndex availability,
+            MaterialCatalog catalog, Set<Object> seen) {
+        if (target == null || !seen.add(target)) {
+            return;
+        }
+
+        try {
+            for (Class<?> c = target.getClass(); c != Object.class; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(f.getModifiers())) {
+                        continue;
+                    }
+                    f.setAccessible(true);
+
+                    Object value;
+                    if (f.getType() == Persistierer.class) {
+                        value = db;
+                    } else if (f.getType() == AvailabilityIndex.class) {
+                        value = availability;
+                    } else if (f.getType() == MaterialCatalog.class) {
+                        value = catalog;
+                    } else if (isApplicationClass(f.getType())) {
+                        value = f.get(target);
+                    } else {
+                        continue;
+                    }
+
+                    if (!Modifier.isFinal(f.getModifiers())) {
+                        f.set(target, value);
+                    }
+                    if (value != db) {
+                        wire(value, db, availability, catalog, seen);
+                    }
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isApplicationClass(Class<?> type) {
+        String name = type.getName();
+
+        return name.startsWith("controller.") || name.startsWith("model.");
+    }
+}
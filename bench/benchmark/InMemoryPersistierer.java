@@ -0,0 +1,251 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package benchmark;
+
+import controller.AvailabilityIndex;
+import database.Persistierer;
+import entities.Lending;
+import entities.LendingObject;
+import entities.Material;
+import entities.Person;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistierer fuer die Benchmarks, der alle Daten im Speicher haelt. Die
+ * Abfragen bilden die Datenbankabfragen nach: Namen werden ueber eine Map
+ * (Index auf NORMALIZEDNAME) gesucht, Ausleihobjekte pro Material (Index auf
+ * TYPE_ID) durchlaufen.
+ *
+ * Neue Ausleihobjekte traegt der CheckoutService ueber die StockReservation
+ * in den AvailabilityIndex ein. Mit {@link #reset()} wird der Stand nach dem
+ * Aufbau der Testdaten wiederhergestellt, auch im AvailabilityIndex.
+ */
+public class InMemoryPersistierer extends Persistierer {
+
+    private final AvailabilityIndex availability;
+    private final Map<Long, Material> materials;
+    private final Map<String, Material> materialsByName;
+    private final Map<Long, Person> persons;
+    private final Map<String, Person> personsByName;
+    private final Map<Long, Lending> lendings;
+    private final List<LendingObject> lendingObjects;
+    private final Map<Long, List<LendingObject>> lendingObjectsByMaterial;
+    private long nextId;
+    private int baseLendingObjects;
+    private long baseId;
+
+    /**
+     * Erstellt einen leeren InMemoryPersistierer.
+     *
+     * @param availability Index, aus dem entfernte Ausleihobjekte geloescht werden
+     */
+    public InMemoryPersistierer(AvailabilityIndex availability) {
+        this.availability = availability;
+        this.materials = new HashMap<>();
+        this.materialsByName = new HashMap<>();
+        this.persons = new HashMap<>();
+        this.personsByName = new HashMap<>();
+        this.lendings = new HashMap<>();
+        this.lendingObjects = new ArrayList<>();
+        this.lendingObjectsByMaterial = new HashMap<>();
+        this.nextId = 1;
+    }
+
+    /**
+     * Merkt sich den aktuellen Stand als Ausgangsstand fuer {@link #reset()}.
+     */
+    public void markBase() {
+        this.baseLendingObjects = this.lendingObjects.size();
+        this.baseId = this.nextId;
+    }
+
+    /**
+     * Entfernt alle Ausleihen und Ausleihobjekte, die nach {@link #markBase()}
+     * gespeichert wurden, auch aus dem AvailabilityIndex.
+     */
+    public void reset() {
+        this.lendings.keySet().removeIf(id -> id >= this.baseId);
+        while (this.lendingObjects.size() > this.baseLendingObjects) {
+            LendingObject lo = this.lendingObjects.remove(this.lendingObjects.size() - 1);
+            this.unlink(lo);
+        }
+    }
+
+    @Override
+    public void persist(Object object) {
+        assignId(object, this.nextId++);
+
+        if (object instanceof Material) {
+            Material m = (Material) object;
+            this.materials.put(m.getId(), m);
+            this.materialsByName.put(m.getNormalizedName(), m);
+        } else if (object instanceof Person) {
+            Person p = (Person) object;
+            this.persons.put(p.getId(), p);
+            this.personsByName.put(p.getNormalizedName(), p);
+        } else if (object instanceof Lending) {
+            Lending l = (Lending) object;
+            this.lendings.put(l.getId(), l);
+        } else if (object instanceof LendingObject) {
+            LendingObject lo = (LendingObject) object;
+            this.lendingObjects.add(lo);
+            this.lendingObjectsByMaterial.computeIfAbsent(lo.getType().getId(), k -> new ArrayList<>()).add(lo);
+        }
+    }
+
+    @Override
+    public void persistAll(Collection<?> objects, boolean detach) {
+        for (Object object : objects) {
+            this.persist(object);
+        }
+    }
+
+    @Override
+    public void remove(Object object) {
+    }
+
+    @Override
+    public Object merge(Object object) {
+        return object;
+    }
+
+    @Override
+    public Material findMaterial(long id) {
+        return this.materials.get(id);
+    }
+
+    @Override
+    public Material loadMaterial(long id) {
+        return this.materials.get(id);
+    }
+
+    @Override
+    public Map<Long, Material> lockMaterials(Collection<Long> materialIds) {
+        Map<Long, Material> result = new HashMap<>();
+        for (long id : materialIds) {
+            result.put(id, this.materials.get(id));
+        }
+        return result;
+    }
+
+    @Override
+    public Person findPerson(long id) {
+        return this.persons.get(id);
+    }
+
+    @Override
+    public Material findMaterialByNormalizedName(String normalizedName) {
+        return this.materialsByName.get(normalizedName);
+    }
+
+    @Override
+    public Person findPersonByNormalizedName(String normalizedName) {
+        return this.personsByName.get(normalizedName);
+    }
+
+    @Override
+    public Map<String, Long> getMaterialIdsByNormalizedName() {
+        Map<String, Long> result = new HashMap<>();
+
+        for (Map.Entry<String, Material> e : this.materialsByName.entrySet()) {
+            result.put(e.getKey(), e.getValue().getId());
+        }
+        return result;
+    }
+
+    @Override
+    public int increaseMaterialQuantities(Map<Long, Integer> quantities, Map<Long, String> descriptions) {
+        for (Map.Entry<Long, Integer> e : quantities.entrySet()) {
+            this.materials.get(e.getKey()).increaseQuantity(e.getValue());
+        }
+        return quantities.size();
+    }
+
+    @Override
+    public List<Material> findAllMaterials() {
+        return new ArrayList<>(this.materials.values());
+    }
+
+    @Override
+    public String getMaterialStamp() {
+        return Integer.toString(this.materials.size());
+    }
+
+    @Override
+    public List<Person> findAllPersons() {
+        return new ArrayList<>(this.persons.values());
+    }
+
+    @Override
+    public List<LendingObject> findAllLendingObjects() {
+        return new ArrayList<>(this.lendingObjects);
+    }
+
+    @Override
+    public List<LendingObject> getLendingObjectsWithMaterialId(long materialId) {
+        return new ArrayList<>(this.lendingObjectsByMaterial.getOrDefault(materialId, new ArrayList<LendingObject>()));
+    }
+
+    @Override
+    public boolean hasLendingObjectsWithMaterialId(long materialId) {
+        return !this.lendingObjectsByMaterial.getOrDefault(materialId, new ArrayList<LendingObject>()).isEmpty();
+    }
+
+    @Override
+    public int getLentQuantityWithMaterialId(long materialId, int beginDay, int endDay) {
+        int result = 0;
+
+        for (LendingObject lo : this.lendingObjectsByMaterial.getOrDefault(materialId, new ArrayList<LendingObject>())) {
+            if (lo.overlaps(beginDay, endDay)) {
+                result += lo.getLendingQuantity();
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void removeLending(long id) {
+        Lending l = this.lendings.remove(id);
+
+        if (l != null) {
+            for (LendingObject lo : l.getLendings()) {
+                this.lendingObjects.remove(lo);
+                this.unlink(lo);
+            }
+        }
+    }
+
+    private void unlink(LendingObject lo) {
+        this.lendingObjectsByMaterial.get(lo.getType().getId()).remove(lo);
+        this.availability.remove(lo.getType().getId(), lo.getStartDay(), lo.getEndDay(), lo.getLendingQuantity());
+    }
+
+    private static void assignId(Object entity, long id) {
+        try {
+            Field field = entity.getClass().getDeclaredField("id");
+            field.setAccessible(true);
+            field.setLong(entity, id);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("Keine Id in " + entity.getClass().getName(), e);
+        }
+    }
+}
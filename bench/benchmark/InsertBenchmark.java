@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package benchmark;
+
+import entities.Lending;
+import entities.LendingObject;
+import entities.Material;
+import entities.Person;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vergleicht den Durchsatz beim Einfuegen mit Ids aus IDENTITY-Spalten
+ * (BenchIdentityPU, frueherer Stand) und aus der Tabelle ID_GENERATOR
+ * (BenchTablePU, Generatoren aus orm.xml). Beide laufen gegen Derby im
+ * Speicher mit JDBC-Batch-Writing.
+ *
+ * Benoetigt EclipseLink und derby.jar auf dem Klassenpfad
+ * (bench.jpa.classpath).
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class InsertBenchmark {
+
+    /**
+     * Persistence Unit, BenchIdentityPU oder BenchTablePU.
+     */
+    @Param({"BenchIdentityPU", "BenchTablePU"})
+    public String unit;
+
+    private EntityManagerFactory emf;
+    private Material[] materials;
+    private long run;
+
+    /**
+     * Legt die Datenbank und 50 Materialien an.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("javax.persistence.jdbc.url", "jdbc:derby:memory:" + this.unit + ";create=true");
+        this.emf = Persistence.createEntityManagerFactory(this.unit, properties);
+
+        EntityManager em = this.emf.createEntityManager();
+        em.getTransaction().begin();
+        this.materials = new Material[50];
+        for (int i = 0; i < this.materials.length; i++) {
+            this.materials[i] = new Material("Material " + i, "", 1000000);
+            em.persist(this.materials[i]);
+        }
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    /**
+     * Schliesst die EntityManagerFactory.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.emf.close();
+    }
+
+    /**
+     * Eine Ausleihe mit 50 Ausleihobjekten in einer Transaktion.
+     *
+     * @return Id der Ausleihe
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public long lending50() {
+        EntityManager em = this.emf.createEntityManager();
+        Date begin = new java.sql.Date(System.currentTimeMillis());
+
+        em.getTransaction().begin();
+        Person person = new Person("Person " + this.run++);
+        em.persist(person);
+
+        Lending lending = new Lending();
+        lending.setPerson(person);
+        for (Material m : this.materials) {
+            LendingObject lo = new LendingObject(em.getReference(Material.class, m.getId()), 1, begin, begin);
+            em.persist(lo);
+            lending.addLendingObject(lo);
+        }
+        em.persist(lending);
+        em.getTransaction().commit();
+        em.close();
+
+        return lending.getId();
+    }
+
+    /**
+     * Import von 100.000 Materialien in einer Transaktion, der
+     * Persistenzkontext wird alle 1.000 Zeilen geleert.
+     *
+     * @return Anzahl der Materialien
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public int materialImport100k() {
+        EntityManager em = this.emf.createEntityManager();
+        long prefix = this.run++;
+
+        em.getTransaction().begin();
+        for (int i = 0; i < 100000; i++) {
+            em.persist(new Material("Import " + prefix + "-" + i, "Importiertes Material", 1));
+            if (i % 1000 == 999) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.getTransaction().commit();
+        em.close();
+
+        return 100000;
+    }
+}
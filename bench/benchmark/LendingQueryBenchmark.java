@@ -0,0 +1,242 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package benchmark;
+
+import entities.Lending;
+import entities.LendingObject;
+import entities.Material;
+import entities.Person;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.persistence.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vergleicht die Abfragen ueber die Zuordnung von Ausleihobjekten zu
+ * Ausleihen: Join-Tabelle mit MEMBER OF (BenchJoinTablePU, frueherer Stand)
+ * und Fremdschluessel LENDING_ID in LENDINGOBJECT (BenchTablePU).
+ *
+ * Beim Aufbau werden die Ausfuehrungsplaene von Derby fuer jede Abfrage
+ * ausgegeben (SYSCS_GET_RUNTIMESTATISTICS).
+ *
+ * Benoetigt EclipseLink und derby.jar auf dem Klassenpfad
+ * (bench.jpa.classpath).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class LendingQueryBenchmark {
+
+    private static final int QUERIES = 1024;
+    private static final int OBJECTS_PER_LENDING = 5;
+
+    /**
+     * Persistence Unit, BenchJoinTablePU oder BenchTablePU.
+     */
+    @Param({"BenchJoinTablePU", "BenchTablePU"})
+    public String unit;
+    /**
+     * Anzahl der Ausleihen.
+     */
+    @Param({"1000", "20000"})
+    public int lendings;
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private long[] lendingIds;
+    private long[] lendingObjectIds;
+    private long[] personIds;
+    private int cursor;
+
+    /**
+     * Legt die Datenbank an und gibt die Ausfuehrungsplaene aus.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("javax.persistence.jdbc.url", "jdbc:derby:memory:" + this.unit + this.lendings + ";create=true");
+        this.emf = Persistence.createEntityManagerFactory(this.unit, properties);
+
+        Random rn = new Random(42);
+        Date day = new java.sql.Date(System.currentTimeMillis());
+        Material[] materials = new Material[50];
+        Person[] persons = new Person[Math.max(1, this.lendings / 10)];
+        long[] allLendingIds = new long[this.lendings];
+        long[] allObjectIds = new long[this.lendings * OBJECTS_PER_LENDING];
+
+        EntityManager setup = this.emf.createEntityManager();
+        setup.getTransaction().begin();
+        for (int i = 0; i < materials.length; i++) {
+            materials[i] = new Material("Material " + i, "", 1000000);
+            setup.persist(materials[i]);
+        }
+        for (int i = 0; i < persons.length; i++) {
+            persons[i] = new Person("Person " + i);
+            setup.persist(persons[i]);
+        }
+        for (int i = 0; i < this.lendings; i++) {
+            Lending lending = new Lending();
+            lending.setPerson(persons[rn.nextInt(persons.length)]);
+            for (int j = 0; j < OBJECTS_PER_LENDING; j++) {
+                lending.addLendingObject(new LendingObject(materials[rn.nextInt(materials.length)], 1, day, day));
+            }
+            setup.persist(lending);
+            allLendingIds[i] = lending.getId();
+            for (int j = 0; j < OBJECTS_PER_LENDING; j++) {
+                allObjectIds[i * OBJECTS_PER_LENDING + j] = lending.getLendings().get(j).getId();
+            }
+        }
+        setup.getTransaction().commit();
+        setup.close();
+
+        this.lendingIds = new long[QUERIES];
+        this.lendingObjectIds = new long[QUERIES];
+        this.personIds = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            this.lendingIds[i] = allLendingIds[rn.nextInt(allLendingIds.length)];
+            this.lendingObjectIds[i] = allObjectIds[rn.nextInt(allObjectIds.length)];
+            this.personIds[i] = persons[rn.nextInt(persons.length)].getId();
+        }
+
+        this.em = this.emf.createEntityManager();
+        this.printPlans();
+    }
+
+    /**
+     * Schliesst die EntityManagerFactory.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.em.close();
+        this.emf.close();
+    }
+
+    /**
+     * Leert den Persistenzkontext, damit jede Iteration gleich viele
+     * Objekte neu laedt.
+     */
+    @TearDown(Level.Iteration)
+    public void clear() {
+        this.em.clear();
+    }
+
+    /**
+     * Lending.getLendingObjectsQuantity.
+     *
+     * @return Menge
+     */
+    @Benchmark
+    public Object lendingObjectsQuantity() {
+        return this.lendingObjectsQuantity(this.lendingIds[this.next()]).getSingleResult();
+    }
+
+    /**
+     * Lending.getLendingObjectsFromLending.
+     *
+     * @return Ausleihobjekte
+     */
+    @Benchmark
+    public List<?> lendingObjectsFromLending() {
+        return this.lendingObjectsFromLending(this.lendingIds[this.next()]).getResultList();
+    }
+
+    /**
+     * LendingObject.getLenderName.
+     *
+     * @return Name der Person
+     */
+    @Benchmark
+    public Object lenderName() {
+        return this.lenderName(this.lendingObjectIds[this.next()]).getSingleResult();
+    }
+
+    /**
+     * Person.getLendingObjectQuantity.
+     *
+     * @return Menge
+     */
+    @Benchmark
+    public Object personLendingObjectQuantity() {
+        return this.personLendingObjectQuantity(this.personIds[this.next()]).getSingleResult();
+    }
+
+    private int next() {
+        return this.cursor++ & (QUERIES - 1);
+    }
+
+    private Query lendingObjectsQuantity(long lendingId) {
+        return this.em.createNamedQuery("Lending.getLendingObjectsQuantity").setParameter("lendingId", lendingId);
+    }
+
+    private Query lendingObjectsFromLending(long lendingId) {
+        return this.em.createNamedQuery("Lending.getLendingObjectsFromLending").setParameter("lendingId", lendingId);
+    }
+
+    private Query lenderName(long lendingObjectId) {
+        return this.em.createNamedQuery("LendingObject.getLenderName").setParameter("lendingObjectId", lendingObjectId);
+    }
+
+    private Query personLendingObjectQuantity(long personId) {
+        return this.em.createNamedQuery("Person.getLendingObjectQuantity").setParameter("personId", personId);
+    }
+
+    /**
+     * Fuehrt jede Abfrage einmal mit eingeschalteter Laufzeitstatistik aus
+     * und gibt den Plan von Derby aus. Die Transaktion haelt dabei dieselbe
+     * Verbindung fest.
+     */
+    private void printPlans() {
+        Map<String, Query> queries = new HashMap<>();
+        queries.put("Lending.getLendingObjectsQuantity", this.lendingObjectsQuantity(this.lendingIds[0]));
+        queries.put("Lending.getLendingObjectsFromLending", this.lendingObjectsFromLending(this.lendingIds[0]));
+        queries.put("LendingObject.getLenderName", this.lenderName(this.lendingObjectIds[0]));
+        queries.put("Person.getLendingObjectQuantity", this.personLendingObjectQuantity(this.personIds[0]));
+
+        this.em.getTransaction().begin();
+        this.em.createNativeQuery("CALL SYSCS_UTIL.SYSCS_SET_RUNTIMESTATISTICS(1)").executeUpdate();
+        for (Map.Entry<String, Query> e : queries.entrySet()) {
+            e.getValue().getResultList();
+            Object plan = this.em.createNativeQuery("VALUES SYSCS_UTIL.SYSCS_GET_RUNTIMESTATISTICS()").getSingleResult();
+            System.out.println("### Plan " + this.unit + " " + e.getKey() + " ###");
+            System.out.println(plan);
+        }
+        this.em.createNativeQuery("CALL SYSCS_UTIL.SYSCS_SET_RUNTIMESTATISTICS(0)").executeUpdate();
+        this.em.getTransaction().rollback();
+        this.em.clear();
+    }
+}
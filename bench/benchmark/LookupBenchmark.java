@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package benchmark;
+
+import controller.LendingSystem;
+import entities.Person;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import model.PersonModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks fuer die Namensnormalisierung und die Suche von Materialien und
+ * Personen ueber den Namen.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class LookupBenchmark {
+
+    /**
+     * Anzahl der Ausleihobjekte in den Testdaten, die Anzahl der Personen ist
+     * ein Zehntel davon.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private LendingSystem lendingSystem;
+    private PersonModel personModel;
+    private String[] materialNames;
+    private String[] personNames;
+    private int cursor;
+
+    /**
+     * Baut die Testdaten auf.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkFixture fixture = new BenchmarkFixture(this.size, 42);
+        List<String> materials = fixture.getMaterialNames();
+        List<String> persons = fixture.getPersonNames();
+
+        this.lendingSystem = fixture.getLendingSystem();
+        this.personModel = fixture.getPersonModel();
+        this.materialNames = materials.subList(0, Math.min(1024, materials.size())).toArray(new String[0]);
+        this.personNames = persons.subList(0, Math.min(1024, persons.size())).toArray(new String[0]);
+    }
+
+    /**
+     * Normalisierung eines Materialnamens.
+     *
+     * @return konformer Name
+     */
+    @Benchmark
+    public String makeStringConform() {
+        return LendingSystem.makeStringConform(this.materialNames[(this.cursor++ & Integer.MAX_VALUE) % this.materialNames.length]);
+    }
+
+    /**
+     * Suche eines Materials ueber den Namen.
+     *
+     * @return true, wenn das Material existiert
+     */
+    @Benchmark
+    public boolean doesMaterialExist() {
+        return this.lendingSystem.doesMaterialExist(this.materialNames[(this.cursor++ & Integer.MAX_VALUE) % this.materialNames.length]);
+    }
+
+    /**
+     * Suche einer Person ueber den Namen.
+     *
+     * @return gefundene Person
+     */
+    @Benchmark
+    public Person checkIfPersonNotAlreadyExists() {
+        return this.personModel.checkIfPersonNotAlreadyExists(this.personNames[(this.cursor++ & Integer.MAX_VALUE) % this.personNames.length]);
+    }
+}
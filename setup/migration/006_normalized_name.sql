@@ -0,0 +1,17 @@
+-- Normalisierter Name fuer Material und Person (Derby).
+--
+-- Nur fuer bestehende Datenbanken noetig; mit schema-generation
+-- "drop-and-create" legt JPA die Spalten und Indizes selbst an.
+--
+-- 1. Vor dem Deployment ausfuehren:
+ALTER TABLE MATERIAL ADD COLUMN NORMALIZEDNAME VARCHAR(255);
+ALTER TABLE PERSON ADD COLUMN NORMALIZEDNAME VARCHAR(255);
+
+-- 2. Beim Start fuellt database.SchemaMigration die Spalte fuer alle
+--    vorhandenen Zeilen (gleiche Regeln wie LendingSystem.makeStringConform).
+--
+-- 3. Danach die eindeutigen Indizes anlegen. Schlaegt das fehl, gibt es
+--    Materialien bzw. Personen, die sich nur in Gross-/Kleinschreibung oder
+--    Umlautschreibweise unterscheiden; diese vorher zusammenfuehren.
+CREATE UNIQUE INDEX IDX_MATERIAL_NORMALIZEDNAME ON MATERIAL (NORMALIZEDNAME);
+CREATE UNIQUE INDEX IDX_PERSON_NORMALIZEDNAME ON PERSON (NORMALIZEDNAME);
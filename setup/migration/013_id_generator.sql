@@ -0,0 +1,17 @@
+-- Id-Vergabe ueber die Tabelle ID_GENERATOR statt IDENTITY (Derby).
+--
+-- Nur fuer bestehende Datenbanken noetig; mit schema-generation
+-- "drop-and-create" legt JPA die Tabelle selbst an.
+--
+-- Die ID-Spalten wurden von EclipseLink mit GENERATED BY DEFAULT AS IDENTITY
+-- angelegt und nehmen deshalb auch vorgegebene Ids an. Die Generatoren
+-- starten hinter der hoechsten vergebenen Id.
+CREATE TABLE ID_GENERATOR (
+    GEN_NAME VARCHAR(50) NOT NULL PRIMARY KEY,
+    GEN_VALUE BIGINT
+);
+
+INSERT INTO ID_GENERATOR (GEN_NAME, GEN_VALUE) SELECT 'MATERIAL', COALESCE(MAX(ID), 0) FROM MATERIAL;
+INSERT INTO ID_GENERATOR (GEN_NAME, GEN_VALUE) SELECT 'PERSON', COALESCE(MAX(ID), 0) FROM PERSON;
+INSERT INTO ID_GENERATOR (GEN_NAME, GEN_VALUE) SELECT 'LENDING', COALESCE(MAX(ID), 0) FROM LENDING;
+INSERT INTO ID_GENERATOR (GEN_NAME, GEN_VALUE) SELECT 'LENDINGOBJECT', COALESCE(MAX(ID), 0) FROM LENDINGOBJECT;
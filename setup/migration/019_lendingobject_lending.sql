@@ -0,0 +1,19 @@
+-- Fremdschluessel LENDING_ID in LENDINGOBJECT statt der Join-Tabelle
+-- LENDING_LENDINGOBJECT (Derby).
+--
+-- Nur fuer bestehende Datenbanken noetig; mit schema-generation
+-- "drop-and-create" legt JPA die Spalte und den Index selbst an.
+--
+-- Vor dem Deployment ausfuehren. Jedes Ausleihobjekt gehoert zu hoechstens
+-- einer Ausleihe, die Zuordnung wird aus der Join-Tabelle uebernommen.
+ALTER TABLE LENDINGOBJECT ADD COLUMN LENDING_ID BIGINT;
+
+UPDATE LENDINGOBJECT SET LENDING_ID = (
+    SELECT ll.LENDING_ID FROM LENDING_LENDINGOBJECT ll WHERE ll.LENDINGS_ID = LENDINGOBJECT.ID
+);
+
+ALTER TABLE LENDINGOBJECT ADD CONSTRAINT FK_LENDINGOBJECT_LENDING_ID
+    FOREIGN KEY (LENDING_ID) REFERENCES LENDING (ID);
+CREATE INDEX IDX_LENDINGOBJECT_LENDING ON LENDINGOBJECT (LENDING_ID);
+
+DROP TABLE LENDING_LENDINGOBJECT;
@@ -0,0 +1,29 @@
+-- Archivtabellen fuer beendete Ausleihen (Derby), siehe
+-- database.LendingArchiver.
+--
+-- Nur fuer bestehende Datenbanken noetig; mit schema-generation
+-- "drop-and-create" legt JPA die Tabellen und Indizes selbst an.
+CREATE TABLE ARCHIVEDLENDING (
+    ID BIGINT NOT NULL,
+    PERSONID BIGINT,
+    PERSONNAME VARCHAR(255),
+    STARTLENDDATE DATE,
+    ENDLENDDATE DATE,
+    ARCHIVEDON DATE,
+    PRIMARY KEY (ID)
+);
+CREATE INDEX IDX_ARCHIVEDLENDING_PERSON ON ARCHIVEDLENDING (PERSONID);
+
+CREATE TABLE ARCHIVEDLENDINGOBJECT (
+    ID BIGINT NOT NULL,
+    LENDINGID BIGINT,
+    MATERIALID BIGINT,
+    MATERIALNAME VARCHAR(255),
+    LENDINGQUANTITY INTEGER,
+    STARTLENDDATE DATE,
+    ENDLENDDATE DATE,
+    PRIMARY KEY (ID)
+);
+CREATE INDEX IDX_ARCHIVEDLENDINGOBJECT_LENDING ON ARCHIVEDLENDINGOBJECT (LENDINGID);
+CREATE INDEX IDX_ARCHIVEDLENDINGOBJECT_MATERIAL_DATES
+    ON ARCHIVEDLENDINGOBJECT (MATERIALID, STARTLENDDATE, ENDLENDDATE);
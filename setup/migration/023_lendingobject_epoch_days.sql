@@ -0,0 +1,25 @@
+-- Start- und Enddatum der Ausleihobjekte als Epochentage (Tage seit dem
+-- 01.01.1970) in STARTDAY/ENDDAY statt als DATE in
+-- STARTLENDDATE/ENDLENDDATE (Derby).
+--
+-- Nur fuer bestehende Datenbanken noetig; mit schema-generation
+-- "drop-and-create" legt JPA die Spalten und den Index selbst an.
+--
+-- Vor dem Deployment ausfuehren. Die Archivtabellen behalten ihre
+-- DATE-Spalten.
+ALTER TABLE LENDINGOBJECT ADD COLUMN STARTDAY INTEGER;
+ALTER TABLE LENDINGOBJECT ADD COLUMN ENDDAY INTEGER;
+
+-- Fehlende Daten werden zu LendingObject.NO_DAY (Integer.MIN_VALUE), sonst
+-- schlaegt das folgende NOT NULL fehl.
+UPDATE LENDINGOBJECT SET
+    STARTDAY = COALESCE({fn TIMESTAMPDIFF(SQL_TSI_DAY, TIMESTAMP('1970-01-01 00:00:00'), TIMESTAMP(STARTLENDDATE, '00:00:00'))}, -2147483648),
+    ENDDAY = COALESCE({fn TIMESTAMPDIFF(SQL_TSI_DAY, TIMESTAMP('1970-01-01 00:00:00'), TIMESTAMP(ENDLENDDATE, '00:00:00'))}, -2147483648);
+
+ALTER TABLE LENDINGOBJECT ALTER COLUMN STARTDAY NOT NULL;
+ALTER TABLE LENDINGOBJECT ALTER COLUMN ENDDAY NOT NULL;
+
+DROP INDEX IDX_LENDINGOBJECT_TYPE_DATES;
+ALTER TABLE LENDINGOBJECT DROP COLUMN STARTLENDDATE;
+ALTER TABLE LENDINGOBJECT DROP COLUMN ENDLENDDATE;
+CREATE INDEX IDX_LENDINGOBJECT_TYPE_DATES ON LENDINGOBJECT (TYPE_ID, STARTDAY, ENDDAY);
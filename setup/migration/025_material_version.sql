@@ -0,0 +1,5 @@
+-- Versionsspalte fuer Material (Derby), siehe model.MaterialCatalog.
+--
+-- Nur fuer bestehende Datenbanken noetig; mit schema-generation
+-- "drop-and-create" legt JPA die Spalte selbst an.
+ALTER TABLE MATERIAL ADD COLUMN VERSION BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package api;
+
+import entities.EpochDays;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import javax.annotation.Resource;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+
+/**
+ * Exportiert den Datenbestand als CSV unter /export.
+ *
+ * Die Daten werden nicht ueber den Persistierer geladen, sondern mit einer
+ * Vorwaerts-Abfrage und fester Fetch-Size direkt aus der Datenbank gelesen
+ * und Zeile fuer Zeile in die Antwort geschrieben. Der Speicherbedarf haengt
+ * damit nicht von der Groesse der Tabellen ab.
+ *
+ * Parameter:
+ * <ul>
+ * <li>type: lendings (Standard, eine Zeile pro Ausleihobjekt mit Ausleihe,
+ * Person und Material), archive (dieselben Spalten aus dem Archiv beendeter
+ * Ausleihen), persons oder materials</li>
+ * <li>from, to: nur Ausleihobjekte, deren Zeitraum sich mit dem angegebenen
+ * Zeitraum ueberschneidet (yyyy-mm-dd, jeweils optional)</li>
+ * </ul>
+ */
+@WebServlet(urlPatterns = "/export")
+public class CsvExportServlet extends HttpServlet {
+
+    /**
+     * Anzahl der Zeilen, die pro Roundtrip von der Datenbank geholt werden.
+     */
+    static final int FETCH_SIZE = 500;
+    /**
+     * Erste Spalte mit einem Tag in LENDINGS_QUERY (STARTDAY, danach ENDDAY).
+     */
+    private static final int FIRST_DAY_COLUMN = 8;
+
+    private static final String LENDINGS_QUERY
+            = "SELECT l.ID, p.ID, p.NAME, lo.ID, m.ID, m.NAME, lo.LENDINGQUANTITY, lo.STARTDAY, lo.ENDDAY "
+            + "FROM LENDING l "
+            + "JOIN LENDINGOBJECT lo ON lo.LENDING_ID = l.ID "
+            + "LEFT JOIN PERSON p ON p.ID = l.PERSON_ID "
+            + "LEFT JOIN MATERIAL m ON m.ID = lo.TYPE_ID "
+            + "WHERE lo.ENDDAY >= ? AND lo.STARTDAY <= ? "
+            + "ORDER BY l.ID, lo.ID";
+    private static final String ARCHIVE_QUERY
+            = "SELECT a.ID, a.PERSONID, a.PERSONNAME, ao.ID, ao.MATERIALID, ao.MATERIALNAME, "
+            + "ao.LENDINGQUANTITY, ao.STARTLENDDATE, ao.ENDLENDDATE "
+            + "FROM ARCHIVEDLENDING a "
+            + "JOIN ARCHIVEDLENDINGOBJECT ao ON ao.LENDINGID = a.ID "
+            + "WHERE ao.ENDLENDDATE >= ? AND ao.STARTLENDDATE <= ? "
+            + "ORDER BY a.ID, ao.ID";
+    private static final String PERSONS_QUERY
+            = "SELECT ID, NAME FROM PERSON ORDER BY ID";
+    private static final String MATERIALS_QUERY
+            = "SELECT ID, NAME, DESCRIPTION, QUANTITY FROM MATERIAL ORDER BY ID";
+
+    private static final Date MIN_DATE = Date.valueOf("0001-01-01");
+    private static final Date MAX_DATE = Date.valueOf("9999-12-31");
+
+    /**
+     * Datenquelle der Persistence Unit BlomBrammerZeynPU.
+     */
+    @Resource(lookup = "java:app/jdbc/BlomBrammerZeyn")
+    private DataSource dataSource;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        String type = request.getParameter("type");
+        Date from;
+        Date to;
+
+        try {
+            from = parseDate(request.getParameter("from"), MIN_DATE);
+            to = parseDate(request.getParameter("to"), MAX_DATE);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Datum bitte im Format yyyy-mm-dd angeben");
+            return;
+        }
+
+        String[] header;
+        String query;
+        boolean dateFilter = false;
+        boolean epochDays = false;
+        if (type == null || type.equals("lendings") || type.equals("archive")) {
+            header = new String[]{"lending_id", "person_id", "person_name", "lendingobject_id", "material_id",
+                "material_name", "quantity", "start_date", "end_date"};
+            epochDays = type == null || type.equals("lendings");
+            query = epochDays ? LENDINGS_QUERY : ARCHIVE_QUERY;
+            dateFilter = true;
+        } else if (type.equals("persons")) {
+            header = new String[]{"person_id", "person_name"};
+            query = PERSONS_QUERY;
+        } else if (type.equals("materials")) {
+            header = new String[]{"material_id", "material_name", "description", "quantity"};
+            query = MATERIALS_QUERY;
+        } else {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                    "Unbekannter Typ, erlaubt sind lendings, archive, persons und materials");
+            return;
+        }
+
+        response.setContentType("text/csv");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + (type == null ? "lendings" : type) + ".csv\"");
+
+        CsvWriter csv = new CsvWriter(response.getWriter());
+        csv.writeRow((Object[]) header);
+
+        try (Connection connection = this.dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(query,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(FETCH_SIZE);
+            if (epochDays) {
+                statement.setInt(1, EpochDays.of(from));
+                statement.setInt(2, EpochDays.of(to));
+            } else if (dateFilter) {
+                statement.setDate(1, from);
+                statement.setDate(2, to);
+            }
+
+            try (ResultSet rs = statement.executeQuery()) {
+                int columns = header.length;
+                while (rs.next()) {
+                    for (int i = 1; i <= columns; i++) {
+                        // Start- und Endtag stehen in LENDINGOBJECT als Epochentage.
+                        if (epochDays && i >= FIRST_DAY_COLUMN) {
+                            csv.writeField(EpochDays.toDate(rs.getInt(i)));
+                        } else {
+                            csv.writeField(rs.getObject(i));
+                        }
+                    }
+                    csv.endRow();
+                }
+            }
+        } catch (SQLException e) {
+            // Der Kopf ist bereits geschrieben, ein Statuscode kann nicht mehr gesetzt werden.
+            throw new ServletException("Export fehlgeschlagen", e);
+        }
+    }
+
+    private static Date parseDate(String value, Date defaultValue) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return Date.valueOf(value.trim());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package api;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Liest Zeilen im CSV-Format, wie sie der {@link CsvWriter} schreibt,
+ * schrittweise aus einem Reader. Es wird immer nur die aktuelle Zeile im
+ * Speicher gehalten.
+ *
+ * Als Iterator wirft der CsvReader Lesefehler als
+ * {@link UncheckedIOException}.
+ */
+public class CsvReader implements Iterator<String[]> {
+
+    private static final char SEPARATOR = ';';
+
+    private final Reader in;
+    private final StringBuilder field;
+    private final List<String> fields;
+    private String[] next;
+    private boolean eof;
+
+    /**
+     * Erstellt einen CsvReader.
+     *
+     * @param in Quelle
+     */
+    public CsvReader(Reader in) {
+        this.in = in.markSupported() ? in : new BufferedReader(in);
+        this.field = new StringBuilder();
+        this.fields = new ArrayList<>();
+    }
+
+    /**
+     * Liest die naechste Zeile. Leere Zeilen werden uebersprungen.
+     *
+     * @return Felder der Zeile oder null am Ende der Eingabe
+     * @throws IOException wenn nicht gelesen werden kann
+     */
+    public String[] readRow() throws IOException {
+        while (!this.eof) {
+            String[] row = this.readLine();
+            if (row != null) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.next == null) {
+            try {
+                this.next = this.readRow();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return this.next != null;
+    }
+
+    @Override
+    public String[] next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String[] row = this.next;
+        this.next = null;
+        return row;
+    }
+
+    private String[] readLine() throws IOException {
+        boolean quoted = false;
+        boolean empty = true;
+        int c;
+
+        this.fields.clear();
+        this.field.setLength(0);
+
+        while ((c = this.in.read()) != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    this.in.mark(1);
+                    int peek = this.in.read();
+                    if (peek == '"') {
+                        this.field.append('"');
+                    } else {
+                        quoted = false;
+                        if (peek != -1) {
+                            this.in.reset();
+                        }
+                    }
+                } else {
+                    this.field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                empty = false;
+            } else if (c == SEPARATOR) {
+                this.fields.add(this.field.toString());
+                this.field.setLength(0);
+                empty = false;
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                this.field.append((char) c);
+                empty = false;
+            }
+        }
+
+        if (c == -1) {
+            this.eof = true;
+        }
+        if (empty) {
+            return null;
+        }
+
+        this.fields.add(this.field.toString());
+        return this.fields.toArray(new String[this.fields.size()]);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package api;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Schreibt Zeilen im CSV-Format nach RFC 4180 direkt in einen Writer, ohne
+ * die Ausgabe zwischenzuspeichern. Felder mit Trennzeichen, Anfuehrungszeichen
+ * oder Zeilenumbruechen werden in Anfuehrungszeichen gesetzt.
+ */
+public class CsvWriter {
+
+    private static final char SEPARATOR = ';';
+
+    private final Writer out;
+    private boolean firstField;
+
+    /**
+     * Erstellt einen CsvWriter.
+     *
+     * @param out Ziel der Ausgabe
+     */
+    public CsvWriter(Writer out) {
+        this.out = out;
+        this.firstField = true;
+    }
+
+    /**
+     * Schreibt eine vollstaendige Zeile.
+     *
+     * @param fields Felder der Zeile
+     * @throws IOException wenn nicht geschrieben werden kann
+     */
+    public void writeRow(Object... fields) throws IOException {
+        for (Object field : fields) {
+            this.writeField(field);
+        }
+        this.endRow();
+    }
+
+    /**
+     * Schreibt ein Feld der aktuellen Zeile, null wird als leeres Feld
+     * geschrieben.
+     *
+     * @param field Feld
+     * @throws IOException wenn nicht geschrieben werden kann
+     */
+    public void writeField(Object field) throws IOException {
+        if (!this.firstField) {
+            this.out.write(SEPARATOR);
+        }
+        this.firstField = false;
+
+        if (field == null) {
+            return;
+        }
+
+        String value = field.toString();
+        if (!needsQuotes(value)) {
+            this.out.write(value);
+            return;
+        }
+
+        this.out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                this.out.write('"');
+            }
+            this.out.write(c);
+        }
+        this.out.write('"');
+    }
+
+    /**
+     * Beendet die aktuelle Zeile.
+     *
+     * @throws IOException wenn nicht geschrieben werden kann
+     */
+    public void endRow() throws IOException {
+        this.out.write("\r\n");
+        this.firstField = true;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == SEPARATOR || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package api;
+
+import entities.EpochDays;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * Inhalt einer Anfrage an {@link LendingResource}: Name der Person und die
+ * auszuleihenden Positionen mit Material, Menge und Zeitraum.
+ */
+final class LendingRequest {
+
+    private final String person;
+    private final List<Item> items;
+
+    /**
+     * Erstellt eine neue Anfrage.
+     *
+     * @param person Name der Person
+     * @param items Positionen
+     */
+    LendingRequest(String person, List<Item> items) {
+        this.person = person;
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+    }
+
+    /**
+     * Liest eine Anfrage aus JSON:
+     * {"person":"Name","items":[{"materialId":1,"quantity":2,"from":"2016-05-01","to":"2016-05-03"}]}.
+     * Ob die Materialien existieren und Menge und Zeitraum gueltig sind, wird
+     * hier nicht geprueft.
+     *
+     * @param json JSON-Objekt der Anfrage
+     * @return Anfrage
+     * @throws IllegalArgumentException wenn ein Feld fehlt oder den falschen
+     * Typ hat
+     */
+    static LendingRequest fromJson(JsonObject json) {
+        JsonValue person = json.get("person");
+        if (!(person instanceof JsonString)) {
+            throw new IllegalArgumentException("person muss als Text angegeben werden");
+        }
+
+        JsonValue items = json.get("items");
+        List<Item> result = new ArrayList<>();
+        if (items instanceof JsonArray) {
+            int position = 1;
+            for (JsonValue item : (JsonArray) items) {
+                if (!(item instanceof JsonObject)) {
+                    throw new IllegalArgumentException("Position " + position + " ist kein Objekt");
+                }
+                result.add(Item.fromJson((JsonObject) item, position++));
+            }
+        } else if (items != null && items.getValueType() != JsonValue.ValueType.NULL) {
+            throw new IllegalArgumentException("items muss eine Liste sein");
+        }
+
+        return new LendingRequest(((JsonString) person).getString().trim(), result);
+    }
+
+    /**
+     * Gibt den Namen der Person zurueck.
+     *
+     * @return Name der Person
+     */
+    String getPerson() {
+        return person;
+    }
+
+    /**
+     * Gibt die Positionen zurueck.
+     *
+     * @return unveraenderliche Liste der Positionen
+     */
+    List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * Eine Position der Anfrage.
+     */
+    static final class Item {
+
+        private final long materialId;
+        private final int quantity;
+        private final int beginDay;
+        private final int endDay;
+
+        /**
+         * Erstellt eine neue Position.
+         *
+         * @param materialId Id des Materials
+         * @param quantity Menge
+         * @param beginDay Starttag (Epochentag)
+         * @param endDay Endtag (Epochentag)
+         */
+        Item(long materialId, int quantity, int beginDay, int endDay) {
+            this.materialId = materialId;
+            this.quantity = quantity;
+            this.beginDay = beginDay;
+            this.endDay = endDay;
+        }
+
+        private static Item fromJson(JsonObject item, int position) {
+            return new Item(integral(item, "materialId", position, Long.MAX_VALUE),
+                    (int) integral(item, "quantity", position, Integer.MAX_VALUE),
+                    day(item, "from", position), day(item, "to", position));
+        }
+
+        private static long integral(JsonObject item, String name, int position, long max) {
+            JsonValue value = item.get(name);
+
+            if (value instanceof JsonNumber && ((JsonNumber) value).isIntegral()) {
+                try {
+                    long result = ((JsonNumber) value).longValueExact();
+                    if (result >= 0 && result <= max) {
+                        return result;
+                    }
+                } catch (ArithmeticException e) {
+                    // ausserhalb von long, siehe unten
+                }
+            }
+
+            throw new IllegalArgumentException(name + " in Position " + position
+                    + " muss eine ganze Zahl zwischen 0 und " + max + " sein");
+        }
+
+        private static int day(JsonObject item, String name, int position) {
+            JsonValue value = item.get(name);
+
+            if (value instanceof JsonString) {
+                try {
+                    int day = EpochDays.of(LocalDate.parse(((JsonString) value).getString()));
+                    if (EpochDays.isBookable(day)) {
+                        return day;
+                    }
+                } catch (DateTimeException | ArithmeticException e) {
+                    // ungueltiges Datum, siehe unten
+                }
+            }
+
+            throw new IllegalArgumentException(name + " in Position " + position
+                    + " muss ein Datum im Format JJJJ-MM-TT zwischen 1970-01-01 und "
+                    + EpochDays.toLocalDate(EpochDays.lastBookableDay()) + " sein");
+        }
+
+        /**
+         * Gibt die Id des Materials zurueck.
+         *
+         * @return Id des Materials
+         */
+        long getMaterialId() {
+            return materialId;
+        }
+
+        /**
+         * Gibt die Menge zurueck.
+         *
+         * @return Menge
+         */
+        int getQuantity() {
+            return quantity;
+        }
+
+        /**
+         * Gibt den Starttag zurueck.
+         *
+         * @return Starttag (Epochentag)
+         */
+        int getBeginDay() {
+            return beginDay;
+        }
+
+        /**
+         * Gibt den Endtag zurueck.
+         *
+         * @return Endtag (Epochentag)
+         */
+        int getEndDay() {
+            return endDay;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package api;
+
+import controller.CheckoutService;
+import entities.EpochDays;
+import entities.LendingObject;
+import entities.Material;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonReader;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import model.MaterialCatalog;
+
+/**
+ * Legt Ausleihen fuer externe Ausleihterminals an (POST /api/lendings), der
+ * Inhalt ist in {@link LendingRequest#fromJson} beschrieben.
+ *
+ * Die Ausleihe wird wie ueber die Oberflaeche ueber den
+ * {@link CheckoutService} gespeichert, aber ohne die Ausleihliste der
+ * Sitzung. Antwort ist 201 bei Erfolg, 409 mit der verfuegbaren Menge pro
+ * Position, wenn nicht genug Gegenstaende frei sind, und 400 bei
+ * ungueltigen Anfragen.
+ */
+@Path("lendings")
+@Produces(MediaType.APPLICATION_JSON)
+@RequestScoped
+public class LendingResource {
+
+    /**
+     * Katalog aller Materialien.
+     */
+    @Inject
+    private MaterialCatalog catalog;
+    /**
+     * Speichert die Ausleihe.
+     */
+    @Inject
+    private CheckoutService checkout;
+
+    /**
+     * Legt eine Ausleihe an.
+     *
+     * @param body JSON-Inhalt der Anfrage
+     * @return 201, 400 oder 409
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response createLending(InputStream body) {
+        LendingRequest request;
+
+        try (JsonReader reader = Json.createReader(body)) {
+            request = LendingRequest.fromJson(reader.readObject());
+        } catch (JsonException e) {
+            return RestApplication.error(Response.Status.BAD_REQUEST, "Der Inhalt ist kein gueltiges JSON-Objekt");
+        } catch (IllegalArgumentException e) {
+            return RestApplication.error(Response.Status.BAD_REQUEST, e.getMessage());
+        }
+
+        return toResponse(this.checkout(request));
+    }
+
+    /**
+     * Prueft die Anfrage und speichert die Ausleihe.
+     *
+     * @param request Anfrage
+     * @return Ergebnis
+     */
+    Result checkout(LendingRequest request) {
+        if (request.getPerson().isEmpty()) {
+            return new Result(Response.Status.BAD_REQUEST, Collections.singletonList("Keine Person angegeben"), null, null);
+        }
+
+        List<LendingObject> lendingObjects = new ArrayList<>();
+        for (LendingRequest.Item item : request.getItems()) {
+            Material material = this.catalog.findMaterial(item.getMaterialId());
+
+            if (material == null) {
+                return new Result(Response.Status.BAD_REQUEST,
+                        Collections.singletonList("Material " + item.getMaterialId() + " existiert nicht"), null, null);
+            }
+            if (item.getQuantity() <= 0 || item.getEndDay() < item.getBeginDay()) {
+                return new Result(Response.Status.BAD_REQUEST, Collections.singletonList(
+                        "Ungueltige Menge oder ungueltiger Zeitraum fuer Material " + item.getMaterialId()), null, null);
+            }
+
+            lendingObjects.add(new LendingObject(material, item.getQuantity(), item.getBeginDay(), item.getEndDay()));
+        }
+
+        List<String> messages = new ArrayList<>();
+        int code = this.checkout.checkout(request.getPerson(), lendingObjects, messages);
+
+        switch (code) {
+            case 0:
+                return new Result(Response.Status.CREATED, messages, null, null);
+            case CheckoutService.LENDING_FAILED:
+                int[] available = new int[request.getItems().size()];
+                for (int i = 0; i < available.length; i++) {
+                    LendingRequest.Item item = request.getItems().get(i);
+                    available[i] = this.checkout.availableQuantity(item.getMaterialId(),
+                            item.getBeginDay(), item.getEndDay());
+                }
+                return new Result(Response.Status.CONFLICT, messages, request.getItems(), available);
+            case CheckoutService.NO_LENDING_OBJECTS:
+                return new Result(Response.Status.BAD_REQUEST, messages, null, null);
+            default:
+                messages.add("Der Ausleihvorgang war nicht erfolgreich (Fehlercode " + code + ").");
+                return new Result(Response.Status.INTERNAL_SERVER_ERROR, messages, null, null);
+        }
+    }
+
+    private static Response toResponse(Result result) {
+        if (result.getStatus() == Response.Status.CREATED) {
+            return Response.status(Response.Status.CREATED)
+                    .cacheControl(RestApplication.noStore())
+                    .entity(RestApplication.json(g -> {
+                        g.writeStartObject().writeStartArray("messages");
+                        for (String message : result.getMessages()) {
+                            g.write(message);
+                        }
+                        g.writeEnd().writeEnd();
+                    }))
+                    .build();
+        }
+        if (result.getAvailable() == null) {
+            return RestApplication.error(result.getStatus(), result.getMessages());
+        }
+
+        return Response.status(result.getStatus())
+                .cacheControl(RestApplication.noStore())
+                .entity(RestApplication.json(g -> {
+                    g.writeStartObject().writeStartArray("errors");
+                    for (String error : result.getMessages()) {
+                        g.write(error);
+                    }
+                    g.writeEnd().writeStartArray("available");
+                    for (int i = 0; i < result.getAvailable().length; i++) {
+                        LendingRequest.Item item = result.getItems().get(i);
+                        g.writeStartObject()
+                                .write("materialId", item.getMaterialId())
+                                .write("from", EpochDays.toLocalDate(item.getBeginDay()).toString())
+                                .write("to", EpochDays.toLocalDate(item.getEndDay()).toString())
+                                .write("requested", item.getQuantity())
+                                .write("available", result.getAvailable()[i])
+                                .writeEnd();
+                    }
+                    g.writeEnd().writeEnd();
+                }))
+                .build();
+    }
+
+    /**
+     * Ergebnis von {@link #checkout(LendingRequest)}.
+     */
+    static final class Result {
+
+        private final Response.Status status;
+        private final List<String> messages;
+        private final List<LendingRequest.Item> items;
+        private final int[] available;
+
+        Result(Response.Status status, List<String> messages, List<LendingRequest.Item> items, int[] available) {
+            this.status = status;
+            this.messages = messages;
+            this.items = items;
+            this.available = available;
+        }
+
+        /**
+         * Gibt den HTTP-Status zurueck.
+         *
+         * @return Status
+         */
+        Response.Status getStatus() {
+            return status;
+        }
+
+        /**
+         * Gibt die Meldungen des Ausleihvorgangs bzw. die Fehler zurueck.
+         *
+         * @return Meldungen
+         */
+        List<String> getMessages() {
+            return messages;
+        }
+
+        /**
+         * Gibt die Positionen der Anfrage zurueck, wenn der Bestand nicht
+         * ausgereicht hat.
+         *
+         * @return Positionen oder null
+         */
+        List<LendingRequest.Item> getItems() {
+            return items;
+        }
+
+        /**
+         * Gibt die im Zeitraum jeder Position verfuegbare Menge zurueck, wenn
+         * der Bestand nicht ausgereicht hat. Andere Positionen derselben
+         * Anfrage sind dabei nicht abgezogen.
+         *
+         * @return verfuegbare Menge pro Position oder null
+         */
+        int[] getAvailable() {
+            return available;
+        }
+    }
+}
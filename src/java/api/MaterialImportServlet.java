@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package api;
+
+import controller.MaterialImporter;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.inject.Inject;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.MultipartConfig;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.Part;
+
+/**
+ * Importiert Materialien aus einer CSV-Datei (Name;Beschreibung;Menge, UTF-8)
+ * ueber den {@link MaterialImporter}. Die Datei wird beim Lesen verarbeitet
+ * und nicht vollstaendig in den Speicher geladen.
+ *
+ * Die Datei kann per POST auf /import/materials uebergeben werden:
+ * <ul>
+ * <li>als Formular-Upload im Feld "file",</li>
+ * <li>ueber den Parameter "path" als Datei auf dem Server; sie muss im
+ * Verzeichnis der Systemproperty {@value #IMPORT_DIRECTORY_PROPERTY}
+ * liegen, ohne diese Property ist der Import vom Server abgeschaltet,</li>
+ * <li>oder direkt als Inhalt der Anfrage.</li>
+ * </ul>
+ */
+@WebServlet(urlPatterns = "/import/materials")
+@MultipartConfig
+public class MaterialImportServlet extends HttpServlet {
+
+    /**
+     * Systemproperty fuer das Verzeichnis, aus dem Dateien auf dem Server
+     * importiert werden duerfen.
+     */
+    public static final String IMPORT_DIRECTORY_PROPERTY = "materialImport.directory";
+
+    private static final Logger LOG = Logger.getLogger(MaterialImportServlet.class.getName());
+
+    /**
+     * Importer fuer die Materialien.
+     */
+    @Inject
+    private MaterialImporter importer;
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        String contentType = request.getContentType();
+        String path = request.getParameter("path");
+        Reader in;
+
+        if (contentType != null && contentType.startsWith("multipart/")) {
+            Part part = request.getPart("file");
+            if (part == null) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Keine Datei im Feld file");
+                return;
+            }
+            in = new InputStreamReader(part.getInputStream(), StandardCharsets.UTF_8);
+        } else if (path != null) {
+            Path file = resolve(path);
+            if (file == null) {
+                LOG.log(Level.WARNING, "Import aus {0} abgelehnt", path);
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, "Import aus diesem Pfad ist nicht erlaubt");
+                return;
+            }
+            in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        } else {
+            in = new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8);
+        }
+
+        MaterialImporter.Result result;
+        try (BufferedReader reader = new BufferedReader(in)) {
+            result = this.importer.importMaterials(new CsvReader(reader));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        response.setContentType("text/plain");
+        response.setCharacterEncoding("UTF-8");
+
+        PrintWriter out = response.getWriter();
+        out.println("Neu angelegt: " + result.getCreated());
+        out.println("Menge erhoeht: " + result.getUpdated());
+        out.println("Uebersprungen: " + result.getSkipped());
+        for (String error : result.getErrors()) {
+            out.println(error);
+        }
+    }
+
+    private static Path resolve(String path) throws IOException {
+        String directory = System.getProperty(IMPORT_DIRECTORY_PROPERTY);
+
+        if (directory == null) {
+            return null;
+        }
+
+        Path root = Paths.get(directory).toRealPath();
+        Path file = root.resolve(path).normalize();
+        if (!Files.isRegularFile(file) || !file.toRealPath().startsWith(root)) {
+            return null;
+        }
+        return file;
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package api;
+
+import controller.AvailabilityCalculator;
+import controller.LendingController;
+import entities.EpochDays;
+import entities.Material;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.List;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.json.stream.JsonGenerator;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import model.MaterialCatalog;
+
+/**
+ * Materialkatalog und Bestandsabfrage fuer externe Ausleihterminals.
+ * <ul>
+ * <li>GET /api/materials: alle Materialien,</li>
+ * <li>GET /api/materials/{id}: ein Material,</li>
+ * <li>GET /api/materials/{id}/availability?from=JJJJ-MM-TT&amp;to=JJJJ-MM-TT:
+ * ausgeliehene und verfuegbare Menge im Zeitraum, mit days=true zusaetzlich
+ * die verfuegbare Menge pro Tag.</li>
+ * </ul>
+ *
+ * Katalogantworten tragen die Kennung des {@link MaterialCatalog} als ETag.
+ * Sie wird aus dem Stand der Materialien in der Datenbank gebildet und ist auf
+ * allen Servern mit demselben Stand gleich. Stimmt sie mit If-None-Match
+ * ueberein, wird nur 304 gesendet; der Katalog muss dafuer nicht durchlaufen
+ * werden.
+ */
+@Path("materials")
+@Produces(MediaType.APPLICATION_JSON)
+@RequestScoped
+public class MaterialResource {
+
+    /**
+     * Maximale Anzahl an Tagen fuer die Ausgabe pro Tag.
+     */
+    public static final int MAX_DAYS = 366;
+
+    /**
+     * Katalog aller Materialien.
+     */
+    @Inject
+    private MaterialCatalog catalog;
+    /**
+     * Bestandsabfrage wie beim Ausleihen ueber die Oberflaeche.
+     */
+    @Inject
+    private LendingController lendingControl;
+    /**
+     * Verfuegbarkeit pro Tag.
+     */
+    @Inject
+    private AvailabilityCalculator availability;
+
+    /**
+     * Gibt alle Materialien zurueck.
+     *
+     * @param ifNoneMatch Inhalt des Headers If-None-Match
+     * @return Materialien oder 304
+     */
+    @GET
+    public Response getMaterials(@HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        // Kennung vor dem Inhalt lesen: wird dazwischen neu geladen, ist der
+        // Inhalt neuer als der ETag und der naechste Abruf liefert ihn erneut.
+        String stamp = this.catalogTag();
+        EntityTag tag = new EntityTag(stamp);
+
+        if (matches(ifNoneMatch, stamp)) {
+            return Response.notModified(tag).cacheControl(revalidate()).build();
+        }
+
+        List<Material> materials = this.catalog.getMaterials();
+
+        return Response.ok(RestApplication.json(g -> {
+            g.writeStartArray();
+            for (Material m : materials) {
+                writeMaterial(g.writeStartObject(), m).writeEnd();
+            }
+            g.writeEnd();
+        })).tag(tag).cacheControl(revalidate()).build();
+    }
+
+    /**
+     * Gibt ein Material zurueck.
+     *
+     * @param id Id des Materials
+     * @param ifNoneMatch Inhalt des Headers If-None-Match
+     * @return Material, 304 oder 404
+     */
+    @GET
+    @Path("{id}")
+    public Response getMaterial(@PathParam("id") long id,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        String stamp = this.catalogTag();
+        EntityTag tag = new EntityTag(stamp);
+
+        if (matches(ifNoneMatch, stamp)) {
+            return Response.notModified(tag).cacheControl(revalidate()).build();
+        }
+
+        Material material = this.catalog.findMaterial(id);
+
+        if (material == null) {
+            return RestApplication.error(Response.Status.NOT_FOUND, "Material " + id + " existiert nicht");
+        }
+
+        return Response.ok(RestApplication.json(g -> writeMaterial(g.writeStartObject(), material).writeEnd()))
+                .tag(tag).cacheControl(revalidate()).build();
+    }
+
+    /**
+     * Gibt die im Zeitraum [from, to] ausgeliehene und verfuegbare Menge des
+     * Materials zurueck. Ohne from und to wird der heutige Tag abgefragt.
+     *
+     * @param id Id des Materials
+     * @param from Starttag (JJJJ-MM-TT)
+     * @param to Endtag (JJJJ-MM-TT)
+     * @param days true, wenn die verfuegbare Menge pro Tag ausgegeben werden
+     * soll
+     * @return Bestand, 400 oder 404
+     */
+    @GET
+    @Path("{id}/availability")
+    public Response getAvailability(@PathParam("id") long id, @QueryParam("from") String from,
+            @QueryParam("to") String to, @QueryParam("days") boolean days) {
+        Material material = this.catalog.findMaterial(id);
+
+        if (material == null) {
+            return RestApplication.error(Response.Status.NOT_FOUND, "Material " + id + " existiert nicht");
+        }
+
+        int beginDay;
+        int endDay;
+        try {
+            beginDay = parseDay(from, EpochDays.of(LocalDate.now()));
+            endDay = parseDay(to, beginDay);
+        } catch (IllegalArgumentException e) {
+            return RestApplication.error(Response.Status.BAD_REQUEST, e.getMessage());
+        }
+
+        if (endDay < beginDay) {
+            return RestApplication.error(Response.Status.BAD_REQUEST, "Das Enddatum liegt vor dem Startdatum");
+        }
+        if (days && endDay - beginDay >= MAX_DAYS) {
+            return RestApplication.error(Response.Status.BAD_REQUEST,
+                    "Die Ausgabe pro Tag ist auf " + MAX_DAYS + " Tage begrenzt");
+        }
+
+        int lent = this.lendingControl.lentObjects(id, beginDay, endDay);
+        int[] perDay = days ? this.availability.availablePerDay(material, beginDay, endDay) : null;
+
+        return Response.ok(RestApplication.json(g -> {
+            g.writeStartObject()
+                    .write("materialId", id)
+                    .write("from", EpochDays.toLocalDate(beginDay).toString())
+                    .write("to", EpochDays.toLocalDate(endDay).toString())
+                    .write("quantity", material.getQuantity())
+                    .write("lent", lent)
+                    .write("available", Math.max(material.getQuantity() - lent, 0));
+            if (perDay != null) {
+                g.writeStartArray("days");
+                for (int available : perDay) {
+                    g.write(available);
+                }
+                g.writeEnd();
+            }
+            g.writeEnd();
+        })).cacheControl(RestApplication.noStore()).build();
+    }
+
+    /**
+     * Wandelt ein Datum im Format JJJJ-MM-TT in einen Epochentag um. Das
+     * Datum muss buchbar sein ({@link EpochDays#isBookable(int)}).
+     *
+     * @param date Datum oder null
+     * @param defaultDay Epochentag, wenn kein Datum uebergeben wurde
+     * @return Epochentag
+     * @throws IllegalArgumentException bei ungueltigem Datum
+     */
+    static int parseDay(String date, int defaultDay) {
+        if (date == null || date.isEmpty()) {
+            return defaultDay;
+        }
+
+        try {
+            int day = EpochDays.of(LocalDate.parse(date));
+            if (EpochDays.isBookable(day)) {
+                return day;
+            }
+        } catch (DateTimeException | ArithmeticException e) {
+            // ungueltiges Datum, siehe unten
+        }
+
+        throw new IllegalArgumentException("Datum bitte im Format JJJJ-MM-TT zwischen 1970-01-01 und "
+                + EpochDays.toLocalDate(EpochDays.lastBookableDay()) + " angeben");
+    }
+
+    /**
+     * Gibt den Wert des ETags fuer den aktuellen Stand des Katalogs zurueck.
+     *
+     * @return Wert des ETags ohne Anfuehrungszeichen
+     */
+    String catalogTag() {
+        return this.catalog.getStamp();
+    }
+
+    /**
+     * Prueft, ob der Header If-None-Match den ETag enthaelt. Verglichen wird
+     * wie in RFC 7232 ohne Beachtung von W/.
+     *
+     * @param ifNoneMatch Inhalt des Headers oder null
+     * @param tag Wert des ETags ohne Anfuehrungszeichen
+     * @return true, wenn 304 gesendet werden kann
+     */
+    static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*")) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+                    && value.substring(1, value.length() - 1).equals(tag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static CacheControl revalidate() {
+        CacheControl cc = new CacheControl();
+        cc.setNoCache(true);
+        cc.setNoTransform(false);
+
+        return cc;
+    }
+
+    private static JsonGenerator writeMaterial(JsonGenerator g, Material m) {
+        g.write("id", m.getId())
+                .write("name", m.getName())
+                .write("quantity", m.getQuantity());
+        if (m.getDescription() != null) {
+            g.write("description", m.getDescription());
+        }
+
+        return g;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package api;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * REST-Schnittstelle fuer externe Ausleihterminals unter /api. Die Ressourcen
+ * ({@link MaterialResource}, {@link LendingResource}) halten keinen
+ * Sitzungszustand. Laufen mehrere Server mit derselben Datenbank, gilt:
+ * <ul>
+ * <li>Der Katalog gleicht sich spaetestens nach
+ * {@link model.MaterialCatalog#CHECK_MILLIS_PROPERTY} mit der Datenbank ab,
+ * der ETag ist auf allen Servern mit demselben Stand gleich.</li>
+ * <li>Ausleihen sperren die Materialzeilen in der Datenbank und koennen
+ * denselben Bestand daher auch auf verschiedenen Servern nicht doppelt
+ * vergeben.</li>
+ * <li>Der Speicherindex
+ * ({@link controller.LendingController#IN_MEMORY_AVAILABILITY_PROPERTY})
+ * kennt nur die Ausleihen des eigenen Servers und darf dann nicht verwendet
+ * werden.</li>
+ * </ul>
+ *
+ * Antworten werden mit einem gemeinsamen {@link JsonGeneratorFactory} ohne
+ * Einrueckung direkt in den Ausgabestrom geschrieben.
+ */
+@ApplicationPath("api")
+public class RestApplication extends Application {
+
+    /**
+     * Gemeinsame Factory fuer kompakte JSON-Ausgaben, damit der JSON-Provider
+     * nicht bei jeder Anfrage neu gesucht wird.
+     */
+    private static final JsonGeneratorFactory GENERATORS = Json.createGeneratorFactory(Collections.<String, Object>emptyMap());
+
+    /**
+     * Erzeugt eine Antwort, deren Inhalt beim Senden ueber einen
+     * JsonGenerator geschrieben wird.
+     *
+     * @param writer schreibt den Inhalt
+     * @return Antwort-Inhalt
+     */
+    static StreamingOutput json(Consumer<JsonGenerator> writer) {
+        return out -> {
+            try (JsonGenerator generator = GENERATORS.createGenerator(out)) {
+                writer.accept(generator);
+            }
+        };
+    }
+
+    /**
+     * Erzeugt eine Fehlerantwort mit den uebergebenen Meldungen
+     * ({"errors":[...]}).
+     *
+     * @param status HTTP-Status
+     * @param errors Fehlermeldungen
+     * @return Antwort
+     */
+    static Response error(Response.Status status, List<String> errors) {
+        return Response.status(status)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .cacheControl(noStore())
+                .entity(json(g -> {
+                    g.writeStartObject().writeStartArray("errors");
+                    for (String error : errors) {
+                        g.write(error);
+                    }
+                    g.writeEnd().writeEnd();
+                }))
+                .build();
+    }
+
+    /**
+     * Erzeugt eine Fehlerantwort mit einer Meldung.
+     *
+     * @param status HTTP-Status
+     * @param error Fehlermeldung
+     * @return Antwort
+     */
+    static Response error(Response.Status status, String error) {
+        return error(status, Collections.singletonList(error));
+    }
+
+    /**
+     * Cache-Control fuer Antworten, die nicht zwischengespeichert werden
+     * duerfen (Bestand, Ausleihen, Fehler).
+     *
+     * @return Cache-Control
+     */
+    static CacheControl noStore() {
+        CacheControl cc = new CacheControl();
+        cc.setNoStore(true);
+        cc.setNoTransform(false);
+
+        return cc;
+    }
+}
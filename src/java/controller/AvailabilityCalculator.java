@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package controller;
+
+import entities.EpochDays;
+import entities.Material;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import model.LendingObjectModel;
+
+/**
+ * Der AvailabilityCalculator berechnet die verfuegbare Menge eines Materials
+ * in einem Zeitraum. Abgezogen wird die hoechste Anzahl gleichzeitig
+ * ausgeliehener Gegenstaende, nicht die Summe aller Ausleihen im Zeitraum.
+ *
+ * Wie bei {@link LendingController#lentObjects(long, int, int)} kommen die
+ * Ausleihen aus der Datenbank, nur mit
+ * {@link LendingController#IN_MEMORY_AVAILABILITY_PROPERTY} aus dem
+ * serverlokalen {@link AvailabilityIndex}.
+ */
+@Dependent
+public class AvailabilityCalculator implements Serializable {
+
+    /**
+     * Systemproperty fuer die Anzahl der Tage ab heute, fuer die der
+     * Buchungskalender die Verfuegbarkeit anzeigt.
+     */
+    public static final String CALENDAR_DAYS_PROPERTY = "availability.calendarDays";
+    /**
+     * Standardwert fuer {@link #CALENDAR_DAYS_PROPERTY}.
+     */
+    public static final int DEFAULT_CALENDAR_DAYS = 365;
+
+    /**
+     * Index der Ausleihzeitraeume.
+     */
+    @Inject
+    private AvailabilityIndex availability;
+    /**
+     * LendingObjectModel fuer die Ausleihen aus der Datenbank.
+     */
+    @Inject
+    private LendingObjectModel lendingObject;
+
+    /**
+     * Erstellt einen neuen AvailabilityCalculator.
+     */
+    public AvailabilityCalculator() {
+        this.availability = new AvailabilityIndex();
+        this.lendingObject = new LendingObjectModel();
+    }
+
+    /**
+     * Gibt die Anzahl der Gegenstaende des Materials zurueck, die im Zeitraum
+     * [begin, end] durchgehend verfuegbar sind.
+     *
+     * @param material Material
+     * @param begin Startdatum
+     * @param end Enddatum
+     * @return verfuegbare Anzahl, mindestens 0
+     */
+    public int availableQuantity(Material material, Date begin, Date end) {
+        return this.availableQuantity(material, AvailabilityIndex.toEpochDay(begin), AvailabilityIndex.toEpochDay(end));
+    }
+
+    /**
+     * Gibt die Anzahl der Gegenstaende des Materials zurueck, die im Zeitraum
+     * [beginDay, endDay] (Epochentage) durchgehend verfuegbar sind.
+     *
+     * @param material Material
+     * @param beginDay Starttag
+     * @param endDay Endtag
+     * @return verfuegbare Anzahl, mindestens 0
+     */
+    public int availableQuantity(Material material, int beginDay, int endDay) {
+        int peak = LendingController.isInMemoryAvailability()
+                ? this.availability.peakBookedQuantity(material.getId(), beginDay, endDay)
+                : max(this.bookedPerDay(material.getId(), beginDay, endDay));
+
+        return Math.max(material.getQuantity() - peak, 0);
+    }
+
+    /**
+     * Gibt fuer alle uebergebenen Materialien die Anzahl der im Zeitraum
+     * [begin, end] durchgehend verfuegbaren Gegenstaende zurueck. Der Index
+     * wird dafuer nur einmal durchlaufen, die Datenbank nur einmal
+     * abgefragt.
+     *
+     * @param materials Materialien
+     * @param begin Startdatum
+     * @param end Enddatum
+     * @return verfuegbare Anzahl pro Material-Id
+     */
+    public Map<Long, Integer> availableQuantities(List<Material> materials, Date begin, Date end) {
+        Map<Long, Integer> peaks;
+        if (LendingController.isInMemoryAvailability()) {
+            peaks = this.availability.peakBookedQuantities(begin, end);
+        } else {
+            List<Long> ids = new ArrayList<>();
+            for (Material m : materials) {
+                ids.add(m.getId());
+            }
+            peaks = new HashMap<>();
+            for (Map.Entry<Long, int[]> entry : this.lendingObject.getLentQuantitiesPerDay(ids,
+                    AvailabilityIndex.toEpochDay(begin), AvailabilityIndex.toEpochDay(end)).entrySet()) {
+                peaks.put(entry.getKey(), max(entry.getValue()));
+            }
+        }
+        Map<Long, Integer> result = new HashMap<>();
+
+        for (Material m : materials) {
+            int peak = peaks.getOrDefault(m.getId(), 0);
+            result.put(m.getId(), Math.max(m.getQuantity() - peak, 0));
+        }
+
+        return result;
+    }
+
+    /**
+     * Gibt die verfuegbare Anzahl des Materials fuer jeden Tag im Zeitraum
+     * [beginDay, endDay] (Epochentage) zurueck.
+     *
+     * @param material Material
+     * @param beginDay Starttag
+     * @param endDay Endtag
+     * @return verfuegbare Anzahl pro Tag, mindestens 0, Index 0 ist beginDay
+     */
+    public int[] availablePerDay(Material material, int beginDay, int endDay) {
+        int[] result = this.bookedPerDay(material.getId(), beginDay, endDay);
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = Math.max(material.getQuantity() - result[i], 0);
+        }
+
+        return result;
+    }
+
+    /**
+     * Gibt die Tage im Buchungskalender ({@link #CALENDAR_DAYS_PROPERTY} Tage
+     * ab heute) zurueck, an denen weniger als quantity Gegenstaende des
+     * Materials verfuegbar sind.
+     *
+     * @param material Material
+     * @param quantity benoetigte Anzahl
+     * @return nicht verfuegbare Tage, aufsteigend
+     */
+    public List<LocalDate> unavailableDays(Material material, int quantity) {
+        int today = EpochDays.of(LocalDate.now());
+        int days = Integer.getInteger(CALENDAR_DAYS_PROPERTY, DEFAULT_CALENDAR_DAYS);
+        int[] available = this.availablePerDay(material, today, today + days - 1);
+        List<LocalDate> result = new ArrayList<>();
+
+        for (int i = 0; i < available.length; i++) {
+            if (available[i] < quantity) {
+                result.add(EpochDays.toLocalDate(today + i));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gibt die gebuchte Menge des Materials pro Tag im Zeitraum [beginDay,
+     * endDay] zurueck, aus dem Index oder der Datenbank.
+     */
+    private int[] bookedPerDay(long materialId, int beginDay, int endDay) {
+        if (LendingController.isInMemoryAvailability()) {
+            return this.availability.bookedPerDay(materialId, beginDay, endDay);
+        }
+
+        int[] result = this.lendingObject.getLentQuantitiesPerDay(Collections.singleton(materialId),
+                beginDay, endDay).get(materialId);
+        return result != null ? result : new int[Math.max(endDay - beginDay + 1, 0)];
+    }
+
+    private static int max(int[] values) {
+        int result = 0;
+        for (int value : values) {
+            result = Math.max(result, value);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,497 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package controller;
+
+import database.LendingArchiver;
+import database.LendingObjectChange;
+import database.Persistierer;
+import entities.EpochDays;
+import entities.LendingObject;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+
+/**
+ * Der AvailabilityIndex haelt pro Material alle Ausleihzeitraeume als
+ * sortierte Start- und Endtage im Speicher. Damit laesst sich die Anzahl der
+ * in einem Zeitraum gebuchten Gegenstaende in O(log n) bestimmen, ohne alle
+ * Ausleihobjekte aus der Datenbank zu laden.
+ *
+ * Der Index wird beim Start aus der Datenbank aufgebaut und ueber
+ * {@link LendingObjectChange}-Events nach jedem erfolgreichen Commit
+ * aktualisiert.
+ *
+ * Die Belegung pro Tag wird nur fuer ein Fenster von der Aufbewahrungsfrist
+ * ({@link LendingArchiver#RETENTION_DAYS_PROPERTY}) vor bis zum Ende des
+ * Buchungskalenders ({@link AvailabilityCalculator#CALENDAR_DAYS_PROPERTY})
+ * nach dem Tag des letzten Neuaufbaus vorgehalten.
+ */
+@ApplicationScoped
+public class AvailabilityIndex implements Serializable {
+
+    /**
+     * Persistierer für den Zugriff auf die Datenbank.
+     */
+    @Inject
+    private Persistierer db;
+    /**
+     * Buchungen pro Material-Id.
+     */
+    private final Map<Long, MaterialBookings> bookings;
+    /**
+     * Vorgemerkte Ausleihzeitraeume, die schon im Index stehen und deren
+     * Commit noch aussteht, mit ihrer Anzahl.
+     */
+    private final Map<Reserved, Integer> reserved;
+    /**
+     * Lock für gleichzeitige Lese- und Schreibzugriffe.
+     */
+    private final ReentrantReadWriteLock lock;
+    /**
+     * Erster Tag des Fensters fuer die Belegung pro Tag.
+     */
+    private int calendarFirstDay;
+    /**
+     * Letzter Tag des Fensters fuer die Belegung pro Tag.
+     */
+    private int calendarLastDay;
+
+    /**
+     * Erstellt einen leeren AvailabilityIndex.
+     */
+    public AvailabilityIndex() {
+        this.db = new Persistierer();
+        this.bookings = new HashMap<>();
+        this.reserved = new HashMap<>();
+        this.lock = new ReentrantReadWriteLock();
+        this.calendarFirstDay = calendarFirstDay();
+        this.calendarLastDay = calendarLastDay();
+    }
+
+    /**
+     * Baut den Index beim Start der Anwendung auf.
+     *
+     * @param event Initialisierungs-Event
+     */
+    public void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        this.rebuild();
+    }
+
+    /**
+     * Baut den Index vollstaendig aus der Datenbank neu auf.
+     */
+    public void rebuild() {
+        this.rebuild(this.db.findAllLendingObjects());
+    }
+
+    /**
+     * Baut den Index aus den uebergebenen Ausleihobjekten neu auf.
+     *
+     * @param lendingObjects Ausleihobjekte
+     */
+    public void rebuild(List<LendingObject> lendingObjects) {
+        Map<Long, int[][]> columns = new HashMap<>();
+        Map<Long, Integer> sizes = new HashMap<>();
+
+        for (LendingObject lo : lendingObjects) {
+            if (lo.getType() == null || !lo.hasPeriod()) {
+                continue;
+            }
+            long materialId = lo.getType().getId();
+            int size = sizes.getOrDefault(materialId, 0);
+            int[][] column = columns.get(materialId);
+            if (column == null) {
+                column = new int[3][16];
+                columns.put(materialId, column);
+            } else if (size == column[0].length) {
+                for (int i = 0; i < column.length; i++) {
+                    column[i] = Arrays.copyOf(column[i], size * 2);
+                }
+            }
+            column[0][size] = lo.getStartDay();
+            column[1][size] = lo.getEndDay();
+            column[2][size] = lo.getLendingQuantity();
+            sizes.put(materialId, size + 1);
+        }
+
+        int firstDay = calendarFirstDay();
+        int lastDay = calendarLastDay();
+        Map<Long, MaterialBookings> rebuilt = new HashMap<>();
+        for (Map.Entry<Long, int[][]> entry : columns.entrySet()) {
+            int[][] column = entry.getValue();
+            rebuilt.put(entry.getKey(), new MaterialBookings(column[0], column[1], column[2],
+                    sizes.get(entry.getKey()), firstDay, lastDay));
+        }
+
+        this.lock.writeLock().lock();
+        try {
+            this.calendarFirstDay = firstDay;
+            this.calendarLastDay = lastDay;
+            this.bookings.clear();
+            this.bookings.putAll(rebuilt);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Uebernimmt eine Aenderung an den Ausleihobjekten, sobald die Transaktion
+     * erfolgreich abgeschlossen wurde.
+     *
+     * @param change Aenderung
+     */
+    public void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) LendingObjectChange change) {
+        if (change.getStartDay() == LendingObject.NO_DAY || change.getEndDay() == LendingObject.NO_DAY) {
+            return;
+        }
+        if (change.getKind() == LendingObjectChange.Kind.ADDED) {
+            if (this.confirmReservation(change.getMaterialId(), change.getStartDay(),
+                    change.getEndDay(), change.getLendingQuantity())) {
+                return;
+            }
+            this.add(change.getMaterialId(), change.getStartDay(), change.getEndDay(),
+                    change.getLendingQuantity());
+        } else {
+            this.remove(change.getMaterialId(), change.getStartDay(), change.getEndDay(),
+                    change.getLendingQuantity());
+        }
+    }
+
+    /**
+     * Fuegt einen Ausleihzeitraum hinzu.
+     *
+     * @param materialId Material ID
+     * @param begin Startdatum
+     * @param end Enddatum
+     * @param quantity Menge
+     */
+    public void add(long materialId, Date begin, Date end, int quantity) {
+        this.add(materialId, toEpochDay(begin), toEpochDay(end), quantity);
+    }
+
+    /**
+     * Fuegt einen Ausleihzeitraum hinzu.
+     *
+     * @param materialId Material ID
+     * @param beginDay Starttag als Epochentag
+     * @param endDay Endtag als Epochentag
+     * @param quantity Menge
+     */
+    public void add(long materialId, int beginDay, int endDay, int quantity) {
+        this.lock.writeLock().lock();
+        try {
+            MaterialBookings tmp = this.bookings.get(materialId);
+            if (tmp == null) {
+                tmp = new MaterialBookings(this.calendarFirstDay, this.calendarLastDay);
+                this.bookings.put(materialId, tmp);
+            }
+            tmp.add(beginDay, endDay, quantity);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Entfernt einen Ausleihzeitraum.
+     *
+     * @param materialId Material ID
+     * @param begin Startdatum
+     * @param end Enddatum
+     * @param quantity Menge
+     */
+    public void remove(long materialId, Date begin, Date end, int quantity) {
+        this.remove(materialId, toEpochDay(begin), toEpochDay(end), quantity);
+    }
+
+    /**
+     * Entfernt einen Ausleihzeitraum.
+     *
+     * @param materialId Material ID
+     * @param beginDay Starttag als Epochentag
+     * @param endDay Endtag als Epochentag
+     * @param quantity Menge
+     */
+    public void remove(long materialId, int beginDay, int endDay, int quantity) {
+        this.lock.writeLock().lock();
+        try {
+            MaterialBookings tmp = this.bookings.get(materialId);
+            if (tmp != null) {
+                tmp.remove(beginDay, endDay, quantity);
+                if (tmp.isEmpty()) {
+                    this.bookings.remove(materialId);
+                }
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Traegt einen Ausleihzeitraum ein, bevor die Transaktion abgeschlossen
+     * ist. Das spaetere ADDED-Event fuer denselben Zeitraum wird dann nicht
+     * noch einmal gezaehlt. Wird die Transaktion zurueckgerollt, muss
+     * {@link #cancelReservation(long, int, int, int)} aufgerufen werden.
+     *
+     * @param materialId Material ID
+     * @param beginDay Starttag als Epochentag
+     * @param endDay Endtag als Epochentag
+     * @param quantity Menge
+     */
+    public void reserve(long materialId, int beginDay, int endDay, int quantity) {
+        Reserved key = new Reserved(materialId, beginDay, endDay, quantity);
+
+        this.lock.writeLock().lock();
+        try {
+            this.add(materialId, beginDay, endDay, quantity);
+            this.reserved.merge(key, 1, Integer::sum);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Nimmt einen mit {@link #reserve(long, int, int, int)} eingetragenen
+     * Ausleihzeitraum wieder heraus.
+     *
+     * @param materialId Material ID
+     * @param beginDay Starttag als Epochentag
+     * @param endDay Endtag als Epochentag
+     * @param quantity Menge
+     */
+    public void cancelReservation(long materialId, int beginDay, int endDay, int quantity) {
+        this.lock.writeLock().lock();
+        try {
+            if (this.confirmReservation(materialId, beginDay, endDay, quantity)) {
+                this.remove(materialId, beginDay, endDay, quantity);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Streicht eine Vormerkung, ohne den Index zu aendern.
+     *
+     * @return true, wenn der Zeitraum vorgemerkt war
+     */
+    private boolean confirmReservation(long materialId, int beginDay, int endDay, int quantity) {
+        Reserved key = new Reserved(materialId, beginDay, endDay, quantity);
+
+        this.lock.writeLock().lock();
+        try {
+            Integer count = this.reserved.get(key);
+            if (count == null) {
+                return false;
+            }
+            if (count == 1) {
+                this.reserved.remove(key);
+            } else {
+                this.reserved.put(key, count - 1);
+            }
+            return true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gibt die Anzahl der Gegenstaende des Materials zurueck, die in dem
+     * Zeitraum [begin, end] (jeweils einschliesslich) ausgeliehen sind.
+     *
+     * @param materialId Material ID
+     * @param begin Startdatum
+     * @param end Enddatum
+     * @return Anzahl der ausgeliehenen Gegenstaende
+     */
+    public int bookedQuantity(long materialId, Date begin, Date end) {
+        return this.bookedQuantity(materialId, toEpochDay(begin), toEpochDay(end));
+    }
+
+    /**
+     * Gibt die Anzahl der Gegenstaende des Materials zurueck, die in dem
+     * Zeitraum [beginDay, endDay] (Epochentage, jeweils einschliesslich)
+     * ausgeliehen sind.
+     *
+     * @param materialId Material ID
+     * @param beginDay Starttag
+     * @param endDay Endtag
+     * @return Anzahl der ausgeliehenen Gegenstaende
+     */
+    public int bookedQuantity(long materialId, int beginDay, int endDay) {
+        this.lock.readLock().lock();
+        try {
+            MaterialBookings tmp = this.bookings.get(materialId);
+            return tmp == null ? 0 : (int) tmp.booked(beginDay, endDay);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gibt die hoechste Anzahl gleichzeitig ausgeliehener Gegenstaende des
+     * Materials im Zeitraum [begin, end] zurueck. Anders als
+     * {@link #bookedQuantity(long, Date, Date)} werden Ausleihen, die sich
+     * innerhalb des Zeitraums nicht ueberschneiden, nicht addiert.
+     *
+     * @param materialId Material ID
+     * @param begin Startdatum
+     * @param end Enddatum
+     * @return maximale Anzahl gleichzeitig ausgeliehener Gegenstaende
+     */
+    public int peakBookedQuantity(long materialId, Date begin, Date end) {
+        return this.peakBookedQuantity(materialId, toEpochDay(begin), toEpochDay(end));
+    }
+
+    /**
+     * Gibt die hoechste Anzahl gleichzeitig ausgeliehener Gegenstaende des
+     * Materials im Zeitraum [beginDay, endDay] (Epochentage) zurueck.
+     *
+     * @param materialId Material ID
+     * @param beginDay Starttag
+     * @param endDay Endtag
+     * @return maximale Anzahl gleichzeitig ausgeliehener Gegenstaende
+     */
+    public int peakBookedQuantity(long materialId, int beginDay, int endDay) {
+        this.lock.readLock().lock();
+        try {
+            MaterialBookings tmp = this.bookings.get(materialId);
+            return tmp == null ? 0 : (int) tmp.peak(beginDay, endDay);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gibt die Anzahl der ausgeliehenen Gegenstaende des Materials fuer jeden
+     * Tag im Zeitraum [beginDay, endDay] (Epochentage) zurueck, in
+     * O(Anzahl der Tage).
+     *
+     * @param materialId Material ID
+     * @param beginDay Starttag
+     * @param endDay Endtag
+     * @return gebuchte Menge pro Tag, Index 0 ist beginDay
+     */
+    public int[] bookedPerDay(long materialId, int beginDay, int endDay) {
+        int[] result = new int[Math.max(endDay - beginDay + 1, 0)];
+
+        this.lock.readLock().lock();
+        try {
+            MaterialBookings tmp = this.bookings.get(materialId);
+            if (tmp != null) {
+                tmp.bookedPerDay(beginDay, result);
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        return result;
+    }
+
+    /**
+     * Gibt fuer alle Materialien mit Ausleihen die hoechste Anzahl gleichzeitig
+     * ausgeliehener Gegenstaende im Zeitraum [begin, end] zurueck. Materialien
+     * ohne Ausleihen sind nicht enthalten.
+     *
+     * @param begin Startdatum
+     * @param end Enddatum
+     * @return maximale Anzahl pro Material-Id
+     */
+    public Map<Long, Integer> peakBookedQuantities(Date begin, Date end) {
+        int beginDay = toEpochDay(begin);
+        int endDay = toEpochDay(end);
+        Map<Long, Integer> result = new HashMap<>();
+
+        this.lock.readLock().lock();
+        try {
+            for (Map.Entry<Long, MaterialBookings> entry : this.bookings.entrySet()) {
+                result.put(entry.getKey(), (int) entry.getValue().peak(beginDay, endDay));
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        return result;
+    }
+
+    private static int calendarFirstDay() {
+        int retentionDays = Integer.getInteger(LendingArchiver.RETENTION_DAYS_PROPERTY,
+                LendingArchiver.DEFAULT_RETENTION_DAYS);
+        return EpochDays.of(LocalDate.now()) - Math.max(retentionDays, 0);
+    }
+
+    private static int calendarLastDay() {
+        int calendarDays = Integer.getInteger(AvailabilityCalculator.CALENDAR_DAYS_PROPERTY,
+                AvailabilityCalculator.DEFAULT_CALENDAR_DAYS);
+        return EpochDays.of(LocalDate.now()) + Math.max(calendarDays, 0);
+    }
+
+    /**
+     * Wandelt ein Datum in den Tag seit dem 01.01.1970 (lokale Zeitzone) um.
+     *
+     * @param date Datum
+     * @return Epochentag
+     */
+    public static int toEpochDay(Date date) {
+        return EpochDays.of(date);
+    }
+
+    /**
+     * Vorgemerkter Ausleihzeitraum. Der Index unterscheidet Ausleihobjekte nur
+     * ueber diese Werte, deshalb reichen sie zum Abgleich mit den Events aus.
+     */
+    private static final class Reserved implements Serializable {
+
+        private final long materialId;
+        private final int beginDay;
+        private final int endDay;
+        private final int quantity;
+
+        Reserved(long materialId, int beginDay, int endDay, int quantity) {
+            this.materialId = materialId;
+            this.beginDay = beginDay;
+            this.endDay = endDay;
+            this.quantity = quantity;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Reserved)) {
+                return false;
+            }
+            Reserved other = (Reserved) obj;
+            return this.materialId == other.materialId && this.beginDay == other.beginDay
+                    && this.endDay == other.endDay && this.quantity == other.quantity;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = Long.hashCode(this.materialId);
+            hash = 31 * hash + this.beginDay;
+            hash = 31 * hash + this.endDay;
+            return 31 * hash + this.quantity;
+        }
+    }
+}
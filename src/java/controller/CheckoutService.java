@@ -0,0 +1,300 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package controller;
+
+import entities.LendingObject;
+import entities.Material;
+import entities.Person;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Resource;
+import javax.ejb.SessionContext;
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+import metrics.Timed;
+import model.LendingModel;
+import model.MaterialModel;
+
+/**
+ * Der CheckoutService fuehrt einen Ausleihvorgang in einer einzigen
+ * Transaktion aus: Bestand pruefen, Person anlegen, Ausleihobjekte und
+ * Ausleihe speichern. Schlaegt ein Schritt fehl, wird die Transaktion
+ * zurueckgerollt, es bleiben keine halb angelegten Ausleihen zurueck.
+ *
+ * Die ausgeliehenen Materialien sind dabei ueber die {@link StockReservation}
+ * bis zum Ende der Transaktion gesperrt, damit zwei gleichzeitige
+ * Ausleihvorgaenge denselben Bestand nicht doppelt vergeben. Wird der Bestand
+ * aus der Datenbank berechnet, werden zusaetzlich die Materialzeilen
+ * gesperrt, das gilt dann auch fuer Ausleihvorgaenge auf anderen Servern.
+ * Geprueft wird dann gegen den Bestand der gesperrten Zeilen, nicht gegen den
+ * moeglicherweise veralteten {@link model.MaterialCatalog}.
+ */
+@Timed
+@Stateless
+public class CheckoutService {
+
+    /**
+     * Kein Ausleihobjekt ausgewaehlt.
+     */
+    public static final int NO_LENDING_OBJECTS = 9;
+    /**
+     * Person konnte nicht angelegt werden.
+     */
+    public static final int PERSON_FAILED = 3;
+    /**
+     * Mindestens ein Ausleihobjekt konnte nicht ausgeliehen werden.
+     */
+    public static final int LENDING_FAILED = 7;
+
+    /**
+     * LendingController zur Verwaltung der Ausleihen.
+     */
+    @Inject
+    private LendingController lendingControl;
+    /**
+     * PersonController zur Verwaltung der Personen.
+     */
+    @Inject
+    private PersonController personControl;
+    /**
+     * MaterialModel für den Zugriff auf die Materialien.
+     */
+    @Inject
+    private MaterialModel material;
+    /**
+     * LendingModel für Eintragungen in der Datenbank.
+     */
+    @Inject
+    private LendingModel lending;
+    /**
+     * AvailabilityCalculator zur Berechnung des verfügbaren Bestands.
+     */
+    @Inject
+    private AvailabilityCalculator availability;
+    /**
+     * StockReservation, um die Materialien waehrend des Ausleihvorgangs zu
+     * sperren.
+     */
+    @Inject
+    private StockReservation stock;
+    /**
+     * Kontext der Bean, um die Transaktion zurueckzurollen.
+     */
+    @Resource
+    private SessionContext context;
+
+    /**
+     * Erstellt einen neuen CheckoutService.
+     */
+    public CheckoutService() {
+        this.lendingControl = new LendingController();
+        this.personControl = new PersonController();
+        this.material = new MaterialModel();
+        this.lending = new LendingModel();
+        this.availability = new AvailabilityCalculator();
+        this.stock = new StockReservation();
+    }
+
+    /**
+     * Leiht die uebergebenen Objekte an die Person aus. Ist ein Material
+     * nicht in ausreichender Menge verfuegbar, wird seine Menge im
+     * Ausleihobjekt auf den verfuegbaren Bestand gesetzt und nichts
+     * gespeichert.
+     *
+     * @param personName Name der Person
+     * @param lendingObjects auszuleihende Objekte mit Material, Menge und
+     * Zeitraum
+     * @param errors ErrorListe
+     * @return ErrorCode, 0 wenn die Ausleihe gespeichert wurde
+     */
+    public int checkout(String personName, Collection<LendingObject> lendingObjects, List<String> errors) {
+
+        if (lendingObjects.isEmpty()) {
+            errors.add("Keine auszuleihenden Objekte ausgewählt. ");
+            return NO_LENDING_OBJECTS;
+        }
+
+        List<Long> materialIds = new ArrayList<>();
+        for (LendingObject tmp : lendingObjects) {
+            materialIds.add(tmp.getType().getId());
+        }
+
+        try (StockReservation.Reservation reservation = this.stock.reserve(materialIds)) {
+            Map<Long, Material> locked = LendingController.isInMemoryAvailability()
+                    ? Collections.<Long, Material>emptyMap() : this.material.lockMaterials(materialIds);
+
+            boolean lendingProcessSuccessful = true;
+            List<LendingObject> checked = new ArrayList<>();
+
+            for (LendingObject tmp : lendingObjects) {
+                if (!isObjectInStock(tmp, checked, locked)) {
+                    lendingProcessSuccessful = false;
+                    if (tmp.getLendingQuantity() == 0) {
+                        errors.add("Das Material " + tmp.getType().getName() + " konnte nicht hinzugefügt werden. "
+                                + "In dem Zeitraum gibt es keine verfügbaren Objekte");
+                    } else if (tmp.getLendingQuantity() > 0) {
+                        errors.add("Das Material " + tmp.getType().getName() + " konnte nicht hinzugefügt werden. "
+                                + "In dem Zeitraum gibt es nicht genügend verfügbare Objekte. Die Anzahl wurde angepasst.");
+                    }
+                }
+                checked.add(tmp);
+            }
+
+            if (!lendingProcessSuccessful) {
+                errors.add("Der Ausleihvorgang war nicht erfolgreich.");
+                return LENDING_FAILED;
+            }
+
+            Person tmpPerson = this.personControl.addPerson(personName);
+
+            if (tmpPerson == null) {
+                this.rollback();
+                return PERSON_FAILED;
+            }
+
+            List<LendingObject> lendingObjectsToAdd = new ArrayList<>();
+
+            for (LendingObject tmp : lendingObjects) {
+                if (tmp.getLendingQuantity() > 0) {
+                    lendingObjectsToAdd.add(new LendingObject(tmp.getType(), tmp.getLendingQuantity(),
+                            tmp.getStartDay(), tmp.getEndDay()));
+                }
+            }
+
+            // Die Ausleihe zuerst anlegen, damit die Ausleihobjekte direkt mit
+            // LENDING_ID eingefuegt werden. createLendingObjects schreibt sie
+            // anschliessend blockweise in die Datenbank.
+            this.lending.createLending(tmpPerson, lendingObjectsToAdd);
+
+            if (!this.lendingControl.createLendingObjects(lendingObjectsToAdd)) {
+                errors.add("Die Ausleihobjekte konnten nicht gespeichert werden.");
+                errors.add("Der Ausleihvorgang war nicht erfolgreich.");
+                this.rollback();
+                return LENDING_FAILED;
+            }
+
+            for (LendingObject lendingObjectToAdd : lendingObjectsToAdd) {
+                reservation.hold(lendingObjectToAdd);
+            }
+
+            errors.add("Der Ausleihvorgang war erfolgreich.");
+            return 0;
+        }
+    }
+
+    /**
+     * Gibt die Anzahl der Gegenstaende des Materials zurueck, die im Zeitraum
+     * [beginDay, endDay] (Epochentage) noch ausgeliehen werden koennen. Das
+     * ist derselbe Bestand, gegen den {@link #checkout} prueft: wird er aus
+     * der Datenbank berechnet, wird auch das Material direkt aus der
+     * Datenbank gelesen.
+     *
+     * @param materialId Id des Materials
+     * @param beginDay Starttag
+     * @param endDay Endtag
+     * @return verfuegbare Anzahl, mindestens 0; 0 wenn das Material nicht
+     * existiert
+     */
+    public int availableQuantity(long materialId, int beginDay, int endDay) {
+        Material tmp = LendingController.isInMemoryAvailability()
+                ? this.material.findMaterial(materialId) : this.material.loadMaterial(materialId);
+
+        return tmp == null ? 0 : Math.max(this.availableQuantity(tmp, beginDay, endDay), 0);
+    }
+
+    private int availableQuantity(Material material, int beginDay, int endDay) {
+        if (LendingController.isInMemoryAvailability()) {
+            return this.availability.availableQuantity(material, beginDay, endDay);
+        }
+        return material.getQuantity() - this.lendingControl.lentObjects(material.getId(), beginDay, endDay);
+    }
+
+    /**
+     * Prueft den Bestand fuer ein Ausleihobjekt. Bereits gepruefte Objekte
+     * desselben Ausleihvorgangs werden erst nach allen Pruefungen
+     * gespeichert, deshalb wird ihre hoechste gleichzeitige Menge desselben
+     * Materials im Zeitraum ({@link #cartPeak}) vom Bestand abgezogen.
+     * Gesperrte Materialien werden mit ihrem Bestand aus der Datenbank
+     * geprueft.
+     */
+    private boolean isObjectInStock(LendingObject lendingObject, List<LendingObject> checked,
+            Map<Long, Material> locked) {
+
+        int quantity = lendingObject.getLendingQuantity();
+        long materialId = lendingObject.getType().getId();
+        Material tmp = locked.containsKey(materialId) ? locked.get(materialId) : this.material.findMaterial(materialId);
+
+        if (tmp != null) {
+            int inStock = Math.max(this.availableQuantity(tmp, lendingObject.getStartDay(), lendingObject.getEndDay()), 0)
+                    - cartPeak(lendingObject, checked);
+            boolean result = quantity <= inStock;
+
+            if (result) {
+                return true;
+            } else {
+                if (inStock <= 0) {
+                    lendingObject.setLendingQuantity(0);
+                } else {
+                    lendingObject.setLendingQuantity(inStock);
+                }
+                return false;
+            }
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Gibt die hoechste Menge des Materials zurueck, die die bereits
+     * geprueften Objekte an einem Tag im Zeitraum des Ausleihobjekts
+     * gleichzeitig belegen. Wie im AvailabilityCalculator wird dafuer die
+     * Sweep-Line von {@link MaterialBookings} verwendet, Objekte, die sich
+     * untereinander nicht ueberschneiden, werden nicht addiert.
+     */
+    private static int cartPeak(LendingObject lendingObject, List<LendingObject> checked) {
+        long materialId = lendingObject.getType().getId();
+        int beginDay = lendingObject.getStartDay();
+        int endDay = lendingObject.getEndDay();
+        int[] startDays = new int[checked.size()];
+        int[] endDays = new int[checked.size()];
+        int[] quantities = new int[checked.size()];
+        int size = 0;
+
+        for (LendingObject other : checked) {
+            if (other.getType().getId() == materialId && other.overlaps(beginDay, endDay)) {
+                startDays[size] = other.getStartDay();
+                endDays[size] = other.getEndDay();
+                quantities[size] = other.getLendingQuantity();
+                size++;
+            }
+        }
+
+        if (size == 0) {
+            return 0;
+        }
+        return (int) new MaterialBookings(startDays, endDays, quantities, size, beginDay, endDay)
+                .peak(beginDay, endDay);
+    }
+
+    private void rollback() {
+        if (this.context != null) {
+            this.context.setRollbackOnly();
+        }
+    }
+}
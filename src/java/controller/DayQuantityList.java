@@ -0,0 +1,229 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package controller;
+
+import java.util.Arrays;
+
+/**
+ * Nach Tagen sortierte Liste von (Tag, Menge)-Paaren mit Praefixsummen.
+ * Summen vor bzw. nach einem Tag werden per binaerer Suche in O(log n)
+ * bestimmt, Einfuegen und Entfernen verschieben die Arrays in O(n).
+ */
+class DayQuantityList {
+
+    /**
+     * Sortierte Tage (Epochentage).
+     */
+    private int[] days;
+    /**
+     * Mengen passend zu den Tagen.
+     */
+    private int[] quantities;
+    /**
+     * prefix[i] ist die Summe der Mengen an den Positionen 0 bis i-1.
+     */
+    private long[] prefix;
+    /**
+     * Anzahl der Eintraege.
+     */
+    private int size;
+
+    /**
+     * Erstellt eine leere Liste.
+     */
+    DayQuantityList() {
+        this.days = new int[4];
+        this.quantities = new int[4];
+        this.prefix = new long[5];
+        this.size = 0;
+    }
+
+    /**
+     * Erstellt eine Liste aus unsortierten Daten.
+     *
+     * @param days Tage
+     * @param quantities Mengen
+     * @param size Anzahl der gueltigen Eintraege
+     */
+    DayQuantityList(int[] days, int[] quantities, int size) {
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            packed[i] = ((long) days[i] << 32) | (i & 0xffffffffL);
+        }
+        Arrays.sort(packed);
+
+        this.days = new int[Math.max(size, 4)];
+        this.quantities = new int[this.days.length];
+        this.prefix = new long[this.days.length + 1];
+        this.size = size;
+
+        for (int i = 0; i < size; i++) {
+            int source = (int) packed[i];
+            this.days[i] = days[source];
+            this.quantities[i] = quantities[source];
+            this.prefix[i + 1] = this.prefix[i] + this.quantities[i];
+        }
+    }
+
+    /**
+     * Fuegt einen Eintrag hinzu.
+     *
+     * @param day Tag
+     * @param quantity Menge
+     */
+    void add(int day, int quantity) {
+        if (this.size == this.days.length) {
+            int capacity = this.days.length * 2;
+            this.days = Arrays.copyOf(this.days, capacity);
+            this.quantities = Arrays.copyOf(this.quantities, capacity);
+            this.prefix = Arrays.copyOf(this.prefix, capacity + 1);
+        }
+
+        int pos = upperBound(day);
+        System.arraycopy(this.days, pos, this.days, pos + 1, this.size - pos);
+        System.arraycopy(this.quantities, pos, this.quantities, pos + 1, this.size - pos);
+        this.days[pos] = day;
+        this.quantities[pos] = quantity;
+        this.size++;
+        updatePrefix(pos);
+    }
+
+    /**
+     * Entfernt einen Eintrag mit genau diesem Tag und dieser Menge.
+     *
+     * @param day Tag
+     * @param quantity Menge
+     * @return true, wenn ein Eintrag entfernt wurde, false wenn nicht
+     */
+    boolean remove(int day, int quantity) {
+        for (int pos = lowerBound(day); pos < this.size && this.days[pos] == day; pos++) {
+            if (this.quantities[pos] == quantity) {
+                System.arraycopy(this.days, pos + 1, this.days, pos, this.size - pos - 1);
+                System.arraycopy(this.quantities, pos + 1, this.quantities, pos, this.size - pos - 1);
+                this.size--;
+                updatePrefix(pos);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gibt die Summe der Mengen aller Eintraege vor dem Tag zurueck.
+     *
+     * @param day Tag (exklusiv)
+     * @return Summe
+     */
+    long sumBefore(int day) {
+        return this.prefix[lowerBound(day)];
+    }
+
+    /**
+     * Gibt die Summe der Mengen aller Eintraege nach dem Tag zurueck.
+     *
+     * @param day Tag (exklusiv)
+     * @return Summe
+     */
+    long sumAfter(int day) {
+        return total() - this.prefix[upperBound(day)];
+    }
+
+    /**
+     * Gibt die Summe aller Mengen zurueck.
+     *
+     * @return Summe
+     */
+    long total() {
+        return this.prefix[this.size];
+    }
+
+    /**
+     * Gibt die Anzahl der Eintraege zurueck.
+     *
+     * @return Anzahl
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Gibt den Tag an der Position zurueck.
+     *
+     * @param pos Position
+     * @return Tag
+     */
+    int dayAt(int pos) {
+        return this.days[pos];
+    }
+
+    /**
+     * Gibt die Menge an der Position zurueck.
+     *
+     * @param pos Position
+     * @return Menge
+     */
+    int quantityAt(int pos) {
+        return this.quantities[pos];
+    }
+
+    /**
+     * Gibt die erste Position zurueck, deren Tag nicht kleiner als der
+     * uebergebene Tag ist.
+     *
+     * @param day Tag
+     * @return Position
+     */
+    int lowerBound(int day) {
+        int low = 0;
+        int high = this.size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.days[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gibt die erste Position zurueck, deren Tag groesser als der uebergebene
+     * Tag ist.
+     *
+     * @param day Tag
+     * @return Position
+     */
+    int upperBound(int day) {
+        int low = 0;
+        int high = this.size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.days[mid] <= day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void updatePrefix(int from) {
+        for (int i = from; i < this.size; i++) {
+            this.prefix[i + 1] = this.prefix[i] + this.quantities[i];
+        }
+    }
+}
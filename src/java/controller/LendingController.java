@@ -35,6 +35,12 @@ import model.LendingObjectModel;
 @Dependent
 public class LendingController implements Serializable {
 
+    /**
+     * Systemproperty, mit der die Bestandsabfrage aus dem Speicherindex statt
+     * aus der Datenbank beantwortet wird.
+     */
+    public static final String IN_MEMORY_AVAILABILITY_PROPERTY = "lending.availability.inMemory";
+
     /**
      * LendingModel für Eintragungen in der Datenbank.
      */
@@ -45,7 +51,11 @@ public class LendingController implements Serializable {
      */
     @Inject
     private LendingObjectModel lendingObject;
-
+    /**
+     * Index der Ausleihzeitraeume für die Bestandsabfrage.
+     */
+    @Inject
+    private AvailabilityIndex availability;
 
     /**
      * Erstellt einen neuen LendingController.
@@ -53,6 +63,7 @@ public class LendingController implements Serializable {
     public LendingController() {
         this.lending = new LendingModel();
         this.lendingObject = new LendingObjectModel();
+        this.availability = new AvailabilityIndex();
     }
 
 
@@ -83,6 +94,17 @@ public class LendingController implements Serializable {
         return this.lendingObject.createNewLendingObject(material, quantity, startLendDate, endLendDate);
     }
 
+    /**
+     * Speichert mehrere neue Ausleihobjekte gebündelt.
+     *
+     * @param lendingObjects neue Ausleihobjekte
+     * @return true, wenn alle gespeichert wurden, false wenn nicht
+     */
+    public boolean createLendingObjects(List<LendingObject> lendingObjects) {
+
+        return this.lendingObject.createNewLendingObjects(lendingObjects);
+    }
+
     /**
      * Fuegt eine neue Ausleihe zur Liste hinzu.
      *
@@ -112,6 +134,16 @@ public class LendingController implements Serializable {
         this.lending.deleteLending(id);
     }
 
+    /**
+     * Löscht alle Ausleihen, die vor dem übergebenen Datum enden.
+     *
+     * @param date Stichtag
+     * @return Anzahl der gelöschten Ausleihen
+     */
+    public int deleteLendingsEndedBefore(Date date) {
+        return this.lending.deleteLendingsEndedBefore(date);
+    }
+
 
     /**
      * Gibt die Liste der aktuellen Ausleihen zurueck.
@@ -125,7 +157,10 @@ public class LendingController implements Serializable {
 
     /**
      * Gibt die Anzahl der ausgeliehnenen Gegenstaende des Materials in dem
-     * uebergebenen Zeitraum zurueck.
+     * uebergebenen Zeitraum zurueck. Gezaehlt werden alle Ausleihen, die sich
+     * mit dem Zeitraum [begin, end] ueberschneiden. Die Summe wird in der
+     * Datenbank gebildet, ist {@link #isInMemoryAvailability()} gesetzt, wird
+     * stattdessen der AvailabilityIndex verwendet.
      *
      * @param materialId Material ID
      * @param begin Startdatum
@@ -133,24 +168,36 @@ public class LendingController implements Serializable {
      * @return Anzahl der ausgeliehenen Gegenstaende
      */
     public int lentObjects(long materialId, Date begin, Date end) {
-        int quantity = 0;
-
-
-        for (LendingObject lo : lendingObject.getLendingObjects()) {
-            if (lo.getType().getId() == materialId) {
-                
-                if (lo.getStartLendDate().after(begin) && lo.getStartLendDate().before(end)
-                        || lo.getEndLendDate().after(begin) && lo.getEndLendDate().before(end)
-                        || lo.getStartLendDate().before(begin) && lo.getEndLendDate().after(end)
-                        || lo.getStartLendDate().equals(begin) && lo.getEndLendDate().equals(end)) {
-
-                    quantity += lo.getLendingQuantity();
-                }
-            }
+        return this.lentObjects(materialId, AvailabilityIndex.toEpochDay(begin), AvailabilityIndex.toEpochDay(end));
+    }
 
+    /**
+     * Gibt die Anzahl der ausgeliehnenen Gegenstaende des Materials im
+     * Zeitraum [beginDay, endDay] (Epochentage) zurueck, siehe
+     * {@link #lentObjects(long, Date, Date)}.
+     *
+     * @param materialId Material ID
+     * @param beginDay Starttag
+     * @param endDay Endtag
+     * @return Anzahl der ausgeliehenen Gegenstaende
+     */
+    public int lentObjects(long materialId, int beginDay, int endDay) {
+        if (isInMemoryAvailability()) {
+            return this.availability.bookedQuantity(materialId, beginDay, endDay);
         }
 
-        return quantity;
+        return this.lendingObject.getLentQuantityWithMaterialId(materialId, beginDay, endDay);
+    }
+
+    /**
+     * Gibt zurueck, ob die Bestandsabfrage aus dem Speicherindex beantwortet
+     * wird.
+     *
+     * @return true, wenn der Speicherindex verwendet wird, false wenn die
+     * Datenbank
+     */
+    public static boolean isInMemoryAvailability() {
+        return Boolean.getBoolean(IN_MEMORY_AVAILABILITY_PROPERTY);
     }
 
 }
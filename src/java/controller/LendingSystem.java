@@ -15,10 +15,9 @@
  */
 package controller;
 
-import entities.Lending;
 import entities.LendingObject;
 import entities.Material;
-import entities.Person;
+import entities.NameNormalizer;
 import model.MaterialModel;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -28,14 +27,15 @@ import java.util.Map;
 import java.util.Random;
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
-import model.LendingModel;
 import model.LendingObjectModel;
+import metrics.Timed;
 
 /**
  * LendingSystem zur Verwaltung der Ausleihen, Materialien und Personen.
  *
  * @author Miriam
  */
+@Timed
 @Dependent
 public class LendingSystem implements Serializable {
 
@@ -53,11 +53,6 @@ public class LendingSystem implements Serializable {
      */
     @Inject
     private MaterialModel material;
-    /**
-     * LendingModel für Eintragungen in Datenbank.
-     */
-    @Inject
-    private LendingModel lending;
     /**
      * LendingObjectModel für Eintragungen in Datenbank.
      */
@@ -68,6 +63,11 @@ public class LendingSystem implements Serializable {
      */
     @Inject
     private PersonController personControl;
+    /**
+     * CheckoutService für den Ausleihvorgang in einer Transaktion.
+     */
+    @Inject
+    private CheckoutService checkout;
 
     /**
      * Erstellt ein neues LendingSystem ohne Eigenschaften.
@@ -77,9 +77,9 @@ public class LendingSystem implements Serializable {
         System.out.println("### Konstruktor LendingSystem() ###");
         
         this.lendingControl = new LendingController();
-        this.lending = new LendingModel();
         this.lendingArrangements = new HashMap<>();
         this.personControl = new PersonController();
+        this.checkout = new CheckoutService();
 
         this.material = new MaterialModel();
 
@@ -94,65 +94,13 @@ public class LendingSystem implements Serializable {
      */
     public int addLending(String personName, List<String> errors) {
 
-        if(this.lendingArrangements.size() == 0){
-            errors.add("Keine auszuleihenden Objekte ausgewählt. ");
-            return 9;
-        }
-        boolean lendingProcessSuccessful = true;
-        int errorCode = 0;
-
-        Person tmpPerson = this.personControl.addPerson(personName);
-
-        if (tmpPerson == null) {
-            return 3;
-        }
-
-        Lending newLending = this.lendingControl.createNewLending();
-        newLending.setPerson(tmpPerson);
-
-        for (Map.Entry<Material, LendingObject> entry : this.lendingArrangements.entrySet()) {
-
-            LendingObject tmp = entry.getValue();
-
-            if (doesMaterialExist(entry.getKey().getId())
-                    && isObjectInStock(tmp)) {
-
-                if (tmp.getLendingQuantity() > 0) {
-                    LendingObject lendingObjectToAdd = this.lendingControl.createLendingObject(tmp.getType(), tmp.getLendingQuantity(),
-                            tmp.getStartLendDate(), tmp.getEndLendDate());
-                    if (lendingObjectToAdd != null) {
-                        newLending.addLendingObject(lendingObjectToAdd);
-                    } else {
-                        errors.add("Das Material " + tmp.getType().getName() + " konnte nicht hinzugefügt werden.");
-                        lendingProcessSuccessful = false;
-                    }
-                }
+        int errorCode = this.checkout.checkout(personName, new ArrayList<>(this.lendingArrangements.values()), errors);
 
-            } else {
-                lendingProcessSuccessful = false;
-                if (tmp.getLendingQuantity() == 0) {
-                    errors.add("Das Material " + tmp.getType().getName() + " konnte nicht hinzugefügt werden. "
-                            + "In dem Zeitraum gibt es keine verfügbaren Objekte");
-                } else if (tmp.getLendingQuantity() > 0) {
-                    errors.add("Das Material " + tmp.getType().getName() + " konnte nicht hinzugefügt werden. "
-                            + "In dem Zeitraum gibt es nicht genügend verfügbare Objekte. Die Anzahl wurde angepasst.");
-                }
-
-            }
-
-        }
-
-        if (!lendingProcessSuccessful) {
-            errors.add("Der Ausleihvorgang war nicht erfolgreich.");
-            newLending.setPerson(null);
-            lending.deleteLending(newLending.getId());
-            return 7;
-        } else {
-            errors.add("Der Ausleihvorgang war erfolgreich.");
-            this.lending.saveChanges(newLending);
+        if (errorCode == 0) {
             this.lendingArrangements.clear();
-            return 0;
         }
+
+        return errorCode;
     }
 
     /**
@@ -173,15 +121,12 @@ public class LendingSystem implements Serializable {
      */
     public void addMaterial(String name, String description, int quantity) {
 
-        if (!doesMaterialExist(name)) {
-            Material m = this.material.createMaterial(name, description, quantity);
+        Material tmpMaterial = this.material.findMaterialByName(name);
+
+        if (tmpMaterial == null) {
+            this.material.createMaterial(name, description, quantity);
         } else {
-            Material tmpMaterial;
-            for(Material m:this.material.getMaterials()){
-                if(makeStringConform(m.getName()).equals(makeStringConform(name))){
-                    m = this.material.updateMaterial(m.getId(), description, quantity);
-                }
-            }
+            this.material.updateMaterial(tmpMaterial.getId(), description, quantity);
         }
 
         
@@ -195,7 +140,7 @@ public class LendingSystem implements Serializable {
      */
     public void deleteMaterial(Material material, List<String> errors) {
 
-        if (this.lendingObject.getLendingObjectsWithMaterialId(material.getId()).size() > 0) {
+        if (this.lendingObject.hasLendingObjectsWithMaterialId(material.getId())) {
             errors.add("Material kann nicht gelöscht werden, da es innerhalb einer Ausleihe verwendet wird.");
         } else {
             this.material.deleteMaterial(material.getId());
@@ -211,45 +156,7 @@ public class LendingSystem implements Serializable {
      * @return Material
      */
     public Material getMaterial(String name) {
-        String nameConform = makeStringConform(name);
-        for(Material m:this.material.getMaterials()){
-                if(makeStringConform(m.getName()).equals(makeStringConform(name))){
-                    return m;
-                }
-        }
-        
-        return null;
-    }
-
-    private boolean isObjectInStock(LendingObject lendingObject) {
-
-        int quantity = lendingObject.getLendingQuantity();
-        long materialId = lendingObject.getType().getId();
-        Material tmp = this.material.findMaterial(materialId);
-
-        if (tmp != null) {
-            int currentLendingQuantity = this.lendingControl.lentObjects(materialId, lendingObject.getStartLendDate(), lendingObject.getEndLendDate());
-
-            int inStock = tmp.getQuantity() - currentLendingQuantity;
-            boolean result = quantity <= inStock;
-
-            if (result) {
-                return true;
-            } else {
-                if (inStock <= 0) {
-                    lendingObject.setLendingQuantity(0);
-                } else {
-                    lendingObject.setLendingQuantity(inStock);
-                }
-                return false;
-            }
-        } else {
-
-            //System.out.println("Material nicht gefunden.");
-
-            return false;
-        }
-
+        return this.material.findMaterialByName(name);
     }
 
     /**
@@ -259,15 +166,8 @@ public class LendingSystem implements Serializable {
      * @return true, wenn es existiert. False wenn nicht
      */
     public boolean doesMaterialExist(String materialname) {
-        
-        for(Material m:this.material.getMaterials()){
-            if(makeStringConform(m.getName()).equals(makeStringConform(materialname))){
-                return true;
-            }
-        }
-        
-        return false;
 
+        return this.material.findMaterialByName(materialname) != null;
     }
 
     /**
@@ -298,13 +198,19 @@ public class LendingSystem implements Serializable {
      */
     public static String makeStringConform(String string) {
 
-        String stringConform = string.replace("ä", "ae");
-        stringConform = stringConform.replace("ü", "ue");
-        stringConform = stringConform.replace("ö", "oe");
-        stringConform = stringConform.replace("ß", "ss");
-        stringConform = stringConform.toLowerCase();
+        return NameNormalizer.normalize(string);
+    }
+
+    /**
+     * Prueft, ob zwei Strings in konformer Schreibweise gleich sind.
+     *
+     * @param a erster String
+     * @param b zweiter String
+     * @return true, wenn sie gleich sind, false wenn nicht
+     */
+    public static boolean isStringConformEqual(String a, String b) {
 
-        return stringConform;
+        return NameNormalizer.equalsNormalized(a, b);
     }
 
     /**
@@ -315,6 +221,7 @@ public class LendingSystem implements Serializable {
         String description = "Lorem ipsum dolor sit amet, consetetur sadipscing elitr, sed diam nonumy eirmod tempor invidunt ut labore et dolore magna aliquyam erat, sed diam voluptua.";
         int quantity = 0;
         Random rn = new Random();
+        List<Material> newMaterials = new ArrayList<>();
 
         for (int i = 0; i < 4; i++) {
 
@@ -336,10 +243,29 @@ public class LendingSystem implements Serializable {
 
             quantity = rn.nextInt(10 - 1 + 1) + 1;
 
-            this.addMaterial(name, description, quantity);
+            Material tmpMaterial = this.material.findMaterialByName(name);
+
+            if (tmpMaterial == null) {
+                newMaterials.add(new Material(name, description, quantity));
+            } else {
+                this.material.updateMaterial(tmpMaterial.getId(), description, quantity);
+            }
 
         }
 
+        this.material.createMaterials(newMaterials);
+
+    }
+
+    /**
+     * Lädt ein Material zur Bearbeitung. Das Ergebnis ist eine eigene Kopie
+     * aus der Datenbank und nicht das im Katalog geteilte Objekt.
+     *
+     * @param materialId Material Id
+     * @return Material
+     */
+    public Material loadMaterialForEdit(long materialId) {
+        return this.material.loadMaterial(materialId);
     }
 
     /**
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package controller;
+
+/**
+ * Die Klasse MaterialBookings haelt die Ausleihzeitraeume eines Materials als
+ * zwei sortierte Listen (Start- und Endtage) mit Praefixsummen und als
+ * Belegung pro Tag ({@link OccupancyCalendar}). Der Kalender deckt nur ein
+ * festes Fenster ab, Tage ausserhalb werden aus den sortierten Listen
+ * berechnet.
+ */
+class MaterialBookings {
+
+    /**
+     * Starttage der Ausleihen.
+     */
+    private final DayQuantityList starts;
+    /**
+     * Endtage der Ausleihen.
+     */
+    private final DayQuantityList ends;
+    /**
+     * Gebuchte Menge pro Tag.
+     */
+    private final OccupancyCalendar calendar;
+
+    /**
+     * Erstellt eine leere Buchungsliste.
+     *
+     * @param minDay erster Tag des Kalenderfensters
+     * @param maxDay letzter Tag des Kalenderfensters
+     */
+    MaterialBookings(int minDay, int maxDay) {
+        this.starts = new DayQuantityList();
+        this.ends = new DayQuantityList();
+        this.calendar = new OccupancyCalendar(minDay, maxDay);
+    }
+
+    /**
+     * Erstellt eine Buchungsliste aus unsortierten Zeitraeumen.
+     *
+     * @param startDays Starttage
+     * @param endDays Endtage
+     * @param quantities Mengen
+     * @param size Anzahl der Zeitraeume
+     * @param minDay erster Tag des Kalenderfensters
+     * @param maxDay letzter Tag des Kalenderfensters
+     */
+    MaterialBookings(int[] startDays, int[] endDays, int[] quantities, int size, int minDay, int maxDay) {
+        this.starts = new DayQuantityList(startDays, quantities, size);
+        this.ends = new DayQuantityList(endDays, quantities, size);
+        this.calendar = new OccupancyCalendar(startDays, endDays, quantities, size, minDay, maxDay);
+    }
+
+    /**
+     * Fuegt einen Zeitraum hinzu.
+     *
+     * @param startDay Starttag
+     * @param endDay Endtag
+     * @param quantity Menge
+     */
+    void add(int startDay, int endDay, int quantity) {
+        this.starts.add(startDay, quantity);
+        this.ends.add(endDay, quantity);
+        this.calendar.add(startDay, endDay, quantity);
+    }
+
+    /**
+     * Entfernt einen Zeitraum.
+     *
+     * @param startDay Starttag
+     * @param endDay Endtag
+     * @param quantity Menge
+     */
+    void remove(int startDay, int endDay, int quantity) {
+        if (this.starts.remove(startDay, quantity)) {
+            this.ends.remove(endDay, quantity);
+            this.calendar.remove(startDay, endDay, quantity);
+        }
+    }
+
+    /**
+     * Gibt die Summe der Mengen aller Zeitraeume zurueck, die sich mit
+     * [beginDay, endDay] ueberschneiden. Das sind alle Zeitraeume ausser
+     * denen, die nach endDay beginnen oder vor beginDay enden.
+     *
+     * @param beginDay erster Tag
+     * @param endDay letzter Tag
+     * @return gebuchte Menge
+     */
+    long booked(int beginDay, int endDay) {
+        return this.starts.total() - this.starts.sumAfter(endDay) - this.ends.sumBefore(beginDay);
+    }
+
+    /**
+     * Gibt die hoechste Anzahl gleichzeitig gebuchter Gegenstaende innerhalb
+     * von [beginDay, endDay] zurueck. Dazu wird mit einer Sweep-Line ueber die
+     * sortierten Start- und Endtage gelaufen: ein Zeitraum ist ab seinem
+     * Starttag und bis einschliesslich seines Endtags belegt.
+     *
+     * @param beginDay erster Tag
+     * @param endDay letzter Tag
+     * @return maximale gleichzeitig gebuchte Menge
+     */
+    long peak(int beginDay, int endDay) {
+        long running = this.starts.total() - this.starts.sumAfter(beginDay) - this.ends.sumBefore(beginDay);
+        long peak = running;
+
+        int i = this.starts.upperBound(beginDay);
+        int iEnd = this.starts.upperBound(endDay);
+        int j = this.ends.lowerBound(beginDay);
+        int jEnd = this.ends.lowerBound(endDay);
+
+        while (i < iEnd) {
+            if (j < jEnd && this.ends.dayAt(j) < this.starts.dayAt(i)) {
+                running -= this.ends.quantityAt(j++);
+            } else {
+                running += this.starts.quantityAt(i++);
+                if (running > peak) {
+                    peak = running;
+                }
+            }
+        }
+
+        return peak;
+    }
+
+    /**
+     * Schreibt die gebuchte Menge pro Tag ab beginDay in target. Tage
+     * ausserhalb des Kalenderfensters kosten je O(log n).
+     *
+     * @param beginDay erster Tag
+     * @param target Ziel, ein Eintrag pro Tag
+     */
+    void bookedPerDay(int beginDay, int[] target) {
+        this.calendar.copy(beginDay, target);
+
+        for (int i = 0; i < target.length; i++) {
+            int day = beginDay + i;
+            if (!this.calendar.covers(day)) {
+                target[i] = (int) this.booked(day, day);
+            }
+        }
+    }
+
+    /**
+     * Gibt zurueck, ob keine Zeitraeume mehr enthalten sind.
+     *
+     * @return true, wenn leer
+     */
+    boolean isEmpty() {
+        return this.starts.size() == 0;
+    }
+}
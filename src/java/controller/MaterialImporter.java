@@ -0,0 +1,235 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package controller;
+
+import entities.Material;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import metrics.Timed;
+import model.MaterialModel;
+
+/**
+ * Der MaterialImporter legt Materialien aus einer Liste von Datensaetzen
+ * (Name, Beschreibung, Menge) in grossen Mengen an.
+ *
+ * Doppelte Namen werden wie in {@link LendingSystem#addMaterial(String,
+ * String, int)} zusammengefuehrt: existiert ein Material mit gleichem
+ * konformen Namen, wird die Menge addiert und eine fehlende Beschreibung
+ * ergaenzt. Dafuer werden die konformen Namen aller Materialien einmal zu
+ * Beginn geladen. Neue Materialien werden in Bloecken zu {@link #BATCH_SIZE}
+ * in je einer Transaktion gespeichert, die Datensaetze werden dabei nur
+ * einmal durchlaufen.
+ *
+ * Enthaelt der erste Datensatz eine Spalte "name" oder "material_name", wird
+ * er als Kopfzeile gelesen und die Spalten werden ueber "description" und
+ * "quantity" zugeordnet. Damit laesst sich auch der Materialexport wieder
+ * einlesen.
+ */
+@Timed
+@Dependent
+public class MaterialImporter implements Serializable {
+
+    /**
+     * Anzahl der neuen Materialien pro Transaktion.
+     */
+    public static final int BATCH_SIZE = 1000;
+    /**
+     * Maximale Anzahl der Fehlermeldungen im Ergebnis.
+     */
+    static final int MAX_ERRORS = 100;
+
+    /**
+     * MaterialModel zur Verwaltung der Materialien.
+     */
+    @Inject
+    private MaterialModel material;
+
+    /**
+     * Erstellt einen neuen MaterialImporter.
+     */
+    public MaterialImporter() {
+        this.material = new MaterialModel();
+    }
+
+    /**
+     * Importiert die uebergebenen Datensaetze.
+     *
+     * @param records Datensaetze, werden genau einmal durchlaufen
+     * @return Ergebnis des Imports
+     */
+    public Result importMaterials(Iterator<String[]> records) {
+        Result result = new Result();
+        Map<String, Long> ids = this.material.getMaterialIdsByNormalizedName();
+        Map<String, Material> pending = new HashMap<>();
+        List<Material> batch = new ArrayList<>();
+        Map<Long, Integer> quantities = new HashMap<>();
+        Map<Long, String> descriptions = new HashMap<>();
+        int nameColumn = 0;
+        int descriptionColumn = 1;
+        int quantityColumn = 2;
+        int line = 0;
+
+        while (records.hasNext()) {
+            String[] record = records.next();
+            line++;
+
+            if (line == 1) {
+                List<String> header = new ArrayList<>();
+                for (String column : record) {
+                    header.add(column.trim().toLowerCase(Locale.ROOT));
+                }
+                int name = Math.max(header.indexOf("name"), header.indexOf("material_name"));
+                if (name >= 0) {
+                    nameColumn = name;
+                    descriptionColumn = header.indexOf("description");
+                    quantityColumn = header.indexOf("quantity");
+                    continue;
+                }
+            }
+
+            String name = column(record, nameColumn);
+            String description = column(record, descriptionColumn);
+            int quantity;
+            try {
+                String value = column(record, quantityColumn);
+                quantity = value.isEmpty() ? 0 : Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                result.skip(line, "ungueltige Menge");
+                continue;
+            }
+            if (name.isEmpty()) {
+                result.skip(line, "kein Name");
+                continue;
+            }
+            if (quantity < 0) {
+                result.skip(line, "negative Menge");
+                continue;
+            }
+
+            String normalizedName = LendingSystem.makeStringConform(name);
+            Long id = ids.get(normalizedName);
+            Material added = pending.get(normalizedName);
+
+            if (id != null) {
+                quantities.merge(id, quantity, Integer::sum);
+                if (!description.isEmpty()) {
+                    descriptions.putIfAbsent(id, description);
+                }
+            } else if (added != null) {
+                added.increaseQuantity(quantity);
+                if (added.getDescription().isEmpty()) {
+                    added.setDescription(description);
+                }
+            } else {
+                added = new Material(name, description, quantity);
+                pending.put(normalizedName, added);
+                batch.add(added);
+                if (batch.size() == BATCH_SIZE) {
+                    this.flush(batch, pending, ids, result);
+                }
+            }
+        }
+
+        this.flush(batch, pending, ids, result);
+        result.updated = this.material.updateMaterials(quantities, descriptions);
+
+        return result;
+    }
+
+    private void flush(List<Material> batch, Map<String, Material> pending, Map<String, Long> ids, Result result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        this.material.importMaterials(batch);
+        for (Map.Entry<String, Material> e : pending.entrySet()) {
+            ids.put(e.getKey(), e.getValue().getId());
+        }
+        result.created += batch.size();
+        pending.clear();
+        batch.clear();
+    }
+
+    private static String column(String[] record, int index) {
+        if (index < 0 || index >= record.length || record[index] == null) {
+            return "";
+        }
+        return record[index].trim();
+    }
+
+    /**
+     * Ergebnis eines Imports.
+     */
+    public static class Result implements Serializable {
+
+        private int created;
+        private int updated;
+        private int skipped;
+        private final List<String> errors = new ArrayList<>();
+
+        private void skip(int line, String reason) {
+            this.skipped++;
+            if (this.errors.size() < MAX_ERRORS) {
+                this.errors.add("Zeile " + line + ": " + reason);
+            }
+        }
+
+        /**
+         * Gibt die Anzahl der neu angelegten Materialien zurueck.
+         *
+         * @return Anzahl neuer Materialien
+         */
+        public int getCreated() {
+            return created;
+        }
+
+        /**
+         * Gibt die Anzahl der Materialien zurueck, deren Menge erhoeht wurde.
+         *
+         * @return Anzahl aktualisierter Materialien
+         */
+        public int getUpdated() {
+            return updated;
+        }
+
+        /**
+         * Gibt die Anzahl der uebersprungenen Datensaetze zurueck.
+         *
+         * @return Anzahl uebersprungener Datensaetze
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Gibt die ersten {@value MaterialImporter#MAX_ERRORS}
+         * Fehlermeldungen zurueck.
+         *
+         * @return Fehlermeldungen
+         */
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+    }
+}
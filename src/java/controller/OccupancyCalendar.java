@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package controller;
+
+import java.util.Arrays;
+
+/**
+ * Belegung eines Materials pro Tag: fuer jeden gebuchten Tag innerhalb eines
+ * festen Fensters [minDay, maxDay] die Anzahl der ausgeliehenen Gegenstaende.
+ * Buchungen werden beim Eintragen und Entfernen direkt auf die betroffenen
+ * Tage addiert, Abfragen kopieren nur den angefragten Bereich, beides in
+ * O(Tage).
+ *
+ * Teile von Buchungen ausserhalb des Fensters werden abgeschnitten, damit
+ * ein weit in der Zukunft liegendes Enddatum kein entsprechend grosses Array
+ * anlegt. Fuer Tage ausserhalb des Fensters ({@link #covers(int)}) liefert
+ * der Kalender deshalb keine Belegung.
+ */
+class OccupancyCalendar {
+
+    /**
+     * Erster Tag des Fensters.
+     */
+    private final int minDay;
+    /**
+     * Letzter Tag des Fensters.
+     */
+    private final int maxDay;
+    /**
+     * Epochentag von counts[0].
+     */
+    private int firstDay;
+    /**
+     * Anzahl der gebuchten Gegenstaende pro Tag ab firstDay.
+     */
+    private int[] counts;
+
+    /**
+     * Erstellt einen leeren Kalender fuer die Tage [minDay, maxDay].
+     *
+     * @param minDay erster Tag des Fensters
+     * @param maxDay letzter Tag des Fensters
+     */
+    OccupancyCalendar(int minDay, int maxDay) {
+        this.minDay = minDay;
+        this.maxDay = maxDay;
+        this.firstDay = minDay;
+        this.counts = new int[0];
+    }
+
+    /**
+     * Erstellt einen Kalender fuer die Tage [minDay, maxDay] aus unsortierten
+     * Buchungen. Die Tage werden ueber ein Differenzen-Array in O(n + Tage)
+     * gefuellt.
+     *
+     * @param startDays Starttage
+     * @param endDays Endtage
+     * @param quantities Mengen
+     * @param size Anzahl der gueltigen Eintraege
+     * @param minDay erster Tag des Fensters
+     * @param maxDay letzter Tag des Fensters
+     */
+    OccupancyCalendar(int[] startDays, int[] endDays, int[] quantities, int size, int minDay, int maxDay) {
+        this(minDay, maxDay);
+
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            int start = Math.max(startDays[i], minDay);
+            int end = Math.min(endDays[i], maxDay);
+            if (start <= end) {
+                min = Math.min(min, start);
+                max = Math.max(max, end);
+            }
+        }
+        if (min > max) {
+            return;
+        }
+
+        int[] delta = new int[max - min + 2];
+        for (int i = 0; i < size; i++) {
+            int start = Math.max(startDays[i], minDay);
+            int end = Math.min(endDays[i], maxDay);
+            if (start <= end) {
+                delta[start - min] += quantities[i];
+                delta[end - min + 1] -= quantities[i];
+            }
+        }
+
+        this.firstDay = min;
+        this.counts = new int[max - min + 1];
+        int running = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            running += delta[i];
+            this.counts[i] = running;
+        }
+    }
+
+    /**
+     * Gibt zurueck, ob der Tag im Fenster des Kalenders liegt.
+     *
+     * @param day Epochentag
+     * @return true, wenn der Kalender die Belegung des Tages kennt
+     */
+    boolean covers(int day) {
+        return day >= this.minDay && day <= this.maxDay;
+    }
+
+    /**
+     * Traegt eine Buchung ein. Tage ausserhalb des Fensters werden
+     * ignoriert.
+     *
+     * @param startDay Starttag
+     * @param endDay Endtag (einschliesslich)
+     * @param quantity Menge
+     */
+    void add(int startDay, int endDay, int quantity) {
+        int from = Math.max(startDay, this.minDay);
+        int to = Math.min(endDay, this.maxDay);
+        if (from > to) {
+            return;
+        }
+        ensureRange(from, to);
+        for (int i = from - this.firstDay, last = to - this.firstDay; i <= last; i++) {
+            this.counts[i] += quantity;
+        }
+    }
+
+    /**
+     * Nimmt eine eingetragene Buchung wieder heraus.
+     *
+     * @param startDay Starttag
+     * @param endDay Endtag (einschliesslich)
+     * @param quantity Menge
+     */
+    void remove(int startDay, int endDay, int quantity) {
+        int from = Math.max(startDay, this.firstDay);
+        int to = Math.min(endDay, this.firstDay + this.counts.length - 1);
+
+        for (int i = from - this.firstDay, last = to - this.firstDay; i <= last; i++) {
+            this.counts[i] -= quantity;
+        }
+    }
+
+    /**
+     * Schreibt die Belegung der Tage [beginDay, beginDay + target.length) in
+     * target. Tage ohne Buchungen und Tage ausserhalb des Fensters sind 0.
+     *
+     * @param beginDay erster Tag
+     * @param target Ziel, ein Eintrag pro Tag
+     */
+    void copy(int beginDay, int[] target) {
+        Arrays.fill(target, 0);
+
+        int from = Math.max(beginDay, this.firstDay);
+        int to = Math.min(beginDay + target.length, this.firstDay + this.counts.length);
+        if (from < to) {
+            System.arraycopy(this.counts, from - this.firstDay, target, from - beginDay, to - from);
+        }
+    }
+
+    private void ensureRange(int startDay, int endDay) {
+        if (this.counts.length == 0) {
+            this.firstDay = startDay;
+            this.counts = new int[endDay - startDay + 1];
+            return;
+        }
+
+        int lastDay = this.firstDay + this.counts.length - 1;
+        if (startDay >= this.firstDay && endDay <= lastDay) {
+            return;
+        }
+
+        // Wie bei DayQuantityList mindestens verdoppeln, damit viele kleine
+        // Erweiterungen nicht jedes Mal kopieren, aber nie ueber das Fenster
+        // hinaus.
+        int newFirst = Math.min(startDay, this.firstDay);
+        int newLast = Math.max(endDay, lastDay);
+        int grow = Math.max(newLast - newFirst + 1, this.counts.length * 2) - (newLast - newFirst + 1);
+        if (startDay < this.firstDay) {
+            newFirst = (int) Math.max((long) newFirst - grow, this.minDay);
+        } else {
+            newLast = (int) Math.min((long) newLast + grow, this.maxDay);
+        }
+
+        int[] grown = new int[newLast - newFirst + 1];
+        System.arraycopy(this.counts, 0, grown, this.firstDay - newFirst, this.counts.length);
+        this.firstDay = newFirst;
+        this.counts = grown;
+    }
+}
@@ -103,6 +103,17 @@ public class PersonController implements Serializable {
         return this.person.getPersons();
     }
 
+    /**
+     * Gibt eine Seite von Personen zurueck.
+     *
+     * @param lastId zuletzt gesehene Id, 0 fuer die erste Seite
+     * @param pageSize maximale Anzahl der Personen
+     * @return Liste von Personen
+     */
+    public List<Person> getPersonsAfter(long lastId, int pageSize) {
+        return this.person.getPersonsAfter(lastId, pageSize);
+    }
+
     /**
      * Gibt alle ausgeliehenen Objekte über die Personid zurueck.
      *
@@ -113,4 +124,13 @@ public class PersonController implements Serializable {
         return this.person.getLendingObjectsQuantityWithPersonId(personId);
     }
 
+    /**
+     * Gibt die Anzahl der ausgeliehenen Objekte aller Personen zurueck.
+     *
+     * @return ausgeliehene Objekte pro Person ID
+     */
+    public Map<Long, Integer> getLendingObjectsPerPerson() {
+        return this.person.getLendingObjectsQuantityPerPerson();
+    }
+
 }
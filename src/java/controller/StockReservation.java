@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package controller;
+
+import entities.LendingObject;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
+import javax.annotation.Resource;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Die StockReservation sorgt dafuer, dass Bestandspruefung und Speichern
+ * einer Ausleihe fuer ein Material nicht gleichzeitig von zwei Sitzungen
+ * ausgefuehrt werden. Dazu gibt es eine feste Anzahl an Locks, ein Material
+ * wird ueber seine Id einem davon zugeordnet. Ausleihen fuer verschiedene
+ * Materialien warten damit nur aufeinander, wenn sie zufaellig dasselbe Lock
+ * treffen.
+ *
+ * Die Locks werden in aufsteigender Reihenfolge geholt und erst nach dem Ende
+ * der laufenden Transaktion freigegeben, wenn die neuen Ausleihobjekte fuer
+ * alle anderen sichtbar sind.
+ *
+ * Die Locks gelten nur innerhalb einer JVM. Laufen mehrere Server, schuetzt
+ * erst die Zeilensperre auf den Materialien, die der {@link CheckoutService}
+ * bei der Bestandsabfrage ueber die Datenbank setzt. Der Speicherindex
+ * ({@link LendingController#IN_MEMORY_AVAILABILITY_PROPERTY}) sieht nur die
+ * Ausleihen des eigenen Servers und ist daher nur fuer den Betrieb auf einem
+ * Server geeignet.
+ */
+@ApplicationScoped
+public class StockReservation implements Serializable {
+
+    /**
+     * Anzahl der Locks.
+     */
+    public static final int STRIPES = 64;
+
+    /**
+     * Index der Ausleihzeitraeume, in dem Ausleihen vorgemerkt werden.
+     */
+    @Inject
+    private AvailabilityIndex availability;
+    /**
+     * Registry der laufenden Transaktion.
+     */
+    @Resource
+    private transient TransactionSynchronizationRegistry transactions;
+    /**
+     * Locks, ein Material gehoert zu dem Lock mit Index Id modulo STRIPES.
+     */
+    private final Semaphore[] stripes;
+
+    /**
+     * Erstellt eine neue StockReservation.
+     */
+    public StockReservation() {
+        this.availability = new AvailabilityIndex();
+        this.stripes = new Semaphore[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            this.stripes[i] = new Semaphore(1);
+        }
+    }
+
+    /**
+     * Sperrt die uebergebenen Materialien. Laeuft eine Transaktion, werden die
+     * Locks nach ihrem Ende freigegeben, sonst mit
+     * {@link Reservation#close()}.
+     *
+     * @param materialIds Ids der Materialien
+     * @return Reservierung
+     */
+    public Reservation reserve(Collection<Long> materialIds) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (long id : materialIds) {
+            indexes.add(stripe(id));
+        }
+
+        List<Semaphore> locked = new ArrayList<>(indexes.size());
+        for (int i : indexes) {
+            this.stripes[i].acquireUninterruptibly();
+            locked.add(this.stripes[i]);
+        }
+
+        Reservation reservation = new Reservation(this.availability, locked);
+        if (this.transactions != null && this.transactions.getTransactionKey() != null) {
+            try {
+                this.transactions.registerInterposedSynchronization(reservation);
+                reservation.transactional = true;
+            } catch (RuntimeException e) {
+                reservation.release();
+                throw e;
+            }
+        }
+
+        return reservation;
+    }
+
+    private static int stripe(long materialId) {
+        return (int) Math.floorMod(materialId, (long) STRIPES);
+    }
+
+    /**
+     * Gesperrte Materialien eines Ausleihvorgangs.
+     */
+    public static class Reservation implements Synchronization, AutoCloseable {
+
+        private final AvailabilityIndex availability;
+        private final List<Semaphore> locked;
+        private final List<LendingObject> held;
+        private boolean transactional;
+        private boolean released;
+
+        Reservation(AvailabilityIndex availability, List<Semaphore> locked) {
+            this.availability = availability;
+            this.locked = locked;
+            this.held = new ArrayList<>();
+        }
+
+        /**
+         * Traegt ein gespeichertes Ausleihobjekt sofort in den
+         * AvailabilityIndex ein, damit die naechste Pruefung es nach der
+         * Freigabe der Locks schon sieht. Wird die Transaktion
+         * zurueckgerollt, wird es wieder entfernt.
+         *
+         * @param lendingObject Ausleihobjekt
+         */
+        public void hold(LendingObject lendingObject) {
+            long materialId = lendingObject.getType().getId();
+
+            if (this.transactional) {
+                this.availability.reserve(materialId, lendingObject.getStartDay(),
+                        lendingObject.getEndDay(), lendingObject.getLendingQuantity());
+                this.held.add(lendingObject);
+            } else {
+                this.availability.add(materialId, lendingObject.getStartDay(),
+                        lendingObject.getEndDay(), lendingObject.getLendingQuantity());
+            }
+        }
+
+        /**
+         * Gibt die Locks frei, wenn keine Transaktion laeuft. Sonst passiert
+         * das nach dem Ende der Transaktion.
+         */
+        @Override
+        public void close() {
+            if (!this.transactional) {
+                this.release();
+            }
+        }
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                if (status != Status.STATUS_COMMITTED) {
+                    for (LendingObject lo : this.held) {
+                        this.availability.cancelReservation(lo.getType().getId(), lo.getStartDay(),
+                                lo.getEndDay(), lo.getLendingQuantity());
+                    }
+                }
+            } finally {
+                this.release();
+            }
+        }
+
+        private void release() {
+            if (this.released) {
+                return;
+            }
+            this.released = true;
+            for (int i = this.locked.size() - 1; i >= 0; i--) {
+                this.locked.get(i).release();
+            }
+        }
+    }
+}
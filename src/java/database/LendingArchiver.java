@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package database;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+
+/**
+ * Der LendingArchiver verschiebt jede Nacht alle Ausleihen, deren
+ * Ausleihobjekte laenger als {@link #RETENTION_DAYS_PROPERTY} Tage beendet
+ * sind, in die Archivtabellen (ArchivedLending, ArchivedLendingObject).
+ * Ausleihen ohne Ausleihobjekte werden beim ersten Lauf mitarchiviert. Die
+ * Tabellen LENDING und LENDINGOBJECT enthalten damit nur aktuelle Daten, so
+ * dass Bestandsabfragen und Uebersichten nicht mit der Historie wachsen.
+ *
+ * Jeder Block von {@link #CHUNK_SIZE_PROPERTY} Ausleihen wird in einer
+ * eigenen Transaktion verschoben. Bricht ein Lauf ab, bleiben die bereits
+ * verschobenen Bloecke erhalten, der Rest folgt beim naechsten Lauf.
+ */
+@Singleton
+public class LendingArchiver {
+
+    /**
+     * Systemproperty fuer die Anzahl der Tage nach dem Ende einer Ausleihe,
+     * bis sie archiviert wird. 0 schaltet die Archivierung ab.
+     */
+    public static final String RETENTION_DAYS_PROPERTY = "archive.retentionDays";
+    /**
+     * Standardwert fuer {@link #RETENTION_DAYS_PROPERTY}.
+     */
+    public static final int DEFAULT_RETENTION_DAYS = 365;
+    /**
+     * Systemproperty fuer die Anzahl der Ausleihen pro Transaktion.
+     */
+    public static final String CHUNK_SIZE_PROPERTY = "archive.chunkSize";
+    /**
+     * Standardwert fuer {@link #CHUNK_SIZE_PROPERTY}.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private static final Logger LOG = Logger.getLogger(LendingArchiver.class.getName());
+
+    /**
+     * Persistierer für den Zugriff auf die Datenbank.
+     */
+    @Inject
+    private Persistierer db;
+
+    /**
+     * Archiviert jede Nacht um 3 Uhr alle Ausleihen ausserhalb der
+     * Aufbewahrungsfrist.
+     */
+    @Schedule(hour = "3", minute = "0", persistent = false)
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void archiveExpired() {
+        int retentionDays = Integer.getInteger(RETENTION_DAYS_PROPERTY, DEFAULT_RETENTION_DAYS);
+
+        if (retentionDays <= 0) {
+            return;
+        }
+
+        int archived = this.archive(cutoff(System.currentTimeMillis(), retentionDays));
+
+        if (archived > 0) {
+            LOG.info("Ausleihen archiviert: " + archived);
+        }
+    }
+
+    /**
+     * Archiviert alle Ausleihen, deren Ausleihobjekte vor dem uebergebenen
+     * Datum enden.
+     *
+     * @param date Stichtag
+     * @return Anzahl der archivierten Ausleihen
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public int archive(Date date) {
+        int chunkSize = Math.max(1, Integer.getInteger(CHUNK_SIZE_PROPERTY, DEFAULT_CHUNK_SIZE));
+        int archived = 0;
+
+        while (true) {
+            int chunk = this.db.archiveLendingsEndedBefore(date, chunkSize);
+
+            archived += chunk;
+            if (chunk < chunkSize) {
+                return archived;
+            }
+        }
+    }
+
+    /**
+     * Gibt den Stichtag fuer die Archivierung zurueck.
+     *
+     * @param now aktueller Zeitpunkt in Millisekunden
+     * @param retentionDays Aufbewahrungsfrist in Tagen
+     * @return Stichtag
+     */
+    static Date cutoff(long now, int retentionDays) {
+        return new Date(now - TimeUnit.DAYS.toMillis(retentionDays));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package database;
+
+import entities.LendingObject;
+
+/**
+ * Die Klasse LendingObjectChange beschreibt das Anlegen oder Loeschen eines
+ * Ausleihobjekts. Sie wird als CDI-Event verschickt, damit abgeleitete
+ * Strukturen (z.B. der Verfuegbarkeitsindex) synchron zur Datenbank bleiben.
+ */
+public class LendingObjectChange {
+
+    /**
+     * Art der Aenderung.
+     */
+    public enum Kind {
+        ADDED, REMOVED
+    }
+
+    /**
+     * Art der Aenderung.
+     */
+    private final Kind kind;
+    /**
+     * Id des ausgeliehenen Materials.
+     */
+    private final long materialId;
+    /**
+     * Starttag der Ausleihe als Epochentag.
+     */
+    private final int startDay;
+    /**
+     * Endtag der Ausleihe als Epochentag.
+     */
+    private final int endDay;
+    /**
+     * Anzahl der ausgeliehenen Gegenstaende.
+     */
+    private final int lendingQuantity;
+
+    /**
+     * Erstellt eine neue Aenderung.
+     *
+     * @param kind Art der Aenderung
+     * @param materialId Id des Materials
+     * @param startDay Starttag als Epochentag
+     * @param endDay Endtag als Epochentag
+     * @param lendingQuantity Anzahl
+     */
+    public LendingObjectChange(Kind kind, long materialId, int startDay,
+            int endDay, int lendingQuantity) {
+        this.kind = kind;
+        this.materialId = materialId;
+        this.startDay = startDay;
+        this.endDay = endDay;
+        this.lendingQuantity = lendingQuantity;
+    }
+
+    /**
+     * Erstellt eine Aenderung fuer ein neu angelegtes Ausleihobjekt.
+     *
+     * @param lendingObject Ausleihobjekt
+     * @return Aenderung
+     */
+    public static LendingObjectChange added(LendingObject lendingObject) {
+        return of(Kind.ADDED, lendingObject);
+    }
+
+    /**
+     * Erstellt eine Aenderung fuer ein geloeschtes Ausleihobjekt.
+     *
+     * @param lendingObject Ausleihobjekt
+     * @return Aenderung
+     */
+    public static LendingObjectChange removed(LendingObject lendingObject) {
+        return of(Kind.REMOVED, lendingObject);
+    }
+
+    private static LendingObjectChange of(Kind kind, LendingObject lendingObject) {
+        return new LendingObjectChange(kind, lendingObject.getType().getId(),
+                lendingObject.getStartDay(), lendingObject.getEndDay(),
+                lendingObject.getLendingQuantity());
+    }
+
+    /**
+     * Gibt die Art der Aenderung zurueck.
+     *
+     * @return Art der Aenderung
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gibt die Id des Materials zurueck.
+     *
+     * @return Id des Materials
+     */
+    public long getMaterialId() {
+        return materialId;
+    }
+
+    /**
+     * Gibt den Starttag als Epochentag zurueck.
+     *
+     * @return Starttag oder {@link LendingObject#NO_DAY}
+     */
+    public int getStartDay() {
+        return startDay;
+    }
+
+    /**
+     * Gibt den Endtag als Epochentag zurueck.
+     *
+     * @return Endtag oder {@link LendingObject#NO_DAY}
+     */
+    public int getEndDay() {
+        return endDay;
+    }
+
+    /**
+     * Gibt die Anzahl der Gegenstaende zurueck.
+     *
+     * @return Anzahl
+     */
+    public int getLendingQuantity() {
+        return lendingQuantity;
+    }
+}
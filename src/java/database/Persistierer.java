@@ -15,25 +15,85 @@
  */
 package database;
 
+import entities.ArchivedLending;
+import entities.ArchivedLendingObject;
+import entities.EpochDays;
 import entities.Lending;
 import entities.LendingObject;
+import entities.LendingObjectSummary;
+import entities.LendingSummary;
 import entities.Material;
 import entities.Person;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import javax.ejb.Stateless;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.CacheStoreMode;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import metrics.MetricsRegistry;
+import metrics.Timed;
 
 /**
  *
  * @author lennartblom
  */
+@Timed
 @Stateless
 public class Persistierer {
 
+    /**
+     * Systemproperty für die Anzahl der Objekte, nach denen
+     * {@link #persistAll(Collection)} die Änderungen an die Datenbank schickt.
+     */
+    public static final String FLUSH_CHUNK_SIZE_PROPERTY = "persistierer.flushChunkSize";
+    /**
+     * Standardwert für {@link #FLUSH_CHUNK_SIZE_PROPERTY}, entspricht
+     * eclipselink.jdbc.batch-writing.size in der persistence.xml.
+     */
+    public static final int DEFAULT_FLUSH_CHUNK_SIZE = 100;
+    /**
+     * Systemproperty für die Anzahl der Ausleihen, die
+     * {@link #removeLendingsEndedBefore(java.util.Date)} pro Block löscht.
+     */
+    public static final String DELETE_CHUNK_SIZE_PROPERTY = "persistierer.deleteChunkSize";
+    /**
+     * Standardwert für {@link #DELETE_CHUNK_SIZE_PROPERTY}.
+     */
+    public static final int DEFAULT_DELETE_CHUNK_SIZE = 500;
+
+    private static final String FETCH_GRAPH = "javax.persistence.fetchgraph";
+    private static final String LOAD_GRAPH = "javax.persistence.loadgraph";
+    private static final String CACHE_RETRIEVE_MODE = "javax.persistence.cache.retrieveMode";
+    private static final String CACHE_STORE_MODE = "javax.persistence.cache.storeMode";
+    private static final Map<String, Object> BYPASS_CACHE = new HashMap<>();
+
+    static {
+        BYPASS_CACHE.put(CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS);
+        BYPASS_CACHE.put(CACHE_STORE_MODE, CacheStoreMode.REFRESH);
+    }
+
     @Inject
     private EntityManager em;
 
+    /**
+     * Messwerte, hier für die Trefferquote des Second-Level-Caches.
+     */
+    @Inject
+    private MetricsRegistry metrics;
+
+    /**
+     * Event zur Benachrichtigung über gelöschte Ausleihobjekte.
+     */
+    @Inject
+    private Event<LendingObjectChange> changes;
+
     /**
      * Persistiert übergebenes Objekt.
      *
@@ -49,6 +109,53 @@ public class Persistierer {
         }
     }
 
+    /**
+     * Persistiert alle übergebenen Objekte in einer Transaktion. Nach jeweils
+     * {@link #FLUSH_CHUNK_SIZE_PROPERTY} Objekten werden die INSERTs gebündelt
+     * an die Datenbank geschickt.
+     *
+     * @param objects zu persistierende Objekte
+     */
+    public void persistAll(Collection<?> objects) {
+        this.persistAll(objects, false);
+    }
+
+    /**
+     * Persistiert alle übergebenen Objekte in einer Transaktion. Mit detach
+     * wird der Persistenzkontext nach jedem Block geleert, damit große
+     * Importe nicht alle Objekte im Speicher halten. Die übergebenen Objekte
+     * sind danach nicht mehr verwaltet.
+     *
+     * @param objects zu persistierende Objekte
+     * @param detach true, um den Persistenzkontext nach jedem Block zu leeren
+     */
+    public void persistAll(Collection<?> objects, boolean detach) {
+        if (this.em == null) {
+            return;
+        }
+
+        int chunkSize = Math.max(1, Integer.getInteger(FLUSH_CHUNK_SIZE_PROPERTY, DEFAULT_FLUSH_CHUNK_SIZE));
+        int count = 0;
+
+        for (Object object : objects) {
+            this.em.persist(object);
+            count++;
+            if (count % chunkSize == 0) {
+                this.em.flush();
+                if (detach) {
+                    this.em.clear();
+                }
+            }
+        }
+
+        if (count % chunkSize != 0) {
+            this.em.flush();
+            if (detach) {
+                this.em.clear();
+            }
+        }
+    }
+
     /**
      * Löscht übergebenes Objekt.
      *
@@ -65,9 +172,43 @@ public class Persistierer {
      * @return Material
      */
     public Material findMaterial(long id) {
+        this.recordCacheAccess(Material.class, id);
         return em.find(Material.class, id);
     }
 
+    /**
+     * Lädt ein Material an dem Second-Level-Cache vorbei aus der Datenbank
+     * und aktualisiert dabei den Cache.
+     *
+     * @param id gesuchtes Material
+     * @return Material oder null, wenn es nicht existiert
+     */
+    public Material loadMaterial(long id) {
+        return em.find(Material.class, id, BYPASS_CACHE);
+    }
+
+    /**
+     * Sperrt die Zeilen der Materialien bis zum Ende der laufenden
+     * Transaktion (SELECT ... FOR UPDATE). Die Zeilen werden in aufsteigender
+     * Reihenfolge der Id gesperrt, damit sich zwei Ausleihvorgänge nicht
+     * gegenseitig blockieren. Die Materialien werden dabei an dem
+     * Second-Level-Cache vorbei gelesen, ihr Bestand ist also der aktuelle
+     * Stand der gesperrten Zeilen.
+     *
+     * @param materialIds Ids der Materialien
+     * @return gesperrte Materialien nach Id, null für nicht existierende
+     * Materialien; leer, wenn kein EntityManager verfügbar ist
+     */
+    public Map<Long, Material> lockMaterials(Collection<Long> materialIds) {
+        Map<Long, Material> result = new HashMap<>();
+        if (this.em != null) {
+            for (long id : new TreeSet<>(materialIds)) {
+                result.put(id, em.find(Material.class, id, LockModeType.PESSIMISTIC_WRITE, BYPASS_CACHE));
+            }
+        }
+        return result;
+    }
+
     /**
      * Gibt Person über die PersonId zurück.
      *
@@ -75,9 +216,106 @@ public class Persistierer {
      * @return Person
      */
     public Person findPerson(long id) {
+        this.recordCacheAccess(Person.class, id);
         return (Person) em.find(Person.class, id);
     }
 
+    /**
+     * Sucht ein Material über den normalisierten Namen.
+     *
+     * @param normalizedName normalisierter Name
+     * @return Material oder null, wenn es nicht existiert
+     */
+    public Material findMaterialByNormalizedName(String normalizedName) {
+        List<Material> result = em.createNamedQuery("Material.findByNormalizedName", Material.class)
+                .setParameter("normalizedName", normalizedName).setMaxResults(1).getResultList();
+
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * Sucht eine Person über den normalisierten Namen.
+     *
+     * @param normalizedName normalisierter Name
+     * @return Person oder null, wenn sie nicht existiert
+     */
+    public Person findPersonByNormalizedName(String normalizedName) {
+        List<Person> result = em.createNamedQuery("Person.findByNormalizedName", Person.class)
+                .setParameter("normalizedName", normalizedName).setMaxResults(1).getResultList();
+
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * Gibt die Ids aller Materialien über den normalisierten Namen zurück,
+     * ohne die Materialien selbst zu laden.
+     *
+     * @return MaterialId pro normalisiertem Namen
+     */
+    public Map<String, Long> getMaterialIdsByNormalizedName() {
+        Map<String, Long> result = new HashMap<>();
+
+        for (Object[] row : em.createNamedQuery("Material.getNormalizedNames", Object[].class)
+                .getResultList()) {
+            if (row[0] != null) {
+                result.put((String) row[0], ((Number) row[1]).longValue());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Erhöht die Menge mehrerer Materialien in einer Transaktion. Eine
+     * übergebene Beschreibung wird nur gesetzt, wenn das Material noch keine
+     * hat.
+     *
+     * @param quantities zu addierende Menge pro MaterialId
+     * @param descriptions Beschreibung pro MaterialId
+     * @return Anzahl der aktualisierten Materialien
+     */
+    public int increaseMaterialQuantities(Map<Long, Integer> quantities, Map<Long, String> descriptions) {
+        int result = 0;
+
+        for (Map.Entry<Long, Integer> e : quantities.entrySet()) {
+            Material m = em.find(Material.class, e.getKey());
+            if (m == null) {
+                continue;
+            }
+            m.increaseQuantity(e.getValue());
+            String description = descriptions.get(e.getKey());
+            if (description != null && (m.getDescription() == null || m.getDescription().isEmpty())) {
+                m.setDescription(description);
+            }
+            result++;
+        }
+
+        return result;
+    }
+
+    /**
+     * Füllt den normalisierten Namen bei allen Materialien und Personen, bei
+     * denen er noch fehlt.
+     *
+     * @return Anzahl der aktualisierten Datensätze
+     */
+    public int backfillNormalizedNames() {
+        int result = 0;
+
+        for (Material m : em.createNamedQuery("Material.findWithoutNormalizedName", Material.class)
+                .getResultList()) {
+            m.updateNormalizedName();
+            result++;
+        }
+        for (Person p : em.createNamedQuery("Person.findWithoutNormalizedName", Person.class)
+                .getResultList()) {
+            p.updateNormalizedName();
+            result++;
+        }
+
+        return result;
+    }
+
     /**
      * Löscht Material über die Id.
      *
@@ -86,6 +324,7 @@ public class Persistierer {
     public void removeMaterial(long pId) {
         Material tmp = (Material) em.find(Material.class, pId);
         em.remove(tmp);
+        em.getEntityManagerFactory().getCache().evict(Material.class, pId);
     }
 
     /**
@@ -96,6 +335,7 @@ public class Persistierer {
     public void removePerson(long id) {
         Person tmp = (Person) em.find(Person.class, id);
         em.merge(tmp);
+        em.getEntityManagerFactory().getCache().evict(Person.class, id);
     }
 
     /**
@@ -127,15 +367,48 @@ public class Persistierer {
     }
 
     /**
-     * Gibt eine Liste von allen Materialien zurück.
+     * Gibt eine Liste von allen Materialien zurück. Die Materialien werden
+     * an dem Second-Level-Cache vorbei gelesen und dieser dabei aktualisiert,
+     * damit Änderungen von anderen Servern nicht von veralteten Objekten im
+     * Cache verdeckt werden.
      *
      * @return Liste der Materialien
      */
     public List<Material> findAllMaterials() {
         return em.createQuery("SELECT m FROM Material m", Material.class)
+                .setHint(CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS)
+                .setHint(CACHE_STORE_MODE, CacheStoreMode.REFRESH)
                 .getResultList();
     }
 
+    /**
+     * Gibt eine Kennung für den Stand aller Materialien zurück, gebildet aus
+     * Anzahl, größter Id und Summe der Versionen. Sie ändert sich, sobald ein
+     * Material angelegt, geändert oder gelöscht wird, auch wenn das auf einem
+     * anderen Server geschieht.
+     *
+     * @return Kennung des Stands
+     */
+    public String getMaterialStamp() {
+        Object[] row = em.createNamedQuery("Material.getStamp", Object[].class).getSingleResult();
+
+        return row[0] + "-" + (row[1] == null ? 0 : row[1]) + "-" + (row[2] == null ? 0 : row[2]);
+    }
+
+    /**
+     * Gibt eine Seite von Materialien zurück, sortiert nach Id. Die Seite
+     * beginnt hinter der zuletzt gesehenen Id, sodass die Datenbank über den
+     * Primärschlüssel direkt an die richtige Stelle springt.
+     *
+     * @param lastId zuletzt gesehene Id, 0 für die erste Seite
+     * @param pageSize maximale Anzahl der Materialien
+     * @return Liste der Materialien
+     */
+    public List<Material> findMaterialsAfter(long lastId, int pageSize) {
+        return em.createNamedQuery("Material.findPage", Material.class)
+                .setParameter("lastId", lastId).setMaxResults(pageSize).getResultList();
+    }
+
     /**
      * Gibt eine Liste von allen Ausleihen zurück.
      *
@@ -143,9 +416,47 @@ public class Persistierer {
      */
     public List<Lending> findAllLendings() {
         return em.createQuery("SELECT m FROM Lending m", Lending.class)
+                .setHint(FETCH_GRAPH, em.getEntityGraph(Lending.GRAPH_SUMMARY))
+                .getResultList();
+    }
+
+    /**
+     * Gibt eine Seite von Ausleihen zurück, sortiert nach Id.
+     *
+     * @param lastId zuletzt gesehene Id, 0 für die erste Seite
+     * @param pageSize maximale Anzahl der Ausleihen
+     * @return Liste der Ausleihen
+     */
+    public List<Lending> findLendingsAfter(long lastId, int pageSize) {
+        return em.createNamedQuery("Lending.findPage", Lending.class)
+                .setHint(FETCH_GRAPH, em.getEntityGraph(Lending.GRAPH_SUMMARY))
+                .setParameter("lastId", lastId).setMaxResults(pageSize).getResultList();
+    }
+
+    /**
+     * Gibt für alle Ausleihen die Person, die Gesamtmenge sowie das früheste
+     * und späteste Datum in einer einzigen Abfrage zurück.
+     *
+     * @return Liste der Zusammenfassungen
+     */
+    public List<LendingSummary> findAllLendingSummaries() {
+        return em.createNamedQuery("Lending.getSummaries", LendingSummary.class)
                 .getResultList();
     }
 
+    /**
+     * Gibt eine Seite von Zusammenfassungen zurück, sortiert nach der Id der
+     * Ausleihe.
+     *
+     * @param lastId zuletzt gesehene Id einer Ausleihe, 0 für die erste Seite
+     * @param pageSize maximale Anzahl der Zusammenfassungen
+     * @return Liste der Zusammenfassungen
+     */
+    public List<LendingSummary> findLendingSummariesAfter(long lastId, int pageSize) {
+        return em.createNamedQuery("Lending.getSummariesPage", LendingSummary.class)
+                .setParameter("lastId", lastId).setMaxResults(pageSize).getResultList();
+    }
+
     /**
      * Gibt eine Liste von allen Personen zurück.
      *
@@ -156,6 +467,18 @@ public class Persistierer {
                 .getResultList();
     }
 
+    /**
+     * Gibt eine Seite von Personen zurück, sortiert nach Id.
+     *
+     * @param lastId zuletzt gesehene Id, 0 für die erste Seite
+     * @param pageSize maximale Anzahl der Personen
+     * @return Liste der Personen
+     */
+    public List<Person> findPersonsAfter(long lastId, int pageSize) {
+        return em.createNamedQuery("Person.findPage", Person.class)
+                .setParameter("lastId", lastId).setMaxResults(pageSize).getResultList();
+    }
+
     /**
      * Gibt die Menge der Ausleihobjekte über die Ausleihid zurück.
      *
@@ -174,10 +497,24 @@ public class Persistierer {
      * @return Menge der Ausleihobjekte
      */
     public int getLendingObjectsQuantityWithPersonId(long personId) {
-        int result = 0;
+        Number result = (Number) em.createNamedQuery("Person.getLendingObjectQuantity")
+                .setParameter("personId", personId).getSingleResult();
+
+        return result == null ? 0 : result.intValue();
+    }
+
+    /**
+     * Gibt die Menge der Ausleihobjekte aller Personen in einer Abfrage zurück.
+     * Personen ohne Ausleihobjekte sind nicht enthalten.
+     *
+     * @return Menge der Ausleihobjekte pro PersonId
+     */
+    public Map<Long, Integer> getLendingObjectsQuantityPerPerson() {
+        Map<Long, Integer> result = new HashMap<>();
 
-        for (Lending l : this.getLendingsFromPersonId(personId)) {
-            result += this.getLendingObjectsQuantityWithLendingId(l.getId());
+        for (Object[] row : em.createNamedQuery("Person.getLendingObjectQuantities", Object[].class)
+                .getResultList()) {
+            result.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
         }
 
         return result;
@@ -216,13 +553,38 @@ public class Persistierer {
     }
 
     /**
-     * Gibt alle Ausleihen von einer Person zurück.
+     * Gibt eine Seite von Zusammenfassungen der Ausleihobjekte mit Material
+     * und ausleihender Person in einer Abfrage zurück, sortiert nach Id.
+     *
+     * @param lastId zuletzt gesehene Id, 0 für die erste Seite
+     * @param pageSize maximale Anzahl der Ausleihobjekte
+     * @return Liste der Zusammenfassungen
+     */
+    public List<LendingObjectSummary> findLendingObjectSummariesAfter(long lastId, int pageSize) {
+        return em.createNamedQuery("LendingObject.getSummariesPage", LendingObjectSummary.class)
+                .setParameter("lastId", lastId).setMaxResults(pageSize).getResultList();
+    }
+
+    /**
+     * Prüft, ob es Ausleihobjekte eines Materials gibt, ohne sie zu laden.
+     *
+     * @param materialId Material
+     * @return true, wenn es mindestens ein Ausleihobjekt gibt
+     */
+    public boolean hasLendingObjectsWithMaterialId(long materialId) {
+        return !em.createNamedQuery("LendingObject.existsWithMaterial")
+                .setParameter("materialId", materialId).setMaxResults(1).getResultList().isEmpty();
+    }
+
+    /**
+     * Gibt alle Ausleihen von einer Person mit ihren Ausleihobjekten zurück.
      *
      * @param personId Person
      * @return Liste von Ausleihen
      */
     public List<Lending> getLendingsFromPersonId(long personId) {
         return em.createNamedQuery("Lending.getLendingsFromFromPersonId", Lending.class)
+                .setHint(LOAD_GRAPH, em.getEntityGraph(Lending.GRAPH_WITH_OBJECTS))
                 .setParameter("personId", personId).getResultList();
     }
 
@@ -230,22 +592,28 @@ public class Persistierer {
      * Gibt das früheste Datum einer Ausleihe zurück.
      *
      * @param lendingId Ausleihe
-     * @return Frühestes Datum
+     * @return Frühestes Datum oder null, wenn die Ausleihe keine
+     * Ausleihobjekte hat
      */
     public java.sql.Date getMinDateFromLendingId(long lendingId) {
-        return em.createNamedQuery("Lending.getMinDate", java.sql.Date.class)
-                .setParameter("lendingId", lendingId).setMaxResults(1).getSingleResult();
+        Integer day = em.createNamedQuery("Lending.getMinDate", Integer.class)
+                .setParameter("lendingId", lendingId).getSingleResult();
+
+        return day == null ? null : EpochDays.toDate(day.intValue());
     }
 
     /**
      * Gibt das späteste Datum einer Ausleihe zurück.
      *
      * @param lendingId Ausleihe
-     * @return Spätestes Datum
+     * @return Spätestes Datum oder null, wenn die Ausleihe keine
+     * Ausleihobjekte hat
      */
     public java.sql.Date getMaxDateFromLendingId(long lendingId) {
-        return em.createNamedQuery("Lending.getMaxDate", java.sql.Date.class)
-                .setParameter("lendingId", lendingId).setMaxResults(1).getSingleResult();
+        Integer day = em.createNamedQuery("Lending.getMaxDate", Integer.class)
+                .setParameter("lendingId", lendingId).getSingleResult();
+
+        return day == null ? null : EpochDays.toDate(day.intValue());
     }
 
     /**
@@ -259,25 +627,234 @@ public class Persistierer {
                 .setParameter("materialId", materialId).getResultList();
     }
 
+    /**
+     * Gibt die Menge der Gegenstaende eines Materials zurück, deren Ausleihe
+     * sich mit dem Zeitraum [beginDay, endDay] (Epochentage) überschneidet.
+     * Die Summe wird in der Datenbank gebildet.
+     *
+     * @param materialId Material
+     * @param beginDay Starttag
+     * @param endDay Endtag
+     * @return ausgeliehene Menge
+     */
+    public int getLentQuantityWithMaterialId(long materialId, int beginDay, int endDay) {
+        return ((Number) em.createNamedQuery("LendingObject.getLentQuantity")
+                .setParameter("materialId", materialId)
+                .setParameter("startDay", beginDay)
+                .setParameter("endDay", endDay)
+                .getSingleResult()).intValue();
+    }
+
+    /**
+     * Gibt für die Materialien die ausgeliehene Menge pro Tag im Zeitraum
+     * [beginDay, endDay] (Epochentage) zurück. Die Ausleihen werden in der
+     * Datenbank nach Material und Zeitraum zusammengefasst und dann über ein
+     * Differenzen-Array auf die Tage verteilt.
+     *
+     * @param materialIds Materialien
+     * @param beginDay Starttag
+     * @param endDay Endtag
+     * @return ausgeliehene Menge pro Tag je Material-Id, Index 0 ist beginDay.
+     * Materialien ohne Ausleihen im Zeitraum sind nicht enthalten.
+     */
+    public Map<Long, int[]> getLentQuantitiesPerDay(Collection<Long> materialIds, int beginDay, int endDay) {
+        Map<Long, int[]> result = new HashMap<>();
+        if (materialIds.isEmpty() || endDay < beginDay) {
+            return result;
+        }
+
+        List<Object[]> periods = em.createNamedQuery("LendingObject.getLentPeriods", Object[].class)
+                .setParameter("materialIds", materialIds)
+                .setParameter("startDay", beginDay)
+                .setParameter("endDay", endDay)
+                .getResultList();
+
+        for (Object[] p : periods) {
+            int[] delta = result.computeIfAbsent(((Number) p[0]).longValue(), id -> new int[endDay - beginDay + 2]);
+            int quantity = ((Number) p[3]).intValue();
+            delta[Math.max(((Number) p[1]).intValue(), beginDay) - beginDay] += quantity;
+            delta[Math.min(((Number) p[2]).intValue(), endDay) - beginDay + 1] -= quantity;
+        }
+        for (Map.Entry<Long, int[]> entry : result.entrySet()) {
+            int[] delta = entry.getValue();
+            int[] perDay = new int[delta.length - 1];
+            int running = 0;
+            for (int i = 0; i < perDay.length; i++) {
+                running += delta[i];
+                perDay[i] = running;
+            }
+            entry.setValue(perDay);
+        }
+
+        return result;
+    }
+
     /**
      * Löscht eine Ausleihe über die ID.
      *
      * @param id Id der Ausleihe
      */
     public void removeLending(long id) {
+        this.removeLendings(Collections.singletonList(id));
+    }
+
+    /**
+     * Löscht die übergebenen Ausleihen mit ihren Ausleihobjekten, ohne sie
+     * als Entities zu laden. Unabhängig von der Anzahl werden drei
+     * Anweisungen ausgeführt: Lesen der Daten für die
+     * {@link LendingObjectChange}-Events, Löschen der Ausleihobjekte und
+     * Löschen der Ausleihen.
+     *
+     * Die Massenlöschung umgeht den Persistenzkontext. Ausleihen und
+     * Ausleihobjekte liegen nicht im Second-Level-Cache, bereits geladene
+     * Instanzen im selben Kontext werden aber nicht aktualisiert.
+     *
+     * @param ids Ids der Ausleihen
+     * @return Anzahl der gelöschten Ausleihen
+     */
+    public int removeLendings(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
 
-        Lending tmp = this.em.find(Lending.class, id);
+        List<Object[]> removals = this.em.createNamedQuery("LendingObject.getRemovalsOfLendings", Object[].class)
+                .setParameter("lendingIds", ids).getResultList();
 
-        if (tmp.getLendings().size() > 0) {
-            for (LendingObject lo : tmp.getLendings()) {
-                this.em.remove(lo);
+        this.em.createNamedQuery("LendingObject.deleteOfLendings")
+                .setParameter("lendingIds", ids).executeUpdate();
+        int removed = this.em.createNamedQuery("Lending.deleteByIds")
+                .setParameter("lendingIds", ids).executeUpdate();
+
+        for (Object[] r : removals) {
+            this.changes.fire(new LendingObjectChange(LendingObjectChange.Kind.REMOVED,
+                    ((Number) r[0]).longValue(), ((Number) r[1]).intValue(), ((Number) r[2]).intValue(),
+                    ((Number) r[3]).intValue()));
+        }
+
+        return removed;
+    }
+
+    /**
+     * Löscht alle Ausleihen, deren Ausleihobjekte vor dem übergebenen Datum
+     * enden, in Blöcken von {@link #DELETE_CHUNK_SIZE_PROPERTY} Ausleihen.
+     * Ausleihen ohne Ausleihobjekte werden ebenfalls gelöscht. Pro Block
+     * werden nur die Ids gelesen.
+     *
+     * @param date Stichtag, Ausleihen mit Enddatum davor werden gelöscht
+     * @return Anzahl der gelöschten Ausleihen
+     */
+    public int removeLendingsEndedBefore(java.util.Date date) {
+        int chunkSize = Math.max(1, Integer.getInteger(DELETE_CHUNK_SIZE_PROPERTY, DEFAULT_DELETE_CHUNK_SIZE));
+        int removed = 0;
+
+        while (true) {
+            List<Long> ids = this.em.createNamedQuery("Lending.getIdsEndedBefore", Long.class)
+                    .setParameter("day", EpochDays.of(date))
+                    .setMaxResults(chunkSize).getResultList();
+
+            if (ids.isEmpty()) {
+                return removed;
             }
+            removed += this.removeLendings(ids);
+        }
+    }
+
+    /**
+     * Verschiebt bis zu maxLendings Ausleihen, deren Ausleihobjekte vor dem
+     * übergebenen Datum enden, in die Archivtabellen. Ausleihen ohne
+     * Ausleihobjekte werden ohne Zeitraum archiviert. Die Archivzeilen werden
+     * per Konstruktor-Abfrage erzeugt und gebündelt eingefügt, danach werden
+     * die Ausleihen über {@link #removeLendings(Collection)} gelöscht.
+     *
+     * @param date Stichtag
+     * @param maxLendings maximale Anzahl der Ausleihen in dieser Transaktion
+     * @return Anzahl der archivierten Ausleihen
+     */
+    public int archiveLendingsEndedBefore(java.util.Date date, int maxLendings) {
+        List<Long> ids = this.em.createNamedQuery("Lending.getIdsEndedBefore", Long.class)
+                .setParameter("day", EpochDays.of(date))
+                .setMaxResults(maxLendings).getResultList();
 
-            Lending toDelete = this.em.merge(tmp);
+        if (ids.isEmpty()) {
+            return 0;
+        }
 
-            this.em.remove(toDelete);
-        } else {
-            this.em.remove(tmp);
+        this.persistAll(this.em.createNamedQuery("ArchivedLending.fromLendings", ArchivedLending.class)
+                .setParameter("lendingIds", ids).getResultList(), true);
+        this.persistAll(this.em.createNamedQuery("ArchivedLendingObject.fromLendings", ArchivedLendingObject.class)
+                .setParameter("lendingIds", ids).getResultList(), true);
+
+        return this.removeLendings(ids);
+    }
+
+    /**
+     * Gibt eine Seite archivierter Ausleihen zurück, deren Zeitraum sich mit
+     * [begin, end] überschneidet, sortiert nach Id.
+     *
+     * @param begin Startdatum
+     * @param end Enddatum
+     * @param lastId zuletzt gesehene Id, 0 für die erste Seite
+     * @param pageSize maximale Anzahl der Ausleihen
+     * @return Liste archivierter Ausleihen
+     */
+    public List<ArchivedLending> findArchivedLendingsAfter(java.util.Date begin, java.util.Date end,
+            long lastId, int pageSize) {
+        return em.createNamedQuery("ArchivedLending.findPage", ArchivedLending.class)
+                .setParameter("startLendDate", new java.sql.Date(begin.getTime()))
+                .setParameter("endLendDate", new java.sql.Date(end.getTime()))
+                .setParameter("lastId", lastId).setMaxResults(pageSize).getResultList();
+    }
+
+    /**
+     * Gibt alle archivierten Ausleihen einer Person zurück.
+     *
+     * @param personId Person
+     * @return Liste archivierter Ausleihen
+     */
+    public List<ArchivedLending> findArchivedLendingsOfPerson(long personId) {
+        return em.createNamedQuery("ArchivedLending.findOfPerson", ArchivedLending.class)
+                .setParameter("personId", personId).getResultList();
+    }
+
+    /**
+     * Gibt die archivierten Ausleihobjekte einer archivierten Ausleihe zurück.
+     *
+     * @param lendingId Id der Ausleihe
+     * @return Liste archivierter Ausleihobjekte
+     */
+    public List<ArchivedLendingObject> findArchivedLendingObjects(long lendingId) {
+        return em.createNamedQuery("ArchivedLendingObject.findOfLending", ArchivedLendingObject.class)
+                .setParameter("lendingId", lendingId).getResultList();
+    }
+
+    /**
+     * Gibt die archivierte Menge der Gegenstände eines Materials zurück, deren
+     * Ausleihe sich mit dem Zeitraum [begin, end] überschneidet.
+     *
+     * @param materialId Material
+     * @param begin Startdatum
+     * @param end Enddatum
+     * @return archivierte ausgeliehene Menge
+     */
+    public int getArchivedQuantityWithMaterialId(long materialId, java.util.Date begin, java.util.Date end) {
+        return ((Number) em.createNamedQuery("ArchivedLendingObject.getLentQuantity")
+                .setParameter("materialId", materialId)
+                .setParameter("startLendDate", new java.sql.Date(begin.getTime()))
+                .setParameter("endLendDate", new java.sql.Date(end.getTime()))
+                .getSingleResult()).intValue();
+    }
+
+
+    /**
+     * Zählt, ob eine Entity vor dem Laden bereits im Second-Level-Cache lag.
+     *
+     * @param type Klasse der Entity
+     * @param id Id der Entity
+     */
+    private void recordCacheAccess(Class<?> type, long id) {
+        if (this.metrics != null) {
+            this.metrics.recordCacheAccess(type.getSimpleName(),
+                    em.getEntityManagerFactory().getCache().contains(type, id));
         }
     }
 
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package database;
+
+import java.io.Serializable;
+import java.util.logging.Logger;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+/**
+ * Die Klasse SchemaMigration fuehrt beim Start der Anwendung Datenmigrationen
+ * aus, die sich nicht in SQL ausdruecken lassen. Die zugehoerigen
+ * DDL-Skripte liegen unter setup/migration.
+ */
+@ApplicationScoped
+public class SchemaMigration implements Serializable {
+
+    private static final Logger LOG = Logger.getLogger(SchemaMigration.class.getName());
+
+    /**
+     * Persistierer für den Zugriff auf die Datenbank.
+     */
+    @Inject
+    private Persistierer db;
+
+    /**
+     * Führt die Migrationen beim Start der Anwendung aus.
+     *
+     * @param event Initialisierungs-Event
+     */
+    public void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        int updated = this.db.backfillNormalizedNames();
+
+        if (updated > 0) {
+            LOG.info("Normalisierte Namen ergänzt: " + updated);
+        }
+    }
+}
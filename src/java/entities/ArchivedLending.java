@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package entities;
+
+import java.io.Serializable;
+import java.sql.Date;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+/**
+ * Die Klasse ArchivedLending stellt eine archivierte Ausleihe dar. Sie
+ * uebernimmt die Id der urspruenglichen Ausleihe und speichert Person und
+ * Zeitraum als einfache Spalten, damit das Archiv unabhaengig von spaeteren
+ * Aenderungen an Personen gelesen werden kann.
+ *
+ * Archivierte Ausleihen werden vom {@link database.LendingArchiver} angelegt
+ * und danach nicht mehr veraendert.
+ */
+@Entity
+@NamedQueries({
+    @NamedQuery(name = "ArchivedLending.fromLendings",
+            query = "SELECT NEW entities.ArchivedLending(l.id, p.id, p.name, "
+            + "MIN(lo.startDay), MAX(lo.endDay)) "
+            + "FROM Lending l LEFT JOIN l.person p LEFT JOIN l.lendings lo "
+            + "WHERE l.id IN :lendingIds "
+            + "GROUP BY l.id, p.id, p.name"),
+    @NamedQuery(name = "ArchivedLending.findPage",
+            query = "SELECT a FROM ArchivedLending a "
+            + "WHERE a.id > :lastId "
+            + "AND a.endLendDate >= :startLendDate "
+            + "AND a.startLendDate <= :endLendDate "
+            + "ORDER BY a.id"),
+    @NamedQuery(name = "ArchivedLending.findOfPerson",
+            query = "SELECT a FROM ArchivedLending a WHERE a.personId = :personId ORDER BY a.id"),})
+@Table(indexes = {
+    @Index(name = "IDX_ARCHIVEDLENDING_PERSON", columnList = "PERSONID")
+})
+public class ArchivedLending implements Serializable {
+
+    /**
+     * Id der urspruenglichen Ausleihe.
+     */
+    @Id
+    private long id;
+    /**
+     * Id der ausleihenden Person, null wenn keine Person zugeordnet war.
+     */
+    private Long personId;
+    /**
+     * Name der ausleihenden Person zum Zeitpunkt der Archivierung.
+     */
+    private String personName;
+    /**
+     * Fruehestes Startdatum der Ausleihobjekte, null wenn die Ausleihe keine
+     * Ausleihobjekte hatte.
+     */
+    private Date startLendDate;
+    /**
+     * Spaetestes Enddatum der Ausleihobjekte, null wenn die Ausleihe keine
+     * Ausleihobjekte hatte.
+     */
+    private Date endLendDate;
+    /**
+     * Tag der Archivierung.
+     */
+    private Date archivedOn;
+
+    /**
+     * Konstruktor fuer JPA.
+     */
+    public ArchivedLending() {
+
+    }
+
+    /**
+     * Erstellt eine archivierte Ausleihe mit dem heutigen Tag als
+     * Archivierungsdatum.
+     *
+     * @param id Id der urspruenglichen Ausleihe
+     * @param personId Id der ausleihenden Person
+     * @param personName Name der ausleihenden Person
+     * @param startDay fruehester Starttag als Epochentag oder null
+     * @param endDay spaetester Endtag als Epochentag oder null
+     */
+    public ArchivedLending(long id, Long personId, String personName, Integer startDay, Integer endDay) {
+        this.id = id;
+        this.personId = personId;
+        this.personName = personName;
+        this.startLendDate = EpochDays.toDate(startDay);
+        this.endLendDate = EpochDays.toDate(endDay);
+        this.archivedOn = new Date(System.currentTimeMillis());
+    }
+
+    /**
+     * Gibt die Id der urspruenglichen Ausleihe zurueck.
+     *
+     * @return Id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gibt die Id der ausleihenden Person zurueck.
+     *
+     * @return Id der Person
+     */
+    public Long getPersonId() {
+        return personId;
+    }
+
+    /**
+     * Gibt den Namen der ausleihenden Person zurueck.
+     *
+     * @return Name der Person
+     */
+    public String getPersonName() {
+        return personName;
+    }
+
+    /**
+     * Gibt das frueheste Startdatum zurueck.
+     *
+     * @return Startdatum
+     */
+    public Date getStartLendDate() {
+        return startLendDate;
+    }
+
+    /**
+     * Gibt das spaeteste Enddatum zurueck.
+     *
+     * @return Enddatum
+     */
+    public Date getEndLendDate() {
+        return endLendDate;
+    }
+
+    /**
+     * Gibt den Tag der Archivierung zurueck.
+     *
+     * @return Archivierungsdatum
+     */
+    public Date getArchivedOn() {
+        return archivedOn;
+    }
+}
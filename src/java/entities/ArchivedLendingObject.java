@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package entities;
+
+import java.io.Serializable;
+import java.sql.Date;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+/**
+ * Die Klasse ArchivedLendingObject stellt ein archiviertes Ausleihobjekt dar.
+ * Ausleihe und Material werden nur ueber ihre Id referenziert, der
+ * Materialname wird mitgespeichert.
+ */
+@Entity
+@NamedQueries({
+    @NamedQuery(name = "ArchivedLendingObject.fromLendings",
+            query = "SELECT NEW entities.ArchivedLendingObject(lo.id, l.id, m.id, m.name, "
+            + "lo.lendingQuantity, lo.startDay, lo.endDay) "
+            + "FROM LendingObject lo JOIN lo.lending l JOIN lo.type m "
+            + "WHERE l.id IN :lendingIds"),
+    @NamedQuery(name = "ArchivedLendingObject.findOfLending",
+            query = "SELECT a FROM ArchivedLendingObject a WHERE a.lendingId = :lendingId ORDER BY a.id"),
+    @NamedQuery(name = "ArchivedLendingObject.getLentQuantity",
+            query = "SELECT COALESCE(SUM(a.lendingQuantity), 0) FROM ArchivedLendingObject a "
+            + "WHERE a.materialId = :materialId "
+            + "AND a.startLendDate <= :endLendDate "
+            + "AND a.endLendDate >= :startLendDate"),})
+@Table(indexes = {
+    @Index(name = "IDX_ARCHIVEDLENDINGOBJECT_LENDING", columnList = "LENDINGID"),
+    @Index(name = "IDX_ARCHIVEDLENDINGOBJECT_MATERIAL_DATES", columnList = "MATERIALID, STARTLENDDATE, ENDLENDDATE")
+})
+public class ArchivedLendingObject implements Serializable {
+
+    /**
+     * Id des urspruenglichen Ausleihobjekts.
+     */
+    @Id
+    private long id;
+    /**
+     * Id der archivierten Ausleihe.
+     */
+    private long lendingId;
+    /**
+     * Id des ausgeliehenen Materials.
+     */
+    private long materialId;
+    /**
+     * Name des Materials zum Zeitpunkt der Archivierung.
+     */
+    private String materialName;
+    /**
+     * Anzahl der ausgeliehenen Gegenstaende.
+     */
+    private int lendingQuantity;
+    /**
+     * Startdatum der Ausleihe.
+     */
+    private Date startLendDate;
+    /**
+     * Enddatum der Ausleihe.
+     */
+    private Date endLendDate;
+
+    /**
+     * Konstruktor fuer JPA.
+     */
+    public ArchivedLendingObject() {
+
+    }
+
+    /**
+     * Erstellt ein archiviertes Ausleihobjekt.
+     *
+     * @param id Id des urspruenglichen Ausleihobjekts
+     * @param lendingId Id der Ausleihe
+     * @param materialId Id des Materials
+     * @param materialName Name des Materials
+     * @param lendingQuantity Anzahl
+     * @param startDay Starttag als Epochentag
+     * @param endDay Endtag als Epochentag
+     */
+    public ArchivedLendingObject(long id, long lendingId, long materialId, String materialName,
+            int lendingQuantity, int startDay, int endDay) {
+        this.id = id;
+        this.lendingId = lendingId;
+        this.materialId = materialId;
+        this.materialName = materialName;
+        this.lendingQuantity = lendingQuantity;
+        this.startLendDate = EpochDays.toDate(startDay);
+        this.endLendDate = EpochDays.toDate(endDay);
+    }
+
+    /**
+     * Gibt die Id des urspruenglichen Ausleihobjekts zurueck.
+     *
+     * @return Id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gibt die Id der archivierten Ausleihe zurueck.
+     *
+     * @return Id der Ausleihe
+     */
+    public long getLendingId() {
+        return lendingId;
+    }
+
+    /**
+     * Gibt die Id des Materials zurueck.
+     *
+     * @return Id des Materials
+     */
+    public long getMaterialId() {
+        return materialId;
+    }
+
+    /**
+     * Gibt den Namen des Materials zurueck.
+     *
+     * @return Name des Materials
+     */
+    public String getMaterialName() {
+        return materialName;
+    }
+
+    /**
+     * Gibt die Anzahl der ausgeliehenen Gegenstaende zurueck.
+     *
+     * @return Anzahl
+     */
+    public int getLendingQuantity() {
+        return lendingQuantity;
+    }
+
+    /**
+     * Gibt das Startdatum zurueck.
+     *
+     * @return Startdatum
+     */
+    public Date getStartLendDate() {
+        return startLendDate;
+    }
+
+    /**
+     * Gibt das Enddatum zurueck.
+     *
+     * @return Enddatum
+     */
+    public Date getEndLendDate() {
+        return endLendDate;
+    }
+}
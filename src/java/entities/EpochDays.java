@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package entities;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Die Klasse EpochDays rechnet zwischen Datumswerten und Epochentagen (Tage
+ * seit dem 01.01.1970) um. Ausleihzeitraeume werden als Epochentage
+ * gespeichert und verglichen, Date und LocalDate werden nur noch an den
+ * Raendern (Oberflaeche, Validierung, Export) erzeugt.
+ *
+ * Date-Werte werden in der lokalen Zeitzone ausgewertet, so wie es
+ * java.sql.Date bei der Speicherung getan hat.
+ */
+public final class EpochDays {
+
+    /**
+     * Systemproperty fuer die Anzahl der Tage ab heute, bis zu denen
+     * Ausleihen gebucht werden koennen.
+     */
+    public static final String HORIZON_DAYS_PROPERTY = "lending.horizonDays";
+    /**
+     * Standardwert fuer {@link #HORIZON_DAYS_PROPERTY}.
+     */
+    public static final int DEFAULT_HORIZON_DAYS = 730;
+
+    private EpochDays() {
+    }
+
+    /**
+     * Wandelt ein Datum in den Epochentag (lokale Zeitzone) um.
+     *
+     * @param date Datum
+     * @return Epochentag
+     */
+    public static int of(Date date) {
+        if (date instanceof java.sql.Date) {
+            return of(((java.sql.Date) date).toLocalDate());
+        }
+        return of(Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate());
+    }
+
+    /**
+     * Wandelt ein LocalDate in den Epochentag um.
+     *
+     * @param date Datum
+     * @return Epochentag
+     */
+    public static int of(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay());
+    }
+
+    /**
+     * Gibt das LocalDate zum Epochentag zurueck.
+     *
+     * @param epochDay Epochentag
+     * @return Datum
+     */
+    public static LocalDate toLocalDate(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Gibt das java.sql.Date zum Epochentag zurueck.
+     *
+     * @param epochDay Epochentag
+     * @return Datum
+     */
+    public static java.sql.Date toDate(int epochDay) {
+        return java.sql.Date.valueOf(LocalDate.ofEpochDay(epochDay));
+    }
+
+    /**
+     * Gibt das java.sql.Date zum Epochentag zurueck, null bleibt null.
+     *
+     * @param epochDay Epochentag oder null
+     * @return Datum oder null
+     */
+    public static java.sql.Date toDate(Integer epochDay) {
+        return epochDay == null ? null : toDate(epochDay.intValue());
+    }
+
+    /**
+     * Gibt den letzten buchbaren Tag zurueck, heute plus
+     * {@link #HORIZON_DAYS_PROPERTY} Tage.
+     *
+     * @return Epochentag
+     */
+    public static int lastBookableDay() {
+        return of(LocalDate.now()) + Math.max(Integer.getInteger(HORIZON_DAYS_PROPERTY, DEFAULT_HORIZON_DAYS), 0);
+    }
+
+    /**
+     * Prueft, ob ein Tag zwischen dem 01.01.1970 und dem letzten buchbaren
+     * Tag ({@link #lastBookableDay()}) liegt.
+     *
+     * @param epochDay Epochentag
+     * @return true, wenn der Tag gebucht werden kann
+     */
+    public static boolean isBookable(int epochDay) {
+        return epochDay >= 0 && epochDay <= lastBookableDay();
+    }
+
+    /**
+     * Prueft, ob sich die Zeitraeume [begin1, end1] und [begin2, end2]
+     * (jeweils einschliesslich) ueberschneiden.
+     *
+     * @param begin1 Starttag des ersten Zeitraums
+     * @param end1 Endtag des ersten Zeitraums
+     * @param begin2 Starttag des zweiten Zeitraums
+     * @param end2 Endtag des zweiten Zeitraums
+     * @return true, wenn sich die Zeitraeume ueberschneiden
+     */
+    public static boolean overlaps(int begin1, int end1, int begin2, int end2) {
+        return begin1 <= end2 && begin2 <= end1;
+    }
+}
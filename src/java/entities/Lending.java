@@ -19,10 +19,16 @@ import java.io.Serializable;
 import java.sql.Date;
 import java.util.ArrayList;
 import java.util.List;
+import javax.persistence.CascadeType;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedEntityGraphs;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
@@ -35,17 +41,21 @@ import javax.persistence.OneToMany;
  * @author Miriam
  */
 @Entity
+@NamedEntityGraphs({
+    @NamedEntityGraph(name = Lending.GRAPH_WITH_OBJECTS,
+            attributeNodes = {@NamedAttributeNode("person"), @NamedAttributeNode("lendings")}),
+    @NamedEntityGraph(name = Lending.GRAPH_SUMMARY,
+            attributeNodes = {@NamedAttributeNode("person")})
+})
 @NamedQueries({
     @NamedQuery(name = "Lending.getLendingObjectsQuantity",
             query = "SELECT SUM(lo.lendingQuantity) AS quantity "
-            + "FROM LendingObject lo, Lending l "
-            + "WHERE l.id = :lendingId "
-            + "AND lo MEMBER OF l.lendings"),
+            + "FROM LendingObject lo "
+            + "WHERE lo.lending.id = :lendingId"),
 
     @NamedQuery(name = "Lending.getLendingObjectsFromLending",
-            query = "SELECT lo FROM LendingObject lo, Lending l "
-            + "WHERE l.id = :lendingId "
-            + "AND lo MEMBER OF l.lendings"),
+            query = "SELECT lo FROM LendingObject lo "
+            + "WHERE lo.lending.id = :lendingId"),
 
     @NamedQuery(name = "Lending.getLendingsFromFromPersonId",
             query = "SELECT l FROM Lending l, Person p "
@@ -53,24 +63,55 @@ import javax.persistence.OneToMany;
             + "AND p.id = :personId"),
 
     @NamedQuery(name = "Lending.getMinDate",
-            query = "SELECT lo.startLendDate "
-            + "FROM LendingObject lo, Lending l, Person p "
-            + "WHERE l.person = p AND l.id = :lendingId "
-            + "ORDER BY lo.startLendDate ASC"),
+            query = "SELECT MIN(lo.startDay) "
+            + "FROM LendingObject lo "
+            + "WHERE lo.lending.id = :lendingId"),
 
     @NamedQuery(name = "Lending.getMaxDate",
-            query = "SELECT lo.endLendDate "
-            + "FROM LendingObject lo, Lending l, Person p "
-            + "WHERE l.person = p AND l.id = :lendingId "
-            + "ORDER BY lo.endLendDate DESC"),})
+            query = "SELECT MAX(lo.endDay) "
+            + "FROM LendingObject lo "
+            + "WHERE lo.lending.id = :lendingId"),
+
+    @NamedQuery(name = "Lending.getSummaries",
+            query = "SELECT NEW entities.LendingSummary(l.id, p.name, SUM(lo.lendingQuantity), "
+            + "MIN(lo.startDay), MAX(lo.endDay)) "
+            + "FROM Lending l LEFT JOIN l.person p LEFT JOIN l.lendings lo "
+            + "GROUP BY l.id, p.name "
+            + "ORDER BY l.id"),
+    @NamedQuery(name = "Lending.getSummariesPage",
+            query = "SELECT NEW entities.LendingSummary(l.id, p.name, SUM(lo.lendingQuantity), "
+            + "MIN(lo.startDay), MAX(lo.endDay)) "
+            + "FROM Lending l LEFT JOIN l.person p LEFT JOIN l.lendings lo "
+            + "WHERE l.id > :lastId "
+            + "GROUP BY l.id, p.name "
+            + "ORDER BY l.id"),
+    @NamedQuery(name = "Lending.findPage",
+            query = "SELECT l FROM Lending l WHERE l.id > :lastId ORDER BY l.id"),
+    @NamedQuery(name = "Lending.getIdsEndedBefore",
+            query = "SELECT l.id FROM Lending l LEFT JOIN l.lendings lo "
+            + "GROUP BY l.id "
+            + "HAVING COUNT(lo) = 0 OR MAX(lo.endDay) < :day "
+            + "ORDER BY l.id"),
+    @NamedQuery(name = "Lending.deleteByIds",
+            query = "DELETE FROM Lending l WHERE l.id IN :lendingIds"),})
 
 public class Lending implements Serializable {
 
+    /**
+     * Fetch-Plan mit Person und allen Ausleihobjekten, z.B. für die Ausleihen einer Person.
+     */
+    public static final String GRAPH_WITH_OBJECTS = "lending-with-objects";
+    /**
+     * Fetch-Plan nur mit der Person, für Listen von Ausleihen.
+     */
+    public static final String GRAPH_SUMMARY = "lending-summary";
+
     /**
      * Id der Ausleihe. Wird automatisch erzeugt.
+     * Der Generator LendingIds ist in orm.xml definiert.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "LendingIds")
     private long id;
     /**
      * Typ der auszuleihenden Gegenstaende.
@@ -78,9 +119,15 @@ public class Lending implements Serializable {
     /**
      * Ausleihende Person.
      */
+    @ManyToOne(fetch = FetchType.LAZY)
     private Person person;
 
-    @OneToMany(orphanRemoval = true)
+    /**
+     * Ausleihobjekte der Ausleihe. Die Zuordnung wird ueber die Spalte
+     * LENDING_ID in LendingObject gespeichert, neue Ausleihobjekte werden
+     * mit der Ausleihe persistiert.
+     */
+    @OneToMany(mappedBy = "lending", cascade = CascadeType.PERSIST, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<LendingObject> lendings;
 
     /**
@@ -140,6 +187,7 @@ public class Lending implements Serializable {
      */
     public void addLendingObject(LendingObject lendingObject) {
         this.lendings.add(lendingObject);
+        lendingObject.setLending(this);
     }
 
     /**
@@ -148,7 +196,9 @@ public class Lending implements Serializable {
      * @param lendingObject LendingObject
      */
     public void removeLendingOBject(LendingObject lendingObject) {
-        this.lendings.remove(lendingObject);
+        if (this.lendings.remove(lendingObject)) {
+            lendingObject.setLending(null);
+        }
     }
 
     /**
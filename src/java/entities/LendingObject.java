@@ -17,13 +17,20 @@
 package entities;
 
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.util.Date;
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.Table;
 import validation.annotation.LendingCheck;
 
 /**
@@ -36,36 +43,79 @@ import validation.annotation.LendingCheck;
 
 @NamedQueries({
     @NamedQuery(name = "LendingObject.getLenderName",
-            query = "SELECT p.name FROM Person p, Lending l, LendingObject lo where p = l.person AND lo MEMBER OF l.lendings AND lo.id = :lendingObjectId"),
+            query = "SELECT p.name FROM LendingObject lo JOIN lo.lending l JOIN l.person p WHERE lo.id = :lendingObjectId"),
     @NamedQuery(name = "LendingObject.getLendingsWithMaterial",
-            query = "SELECT lo from LendingObject lo where lo.type.id = :materialId")
+            query = "SELECT lo from LendingObject lo where lo.type.id = :materialId"),
+    @NamedQuery(name = "LendingObject.getLentQuantity",
+            query = "SELECT COALESCE(SUM(lo.lendingQuantity), 0) FROM LendingObject lo "
+            + "WHERE lo.type.id = :materialId "
+            + "AND lo.startDay <= :endDay "
+            + "AND lo.endDay >= :startDay"),
+    @NamedQuery(name = "LendingObject.getLentPeriods",
+            query = "SELECT lo.type.id, lo.startDay, lo.endDay, SUM(lo.lendingQuantity) FROM LendingObject lo "
+            + "WHERE lo.type.id IN :materialIds "
+            + "AND lo.startDay <= :endDay "
+            + "AND lo.endDay >= :startDay "
+            + "GROUP BY lo.type.id, lo.startDay, lo.endDay"),
+    @NamedQuery(name = "LendingObject.getSummariesPage",
+            query = "SELECT NEW entities.LendingObjectSummary(lo.id, m.name, lo.lendingQuantity, "
+            + "lo.startDay, lo.endDay, p.name) "
+            + "FROM LendingObject lo LEFT JOIN lo.type m LEFT JOIN lo.lending l LEFT JOIN l.person p "
+            + "WHERE lo.id > :lastId "
+            + "ORDER BY lo.id"),
+    @NamedQuery(name = "LendingObject.existsWithMaterial",
+            query = "SELECT lo.id FROM LendingObject lo WHERE lo.type.id = :materialId"),
+    @NamedQuery(name = "LendingObject.getRemovalsOfLendings",
+            query = "SELECT lo.type.id, lo.startDay, lo.endDay, lo.lendingQuantity "
+            + "FROM LendingObject lo WHERE lo.lending.id IN :lendingIds"),
+    @NamedQuery(name = "LendingObject.deleteOfLendings",
+            query = "DELETE FROM LendingObject lo WHERE lo.lending.id IN :lendingIds")
 })
 @Entity
+@Table(indexes = {
+    @Index(name = "IDX_LENDINGOBJECT_TYPE_DATES", columnList = "TYPE_ID, STARTDAY, ENDDAY"),
+    @Index(name = "IDX_LENDINGOBJECT_LENDING", columnList = "LENDING_ID")
+})
 @LendingCheck
 public class LendingObject implements Serializable {
 
+    /**
+     * Wert von Start- und Endtag, solange noch kein Zeitraum gesetzt ist.
+     */
+    public static final int NO_DAY = Integer.MIN_VALUE;
+
     /**
      * Id der Ausleihe. Wird automatisch erzeugt.
+     * Der Generator LendingObjectIds ist in orm.xml definiert.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "LendingObjectIds")
     private long id;
     /**
      * Typ der auszuleihenden Gegenstaende.
      */
     private Material type;
+    /**
+     * Ausleihe, zu der das Ausleihobjekt gehoert. Wird ueber
+     * {@link Lending#addLendingObject(LendingObject)} gesetzt.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "LENDING_ID")
+    private Lending lending;
     /**
      * Anzahl der auszuleihenden Gegenstaende.
      */
     private int lendingQuantity;
     /**
-     * Startdatum der Ausleihe.
+     * Starttag der Ausleihe als Epochentag, siehe {@link EpochDays}.
      */
-    private java.sql.Date startLendDate;
+    @Column(name = "STARTDAY", nullable = false)
+    private int startDay = NO_DAY;
     /**
-     * Enddatum der Ausleihe.
+     * Endtag der Ausleihe als Epochentag (einschliesslich).
      */
-    private java.sql.Date endLendDate;
+    @Column(name = "ENDDAY", nullable = false)
+    private int endDay = NO_DAY;
 
     /**
      * Erstellt ein Objekt vom Typ Lending ohne Eigenschaften.
@@ -89,11 +139,27 @@ public class LendingObject implements Serializable {
         this.type = type;
         this.lendingQuantity = lendingQuantity;
         if (endLendDate != null && startLendDate != null) {
-            this.startLendDate = new java.sql.Date(startLendDate.getTime());
-            this.endLendDate = new java.sql.Date(endLendDate.getTime());
+            this.startDay = EpochDays.of(startLendDate);
+            this.endDay = EpochDays.of(endLendDate);
         }
     }
 
+    /**
+     * Erstellt ein Objekt vom Typ Lending mit Gegenstandtyp, Anzahl der
+     * ausgeliehenen Gegenstaende und Start- und Endtag als Epochentage.
+     *
+     * @param type Gegenstandtyp
+     * @param lendingQuantity Anzahl der ausgeliehenen Gegenstaende
+     * @param startDay Starttag
+     * @param endDay Endtag
+     */
+    public LendingObject(Material type, int lendingQuantity, int startDay, int endDay) {
+        this.type = type;
+        this.lendingQuantity = lendingQuantity;
+        this.startDay = startDay;
+        this.endDay = endDay;
+    }
+
     /**
      * Gibt die Id der Ausleihe zurueck.
      *
@@ -103,13 +169,132 @@ public class LendingObject implements Serializable {
         return id;
     }
 
+    /**
+     * Gibt die Ausleihe zurueck, zu der das Ausleihobjekt gehoert.
+     *
+     * @return Ausleihe oder null, wenn es noch keiner zugeordnet ist
+     */
+    public Lending getLending() {
+        return lending;
+    }
+
+    /**
+     * Setzt die Ausleihe, zu der das Ausleihobjekt gehoert.
+     *
+     * @param lending Ausleihe
+     */
+    void setLending(Lending lending) {
+        this.lending = lending;
+    }
+
+    /**
+     * Gibt den Starttag der Ausleihe als Epochentag zurueck.
+     *
+     * @return Starttag oder {@link #NO_DAY}
+     */
+    public int getStartDay() {
+        return startDay;
+    }
+
+    /**
+     * Gibt den Endtag der Ausleihe als Epochentag zurueck.
+     *
+     * @return Endtag oder {@link #NO_DAY}
+     */
+    public int getEndDay() {
+        return endDay;
+    }
+
+    /**
+     * Gibt zurueck, ob Start- und Endtag gesetzt sind.
+     *
+     * @return true, wenn der Zeitraum gesetzt ist
+     */
+    public boolean hasPeriod() {
+        return startDay != NO_DAY && endDay != NO_DAY;
+    }
+
     /**
      * Gibt das Startdatum der Ausleihe zurueck.
      *
-     * @return Startdatum der Ausleihe
+     * @return Startdatum oder null
+     */
+    public LocalDate getStartDate() {
+        return startDay == NO_DAY ? null : EpochDays.toLocalDate(startDay);
+    }
+
+    /**
+     * Gibt das Enddatum der Ausleihe zurueck.
+     *
+     * @return Enddatum oder null
+     */
+    public LocalDate getEndDate() {
+        return endDay == NO_DAY ? null : EpochDays.toLocalDate(endDay);
+    }
+
+    /**
+     * Setzt den Zeitraum der Ausleihe neu.
+     *
+     * @param startDate Startdatum
+     * @param endDate Enddatum (einschliesslich)
+     */
+    public void setPeriod(LocalDate startDate, LocalDate endDate) {
+        this.startDay = EpochDays.of(startDate);
+        this.endDay = EpochDays.of(endDate);
+    }
+
+    /**
+     * Prueft, ob sich die Ausleihe mit dem Zeitraum [beginDay, endDay]
+     * (Epochentage, jeweils einschliesslich) ueberschneidet.
+     *
+     * @param beginDay Starttag
+     * @param endDay Endtag
+     * @return true, wenn sich die Zeitraeume ueberschneiden
+     */
+    public boolean overlaps(int beginDay, int endDay) {
+        return hasPeriod() && EpochDays.overlaps(this.startDay, this.endDay, beginDay, endDay);
+    }
+
+    /**
+     * Prueft, ob sich die Ausleihe mit dem Zeitraum [begin, end]
+     * ueberschneidet.
+     *
+     * @param begin Startdatum
+     * @param end Enddatum
+     * @return true, wenn sich die Zeitraeume ueberschneiden
+     */
+    public boolean overlaps(LocalDate begin, LocalDate end) {
+        return overlaps(EpochDays.of(begin), EpochDays.of(end));
+    }
+
+    /**
+     * Prueft, ob der Tag (Epochentag) im Zeitraum der Ausleihe liegt.
+     *
+     * @param day Tag
+     * @return true, wenn der Tag zwischen Start- und Endtag liegt
+     */
+    public boolean contains(int day) {
+        return hasPeriod() && this.startDay <= day && day <= this.endDay;
+    }
+
+    /**
+     * Prueft, ob das Datum im Zeitraum der Ausleihe liegt.
+     *
+     * @param date Datum
+     * @return true, wenn das Datum zwischen Start- und Enddatum liegt
+     */
+    public boolean contains(LocalDate date) {
+        return contains(EpochDays.of(date));
+    }
+
+    /**
+     * Gibt das Startdatum der Ausleihe zurueck, z.B. fuer die Oberflaeche.
+     * Fuer Berechnungen {@link #getStartDay()} verwenden.
+     *
+     * @return Startdatum der Ausleihe oder null
      */
     public Date getStartLendDate() {
-        return startLendDate;
+        return startDay == NO_DAY ? null : EpochDays.toDate(startDay);
     }
 
     /**
@@ -118,16 +303,17 @@ public class LendingObject implements Serializable {
      * @param startLendDate Startdatum der Ausleihe
      */
     public void setStartLendDate(Date startLendDate) {
-        this.startLendDate = new java.sql.Date(startLendDate.getTime());
+        this.startDay = startLendDate == null ? NO_DAY : EpochDays.of(startLendDate);
     }
 
     /**
-     * Gibt das Enddatum der Ausleihe zurueck.
+     * Gibt das Enddatum der Ausleihe zurueck, z.B. fuer die Oberflaeche.
+     * Fuer Berechnungen {@link #getEndDay()} verwenden.
      *
-     * @return Enddatum der Ausleihe
+     * @return Enddatum der Ausleihe oder null
      */
     public Date getEndLendDate() {
-        return endLendDate;
+        return endDay == NO_DAY ? null : EpochDays.toDate(endDay);
     }
 
     /**
@@ -136,8 +322,7 @@ public class LendingObject implements Serializable {
      * @param endLendDate Enddatum der Ausleihe
      */
     public void setEndLendDate(Date endLendDate) {
-        this.endLendDate = new java.sql.Date(endLendDate.getTime());
-
+        this.endDay = endLendDate == null ? NO_DAY : EpochDays.of(endLendDate);
     }
 
     /**
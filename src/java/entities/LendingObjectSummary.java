@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package entities;
+
+import java.io.Serializable;
+import java.sql.Date;
+
+/**
+ * Die Klasse LendingObjectSummary fasst ein Ausleihobjekt fuer die Uebersicht
+ * zusammen: Material, Menge, Zeitraum und ausleihende Person. Sie ist keine
+ * Entity, sondern wird ueber eine JPQL Konstruktor-Abfrage befuellt, die nur
+ * diese Spalten liest.
+ */
+public class LendingObjectSummary implements Serializable {
+
+    /**
+     * Id des Ausleihobjekts.
+     */
+    private final long lendingObjectId;
+    /**
+     * Name des Materials.
+     */
+    private final String materialName;
+    /**
+     * Anzahl der ausgeliehenen Gegenstaende.
+     */
+    private final int lendingQuantity;
+    /**
+     * Startdatum.
+     */
+    private final Date startLendDate;
+    /**
+     * Enddatum.
+     */
+    private final Date endLendDate;
+    /**
+     * Name der ausleihenden Person.
+     */
+    private final String personName;
+
+    /**
+     * Erstellt eine neue Zusammenfassung.
+     *
+     * @param lendingObjectId Id des Ausleihobjekts
+     * @param materialName Name des Materials
+     * @param lendingQuantity Anzahl der Gegenstaende
+     * @param startDay Starttag als Epochentag
+     * @param endDay Endtag als Epochentag
+     * @param personName Name der Person, null wenn das Ausleihobjekt keiner
+     * Ausleihe zugeordnet ist
+     */
+    public LendingObjectSummary(long lendingObjectId, String materialName, int lendingQuantity,
+            int startDay, int endDay, String personName) {
+        this.lendingObjectId = lendingObjectId;
+        this.materialName = materialName;
+        this.lendingQuantity = lendingQuantity;
+        this.startLendDate = EpochDays.toDate(startDay);
+        this.endLendDate = EpochDays.toDate(endDay);
+        this.personName = personName;
+    }
+
+    /**
+     * Gibt die Id des Ausleihobjekts zurueck.
+     *
+     * @return Id des Ausleihobjekts
+     */
+    public long getLendingObjectId() {
+        return lendingObjectId;
+    }
+
+    /**
+     * Gibt den Namen des Materials zurueck.
+     *
+     * @return Name des Materials
+     */
+    public String getMaterialName() {
+        return materialName;
+    }
+
+    /**
+     * Gibt die Anzahl der ausgeliehenen Gegenstaende zurueck.
+     *
+     * @return Anzahl
+     */
+    public int getLendingQuantity() {
+        return lendingQuantity;
+    }
+
+    /**
+     * Gibt das Startdatum zurueck.
+     *
+     * @return Startdatum
+     */
+    public Date getStartLendDate() {
+        return startLendDate;
+    }
+
+    /**
+     * Gibt das Enddatum zurueck.
+     *
+     * @return Enddatum
+     */
+    public Date getEndLendDate() {
+        return endLendDate;
+    }
+
+    /**
+     * Gibt den Namen der ausleihenden Person zurueck.
+     *
+     * @return Name der Person
+     */
+    public String getPersonName() {
+        return personName;
+    }
+}
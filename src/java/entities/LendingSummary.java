@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package entities;
+
+import java.io.Serializable;
+import java.sql.Date;
+
+/**
+ * Die Klasse LendingSummary fasst eine Ausleihe fuer die Uebersicht zusammen:
+ * ausleihende Person, Gesamtmenge sowie fruehestes Start- und spaetestes
+ * Enddatum. Sie ist keine Entity, sondern wird ueber eine JPQL
+ * Konstruktor-Abfrage befuellt.
+ */
+public class LendingSummary implements Serializable {
+
+    /**
+     * Id der Ausleihe.
+     */
+    private final long lendingId;
+    /**
+     * Name der ausleihenden Person.
+     */
+    private final String personName;
+    /**
+     * Gesamtmenge der ausgeliehenen Gegenstaende.
+     */
+    private final int lendingQuantity;
+    /**
+     * Fruehestes Startdatum.
+     */
+    private final Date minStartLendDate;
+    /**
+     * Spaetestes Enddatum.
+     */
+    private final Date maxEndLendDate;
+
+    /**
+     * Erstellt eine neue Zusammenfassung.
+     *
+     * @param lendingId Id der Ausleihe
+     * @param personName Name der Person
+     * @param lendingQuantity Gesamtmenge, null wenn die Ausleihe leer ist
+     * @param minStartDay fruehester Starttag als Epochentag, null wenn die
+     * Ausleihe leer ist
+     * @param maxEndDay spaetester Endtag als Epochentag, null wenn die
+     * Ausleihe leer ist
+     */
+    public LendingSummary(long lendingId, String personName, Long lendingQuantity,
+            Integer minStartDay, Integer maxEndDay) {
+        this.lendingId = lendingId;
+        this.personName = personName;
+        this.lendingQuantity = lendingQuantity == null ? 0 : lendingQuantity.intValue();
+        this.minStartLendDate = EpochDays.toDate(minStartDay);
+        this.maxEndLendDate = EpochDays.toDate(maxEndDay);
+    }
+
+    /**
+     * Gibt die Id der Ausleihe zurueck.
+     *
+     * @return Id der Ausleihe
+     */
+    public long getLendingId() {
+        return lendingId;
+    }
+
+    /**
+     * Gibt den Namen der ausleihenden Person zurueck.
+     *
+     * @return Name der Person
+     */
+    public String getPersonName() {
+        return personName;
+    }
+
+    /**
+     * Gibt die Gesamtmenge der ausgeliehenen Gegenstaende zurueck.
+     *
+     * @return Gesamtmenge
+     */
+    public int getLendingQuantity() {
+        return lendingQuantity;
+    }
+
+    /**
+     * Gibt das frueheste Startdatum zurueck.
+     *
+     * @return fruehestes Startdatum
+     */
+    public Date getMinStartLendDate() {
+        return minStartLendDate;
+    }
+
+    /**
+     * Gibt das spaeteste Enddatum zurueck.
+     *
+     * @return spaetestes Enddatum
+     */
+    public Date getMaxEndLendDate() {
+        return maxEndLendDate;
+    }
+}
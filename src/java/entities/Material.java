@@ -16,10 +16,18 @@
 package entities;
 
 import java.io.Serializable;
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.Version;
 
 /**
  * Die Klasse Material stellt einen Materialtypen mit Id, eingespeister Anzahl,
@@ -28,14 +36,30 @@ import javax.persistence.Id;
  * @author Miriam
  */
 @Entity
+@Cacheable
+@NamedQueries({
+    @NamedQuery(name = "Material.findByNormalizedName",
+            query = "SELECT m FROM Material m WHERE m.normalizedName = :normalizedName"),
+    @NamedQuery(name = "Material.findWithoutNormalizedName",
+            query = "SELECT m FROM Material m WHERE m.normalizedName IS NULL"),
+    @NamedQuery(name = "Material.getNormalizedNames",
+            query = "SELECT m.normalizedName, m.id FROM Material m"),
+    @NamedQuery(name = "Material.findPage",
+            query = "SELECT m FROM Material m WHERE m.id > :lastId ORDER BY m.id"),
+    @NamedQuery(name = "Material.getStamp",
+            query = "SELECT COUNT(m), MAX(m.id), SUM(m.version) FROM Material m"),})
+@Table(indexes = {
+    @Index(name = "IDX_MATERIAL_NORMALIZEDNAME", columnList = "NORMALIZEDNAME", unique = true)
+})
 //@MaterialCheck
 public class Material implements Serializable {
 
     /**
      * Id des erstellten Materials. Wird automatisch erstellt.
+     * Der Generator MaterialIds ist in orm.xml definiert.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "MaterialIds")
 
     private long id;
     /**
@@ -48,10 +72,21 @@ public class Material implements Serializable {
      */    
 
     private String name;
+    /**
+     * Normalisierter Name des Materials, siehe
+     * {@link NameNormalizer#normalize(String)}.
+     */
+    private String normalizedName;
     /**
      * Beschreibung des erstellten Materials.
      */
     private String description;
+    /**
+     * Version fuer das optimistische Sperren, wird bei jeder Aenderung
+     * erhoeht.
+     */
+    @Version
+    private long version;
 
     /**
      * Erstellt ein neues Objekt vom Typ Material ohne Attribute.
@@ -69,7 +104,7 @@ public class Material implements Serializable {
      * @param quantity Menge des Materials
      */
     public Material(String name, String description, int quantity) {
-        this.name = name;
+        this.setName(name);
         this.description = description;
         this.quantity = quantity;
 
@@ -110,6 +145,15 @@ public class Material implements Serializable {
         return id;
     }
 
+    /**
+     * Gibt die Version des Materials zurueck.
+     *
+     * @return Version
+     */
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * Gibt die Menge des Materials zurueck.
      *
@@ -144,6 +188,25 @@ public class Material implements Serializable {
      */
     public void setName(String name) {
         this.name = name;
+        this.updateNormalizedName();
+    }
+
+    /**
+     * Gibt den normalisierten Namen des Materials zurueck.
+     *
+     * @return normalisierter Name
+     */
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+
+    /**
+     * Berechnet den normalisierten Namen aus dem Namen neu.
+     */
+    @PrePersist
+    @PreUpdate
+    public void updateNormalizedName() {
+        this.normalizedName = this.name == null ? null : NameNormalizer.normalize(this.name);
     }
 
     /**
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package entities;
+
+import java.util.Locale;
+
+/**
+ * Der NameNormalizer wandelt Namen in ihre konforme Schreibweise um (ä, ö, ü
+ * und ß werden ausgeschrieben, danach wird alles kleingeschrieben). Das
+ * Ergebnis entspricht genau der frueheren Umsetzung mit String.replace und
+ * toLowerCase, wird aber in einem Durchlauf ueber eine vorberechnete
+ * Zeichentabelle erzeugt.
+ *
+ * Zeichen ausserhalb der Tabelle sowie Sprachumgebungen mit eigenen
+ * Kleinschreibregeln (tr, az, lt) werden ueber die alte Umsetzung behandelt.
+ */
+public final class NameNormalizer {
+
+    /**
+     * Anzahl der Zeichen in der Tabelle (Latin-1 und Latin Extended-A/B).
+     */
+    private static final int TABLE_SIZE = 0x250;
+    /**
+     * Ersetzung pro Zeichen, null wenn das Zeichen unveraendert bleibt.
+     */
+    private static final char[][] TABLE = new char[TABLE_SIZE][];
+    /**
+     * Wiederverwendbarer Schreibpuffer pro Thread.
+     */
+    private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[64];
+        }
+    };
+
+    static {
+        for (char c = 0; c < TABLE_SIZE; c++) {
+            String mapped = legacyNormalize(String.valueOf(c), Locale.ROOT);
+            if (mapped.length() != 1 || mapped.charAt(0) != c) {
+                TABLE[c] = mapped.toCharArray();
+            }
+        }
+    }
+
+    private NameNormalizer() {
+    }
+
+    /**
+     * Gibt den konformen Namen zurueck. Ist der Name bereits konform, wird
+     * das uebergebene Objekt selbst zurueckgegeben.
+     *
+     * @param string zu konvertierender String
+     * @return konformer String
+     */
+    public static String normalize(String string) {
+        if (!isTableLocale()) {
+            return legacyNormalize(string, Locale.getDefault());
+        }
+
+        int length = string.length();
+        int i = 0;
+        while (i < length) {
+            char c = string.charAt(i);
+            if (c >= TABLE_SIZE) {
+                return legacyNormalize(string, Locale.getDefault());
+            }
+            if (TABLE[c] != null) {
+                break;
+            }
+            i++;
+        }
+        if (i == length) {
+            return string;
+        }
+
+        char[] buffer = BUFFER.get();
+        if (buffer.length < length * 2) {
+            buffer = new char[length * 2];
+            BUFFER.set(buffer);
+        }
+
+        string.getChars(0, i, buffer, 0);
+        int written = i;
+        for (; i < length; i++) {
+            char c = string.charAt(i);
+            if (c >= TABLE_SIZE) {
+                return legacyNormalize(string, Locale.getDefault());
+            }
+            char[] mapped = TABLE[c];
+            if (mapped == null) {
+                buffer[written++] = c;
+            } else {
+                for (char m : mapped) {
+                    buffer[written++] = m;
+                }
+            }
+        }
+
+        return new String(buffer, 0, written);
+    }
+
+    /**
+     * Prueft, ob zwei Namen in konformer Schreibweise gleich sind, ohne dabei
+     * neue Strings zu erzeugen.
+     *
+     * @param a erster Name
+     * @param b zweiter Name
+     * @return true, wenn die konformen Namen gleich sind, false wenn nicht
+     */
+    public static boolean equalsNormalized(String a, String b) {
+        if (!isTableLocale()) {
+            return normalize(a).equals(normalize(b));
+        }
+
+        int lengthA = a.length();
+        int lengthB = b.length();
+        int posA = 0;
+        int posB = 0;
+        char[] pendingA = null;
+        char[] pendingB = null;
+        int pendingPosA = 0;
+        int pendingPosB = 0;
+
+        while (true) {
+            int charA;
+            if (pendingA != null) {
+                charA = pendingA[pendingPosA++];
+                if (pendingPosA == pendingA.length) {
+                    pendingA = null;
+                }
+            } else if (posA < lengthA) {
+                char c = a.charAt(posA++);
+                if (c >= TABLE_SIZE) {
+                    return normalize(a).equals(normalize(b));
+                }
+                char[] mapped = TABLE[c];
+                if (mapped == null) {
+                    charA = c;
+                } else {
+                    charA = mapped[0];
+                    if (mapped.length > 1) {
+                        pendingA = mapped;
+                        pendingPosA = 1;
+                    }
+                }
+            } else {
+                charA = -1;
+            }
+
+            int charB;
+            if (pendingB != null) {
+                charB = pendingB[pendingPosB++];
+                if (pendingPosB == pendingB.length) {
+                    pendingB = null;
+                }
+            } else if (posB < lengthB) {
+                char c = b.charAt(posB++);
+                if (c >= TABLE_SIZE) {
+                    return normalize(a).equals(normalize(b));
+                }
+                char[] mapped = TABLE[c];
+                if (mapped == null) {
+                    charB = c;
+                } else {
+                    charB = mapped[0];
+                    if (mapped.length > 1) {
+                        pendingB = mapped;
+                        pendingPosB = 1;
+                    }
+                }
+            } else {
+                charB = -1;
+            }
+
+            if (charA != charB) {
+                return false;
+            }
+            if (charA == -1) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Die fruehere Umsetzung von LendingSystem.makeStringConform.
+     *
+     * @param string zu konvertierender String
+     * @param locale Sprachumgebung fuer die Kleinschreibung
+     * @return konformer String
+     */
+    static String legacyNormalize(String string, Locale locale) {
+        String stringConform = string.replace("ä", "ae");
+        stringConform = stringConform.replace("ü", "ue");
+        stringConform = stringConform.replace("ö", "oe");
+        stringConform = stringConform.replace("ß", "ss");
+        stringConform = stringConform.toLowerCase(locale);
+
+        return stringConform;
+    }
+
+    private static boolean isTableLocale() {
+        String language = Locale.getDefault().getLanguage();
+
+        return !("tr".equals(language) || "az".equals(language) || "lt".equals(language));
+    }
+}
@@ -16,12 +16,17 @@
 package entities;
 
 import java.io.Serializable;
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
 
 /**
  * Die Klasse Person stellt eine Person mit einem Namen und einer Id dar.
@@ -30,21 +35,39 @@ import javax.persistence.NamedQuery;
  * @author Miriam
  */
 @Entity
+@Cacheable
 @NamedQueries({
     @NamedQuery(name = "Person.getLendingObjectQuantity",
-            query = "SELECT SUM(lo.lendingQuantity) AS quantity FROM LendingObject lo, Lending l, Person p WHERE p.id = :personId AND l.person = p AND lo MEMBER OF l.lendings"),})
+            query = "SELECT SUM(lo.lendingQuantity) AS quantity FROM LendingObject lo JOIN lo.lending l WHERE l.person.id = :personId"),
+    @NamedQuery(name = "Person.getLendingObjectQuantities",
+            query = "SELECT p.id, SUM(lo.lendingQuantity) FROM Lending l JOIN l.person p JOIN l.lendings lo GROUP BY p.id"),
+    @NamedQuery(name = "Person.findByNormalizedName",
+            query = "SELECT p FROM Person p WHERE p.normalizedName = :normalizedName"),
+    @NamedQuery(name = "Person.findWithoutNormalizedName",
+            query = "SELECT p FROM Person p WHERE p.normalizedName IS NULL"),
+    @NamedQuery(name = "Person.findPage",
+            query = "SELECT p FROM Person p WHERE p.id > :lastId ORDER BY p.id"),})
+@Table(indexes = {
+    @Index(name = "IDX_PERSON_NORMALIZEDNAME", columnList = "NORMALIZEDNAME", unique = true)
+})
 public class Person implements Serializable {
 
     /**
      * Id der Person. Wird automatisch erstellt.
+     * Der Generator PersonIds ist in orm.xml definiert.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "PersonIds")
     private long id;
     /**
      * Name der Person.
      */
     private String name;
+    /**
+     * Normalisierter Name der Person, siehe
+     * {@link NameNormalizer#normalize(String)}.
+     */
+    private String normalizedName;
 
     /**
      * Erstellt eine Person ohne Eigenschaften.
@@ -59,7 +82,7 @@ public class Person implements Serializable {
      * @param name Name der Person
      */
     public Person(String name) {
-        this.name = name;
+        this.setName(name);
     }
 
     /**
@@ -87,6 +110,25 @@ public class Person implements Serializable {
      */
     public void setName(String name) {
         this.name = name;
+        this.updateNormalizedName();
+    }
+
+    /**
+     * Gibt den normalisierten Namen der Person zurueck.
+     *
+     * @return normalisierter Name
+     */
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+
+    /**
+     * Berechnet den normalisierten Namen aus dem Namen neu.
+     */
+    @PrePersist
+    @PreUpdate
+    public void updateNormalizedName() {
+        this.normalizedName = this.name == null ? null : NameNormalizer.normalize(this.name);
     }
 
 }
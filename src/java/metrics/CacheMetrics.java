@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package metrics;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Messwerte eines Caches: Anzahl der Treffer und Fehlzugriffe.
+ */
+public class CacheMetrics implements Serializable {
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    /**
+     * Erstellt leere Messwerte.
+     */
+    CacheMetrics() {
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    void record(boolean hit) {
+        if (hit) {
+            this.hits.incrementAndGet();
+        } else {
+            this.misses.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gibt die Anzahl der Treffer zurueck.
+     *
+     * @return Anzahl der Treffer
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Gibt die Anzahl der Fehlzugriffe zurueck.
+     *
+     * @return Anzahl der Fehlzugriffe
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Gibt den Anteil der Treffer an allen Zugriffen zurueck.
+     *
+     * @return Trefferquote zwischen 0 und 1, 0 ohne Zugriffe
+     */
+    public double getHitRatio() {
+        long h = this.getHits();
+        long total = h + this.getMisses();
+
+        return total == 0 ? 0 : (double) h / total;
+    }
+}
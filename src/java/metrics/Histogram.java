@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package metrics;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramm mit logarithmisch wachsenden Klassen. Werte unter 16 werden
+ * exakt gezaehlt, darueber wird jede Zweierpotenz in acht Klassen geteilt.
+ * Ein Perzentil ist damit hoechstens 12,5 % zu hoch. Das Eintragen ist
+ * threadsicher und kommt ohne Lock aus.
+ */
+class Histogram implements Serializable {
+
+    private static final int EXACT = 16;
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BITS = 3;
+    private static final int BUCKETS = EXACT + (63 - 4) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong count;
+    private final AtomicLong max;
+
+    /**
+     * Erstellt ein leeres Histogramm.
+     */
+    Histogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Traegt einen Wert ein. Negative Werte werden als 0 gezaehlt.
+     *
+     * @param value Wert
+     */
+    void record(long value) {
+        long v = Math.max(value, 0);
+
+        this.counts.incrementAndGet(index(v));
+        this.count.incrementAndGet();
+
+        long current = this.max.get();
+        while (v > current && !this.max.compareAndSet(current, v)) {
+            current = this.max.get();
+        }
+    }
+
+    /**
+     * Gibt die Anzahl der eingetragenen Werte zurueck.
+     *
+     * @return Anzahl
+     */
+    long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Gibt den groessten eingetragenen Wert zurueck.
+     *
+     * @return Maximum, 0 wenn nichts eingetragen wurde
+     */
+    long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Gibt das Perzentil zurueck, z.B. 0.99 fuer p99.
+     *
+     * @param quantile Anteil zwischen 0 und 1
+     * @return Obergrenze der Klasse, in der das Perzentil liegt, 0 wenn
+     * nichts eingetragen wurde
+     */
+    long getPercentile(double quantile) {
+        long total = this.count.get();
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), this.max.get());
+            }
+        }
+
+        return this.max.get();
+    }
+
+    static int index(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+
+        return EXACT + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+
+        int exponent = (index - EXACT) / SUB_BUCKETS + 4;
+        int sub = (index - EXACT) % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+}
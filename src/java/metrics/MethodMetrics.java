@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package metrics;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Messwerte einer Methode: Anzahl der Aufrufe, fehlgeschlagene und langsame
+ * Aufrufe, Laufzeit und Groesse der zurueckgegebenen Ergebnisse.
+ */
+public class MethodMetrics implements Serializable {
+
+    private final AtomicLong failures;
+    private final AtomicLong slowCalls;
+    private final Histogram latency;
+    private final Histogram resultSize;
+
+    /**
+     * Erstellt leere Messwerte.
+     */
+    MethodMetrics() {
+        this.failures = new AtomicLong();
+        this.slowCalls = new AtomicLong();
+        this.latency = new Histogram();
+        this.resultSize = new Histogram();
+    }
+
+    void record(long nanos, int size, boolean failed, boolean slow) {
+        this.latency.record(nanos);
+        if (size >= 0) {
+            this.resultSize.record(size);
+        }
+        if (failed) {
+            this.failures.incrementAndGet();
+        }
+        if (slow) {
+            this.slowCalls.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gibt die Anzahl der Aufrufe zurueck.
+     *
+     * @return Anzahl der Aufrufe
+     */
+    public long getCalls() {
+        return this.latency.getCount();
+    }
+
+    /**
+     * Gibt die Anzahl der Aufrufe zurueck, die mit einer Exception beendet
+     * wurden.
+     *
+     * @return Anzahl der fehlgeschlagenen Aufrufe
+     */
+    public long getFailures() {
+        return this.failures.get();
+    }
+
+    /**
+     * Gibt die Anzahl der Aufrufe zurueck, die laenger als der Schwellwert
+     * der Registry gedauert haben.
+     *
+     * @return Anzahl der langsamen Aufrufe
+     */
+    public long getSlowCalls() {
+        return this.slowCalls.get();
+    }
+
+    /**
+     * Gibt ein Perzentil der Laufzeit zurueck.
+     *
+     * @param quantile Anteil zwischen 0 und 1, z.B. 0.95
+     * @return Laufzeit in Nanosekunden
+     */
+    public long getLatencyPercentile(double quantile) {
+        return this.latency.getPercentile(quantile);
+    }
+
+    /**
+     * Gibt die laengste gemessene Laufzeit zurueck.
+     *
+     * @return Laufzeit in Nanosekunden
+     */
+    public long getMaxLatency() {
+        return this.latency.getMax();
+    }
+
+    /**
+     * Gibt die Anzahl der Aufrufe zurueck, die eine Liste, Map oder ein Array
+     * geliefert haben.
+     *
+     * @return Anzahl der Ergebnisse
+     */
+    public long getResults() {
+        return this.resultSize.getCount();
+    }
+
+    /**
+     * Gibt ein Perzentil der Ergebnisgroesse zurueck.
+     *
+     * @param quantile Anteil zwischen 0 und 1, z.B. 0.95
+     * @return Anzahl der Elemente
+     */
+    public long getResultSizePercentile(double quantile) {
+        return this.resultSize.getPercentile(quantile);
+    }
+
+    /**
+     * Gibt die groesste gelieferte Ergebnisgroesse zurueck.
+     *
+     * @return Anzahl der Elemente
+     */
+    public long getMaxResultSize() {
+        return this.resultSize.getMax();
+    }
+}
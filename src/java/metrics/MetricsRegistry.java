@@ -0,0 +1,183 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package metrics;
+
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Die MetricsRegistry sammelt die Messwerte des {@link TimingInterceptor} pro
+ * Methode im Speicher. Aufrufe ueber dem Schwellwert werden zusaetzlich mit
+ * Level WARNING protokolliert. Ausserdem werden Treffer und Fehlzugriffe von Caches gezaehlt.
+ */
+@ApplicationScoped
+public class MetricsRegistry implements Serializable {
+
+    /**
+     * Systemproperty bzw. Context-Parameter fuer den Schwellwert langsamer
+     * Aufrufe in Millisekunden.
+     */
+    public static final String SLOW_CALL_PROPERTY = "metrics.slowCallMillis";
+    /**
+     * Standard-Schwellwert langsamer Aufrufe in Millisekunden.
+     */
+    public static final long DEFAULT_SLOW_CALL_MILLIS = 250;
+
+    private static final Logger LOG = Logger.getLogger(MetricsRegistry.class.getName());
+
+    /**
+     * Messwerte pro Methode, Schluessel ist Klasse.Methode.
+     */
+    private final ConcurrentMap<String, MethodMetrics> methods;
+    /**
+     * Messwerte pro Cache.
+     */
+    private final ConcurrentMap<String, CacheMetrics> caches;
+    /**
+     * Schwellwert langsamer Aufrufe in Nanosekunden.
+     */
+    private volatile long slowCallNanos;
+
+    /**
+     * Erstellt eine leere MetricsRegistry.
+     */
+    public MetricsRegistry() {
+        this.methods = new ConcurrentHashMap<>();
+        this.caches = new ConcurrentHashMap<>();
+        this.setSlowCallMillis(Long.getLong(SLOW_CALL_PROPERTY, DEFAULT_SLOW_CALL_MILLIS));
+    }
+
+    /**
+     * Traegt einen Aufruf ein.
+     *
+     * @param method Name der Methode
+     * @param nanos Dauer in Nanosekunden
+     * @param resultSize Groesse des Ergebnisses, negativ wenn das Ergebnis
+     * keine Liste war
+     * @param failed true, wenn der Aufruf mit einer Exception beendet wurde
+     */
+    public void record(String method, long nanos, int resultSize, boolean failed) {
+        MethodMetrics metrics = this.methods.get(method);
+        if (metrics == null) {
+            metrics = this.methods.computeIfAbsent(method, k -> new MethodMetrics());
+        }
+
+        boolean slow = nanos >= this.slowCallNanos;
+        metrics.record(nanos, resultSize, failed, slow);
+
+        if (slow && LOG.isLoggable(Level.WARNING)) {
+            LOG.warning("Langsamer Aufruf: " + method + " " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms"
+                    + (resultSize >= 0 ? ", " + resultSize + " Ergebnisse" : ""));
+        }
+    }
+
+    /**
+     * Traegt einen Zugriff auf einen Cache ein.
+     *
+     * @param cache Name des Caches
+     * @param hit true, wenn der Eintrag im Cache lag
+     */
+    public void recordCacheAccess(String cache, boolean hit) {
+        CacheMetrics metrics = this.caches.get(cache);
+        if (metrics == null) {
+            metrics = this.caches.computeIfAbsent(cache, k -> new CacheMetrics());
+        }
+
+        metrics.record(hit);
+    }
+
+    /**
+     * Gibt die Messwerte aller bisher verwendeten Caches zurueck.
+     *
+     * @return Messwerte, nach Name des Caches sortiert
+     */
+    public SortedMap<String, CacheMetrics> getCaches() {
+        return new TreeMap<>(this.caches);
+    }
+
+    /**
+     * Gibt die Messwerte aller bisher aufgerufenen Methoden zurueck.
+     *
+     * @return Messwerte, nach Methodenname sortiert
+     */
+    public SortedMap<String, MethodMetrics> getMethods() {
+        return new TreeMap<>(this.methods);
+    }
+
+    /**
+     * Gibt die Messwerte einer Methode zurueck.
+     *
+     * @param method Name der Methode (Klasse.Methode)
+     * @return Messwerte oder null, wenn die Methode nicht aufgerufen wurde
+     */
+    public MethodMetrics getMethod(String method) {
+        return this.methods.get(method);
+    }
+
+    /**
+     * Gibt den Schwellwert langsamer Aufrufe zurueck.
+     *
+     * @return Schwellwert in Millisekunden
+     */
+    public long getSlowCallMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.slowCallNanos);
+    }
+
+    /**
+     * Setzt den Schwellwert langsamer Aufrufe.
+     *
+     * @param millis Schwellwert in Millisekunden
+     */
+    public void setSlowCallMillis(long millis) {
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Verwirft alle Messwerte.
+     */
+    public void clear() {
+        this.methods.clear();
+        this.caches.clear();
+    }
+
+    /**
+     * Gibt die Groesse eines Ergebnisses zurueck.
+     *
+     * @param result Ergebnis eines Aufrufs
+     * @return Anzahl der Elemente bei Listen, Maps und Arrays, sonst -1
+     */
+    static int sizeOf(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        } else if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        } else if (result != null && result.getClass().isArray()) {
+            return Array.getLength(result);
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Gibt die Messwerte der {@link MetricsRegistry} als Text im
+ * Prometheus-Format unter /metrics aus. Der Schwellwert langsamer Aufrufe
+ * kann ueber den Context-Parameter {@value MetricsRegistry#SLOW_CALL_PROPERTY}
+ * in der web.xml gesetzt werden, eine gleichnamige Systemproperty hat Vorrang.
+ * Zusaetzlich werden Treffer, Fehlzugriffe und Trefferquote der Caches
+ * ausgegeben.
+ */
+@WebServlet(urlPatterns = "/metrics", loadOnStartup = 1)
+public class MetricsServlet extends HttpServlet {
+
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * Registry mit den Messwerten.
+     */
+    @Inject
+    private MetricsRegistry registry;
+
+    @Override
+    public void init() throws ServletException {
+        String slowCallMillis = getServletContext().getInitParameter(MetricsRegistry.SLOW_CALL_PROPERTY);
+
+        if (slowCallMillis != null && System.getProperty(MetricsRegistry.SLOW_CALL_PROPERTY) == null) {
+            try {
+                this.registry.setSlowCallMillis(Long.parseLong(slowCallMillis.trim()));
+            } catch (NumberFormatException e) {
+                throw new ServletException("Ungueltiger Wert fuer " + MetricsRegistry.SLOW_CALL_PROPERTY + ": " + slowCallMillis, e);
+            }
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        response.setContentType("text/plain; version=0.0.4");
+        response.setCharacterEncoding("UTF-8");
+
+        PrintWriter out = response.getWriter();
+        Map<String, MethodMetrics> methods = this.registry.getMethods();
+
+        out.println("# TYPE lending_calls_total counter");
+        for (Map.Entry<String, MethodMetrics> e : methods.entrySet()) {
+            out.println("lending_calls_total{method=\"" + e.getKey() + "\"} " + e.getValue().getCalls());
+        }
+        out.println("# TYPE lending_call_failures_total counter");
+        for (Map.Entry<String, MethodMetrics> e : methods.entrySet()) {
+            out.println("lending_call_failures_total{method=\"" + e.getKey() + "\"} " + e.getValue().getFailures());
+        }
+        out.println("# TYPE lending_slow_calls_total counter");
+        for (Map.Entry<String, MethodMetrics> e : methods.entrySet()) {
+            out.println("lending_slow_calls_total{method=\"" + e.getKey() + "\"} " + e.getValue().getSlowCalls());
+        }
+
+        out.println("# TYPE lending_call_seconds summary");
+        for (Map.Entry<String, MethodMetrics> e : methods.entrySet()) {
+            MethodMetrics m = e.getValue();
+            for (double q : QUANTILES) {
+                out.println("lending_call_seconds{method=\"" + e.getKey() + "\",quantile=\"" + q + "\"} "
+                        + seconds(m.getLatencyPercentile(q)));
+            }
+            out.println("lending_call_seconds_max{method=\"" + e.getKey() + "\"} " + seconds(m.getMaxLatency()));
+        }
+
+        out.println("# TYPE lending_result_size summary");
+        for (Map.Entry<String, MethodMetrics> e : methods.entrySet()) {
+            MethodMetrics m = e.getValue();
+            if (m.getResults() == 0) {
+                continue;
+            }
+            for (double q : QUANTILES) {
+                out.println("lending_result_size{method=\"" + e.getKey() + "\",quantile=\"" + q + "\"} "
+                        + m.getResultSizePercentile(q));
+            }
+            out.println("lending_result_size_max{method=\"" + e.getKey() + "\"} " + m.getMaxResultSize());
+        }
+
+        Map<String, CacheMetrics> caches = this.registry.getCaches();
+
+        out.println("# TYPE lending_cache_hits_total counter");
+        for (Map.Entry<String, CacheMetrics> e : caches.entrySet()) {
+            out.println("lending_cache_hits_total{cache=\"" + e.getKey() + "\"} " + e.getValue().getHits());
+        }
+        out.println("# TYPE lending_cache_misses_total counter");
+        for (Map.Entry<String, CacheMetrics> e : caches.entrySet()) {
+            out.println("lending_cache_misses_total{cache=\"" + e.getKey() + "\"} " + e.getValue().getMisses());
+        }
+        out.println("# TYPE lending_cache_hit_ratio gauge");
+        for (Map.Entry<String, CacheMetrics> e : caches.entrySet()) {
+            out.println("lending_cache_hit_ratio{cache=\"" + e.getKey() + "\"} "
+                    + String.format(Locale.ROOT, "%.4f", e.getValue().getHitRatio()));
+        }
+
+        out.println("# TYPE lending_slow_call_threshold_seconds gauge");
+        out.println("lending_slow_call_threshold_seconds " + this.registry.getSlowCallMillis() / 1000.0);
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.6f", nanos / NANOS_PER_SECOND);
+    }
+}
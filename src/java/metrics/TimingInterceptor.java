@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package metrics;
+
+import java.io.Serializable;
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+/**
+ * Der TimingInterceptor misst die Dauer aller Aufrufe von Methoden, die mit
+ * {@link Timed} markiert sind, und traegt sie zusammen mit der Groesse des
+ * Ergebnisses in die {@link MetricsRegistry} ein.
+ */
+@Timed
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class TimingInterceptor implements Serializable {
+
+    /**
+     * Registry, in die die Messwerte eingetragen werden.
+     */
+    @Inject
+    private MetricsRegistry registry;
+
+    /**
+     * Misst den Aufruf.
+     *
+     * @param context Aufrufkontext
+     * @return Ergebnis des Aufrufs
+     * @throws Exception Exception des Aufrufs
+     */
+    @AroundInvoke
+    public Object time(InvocationContext context) throws Exception {
+        long start = System.nanoTime();
+        Object result = null;
+        boolean failed = true;
+
+        try {
+            result = context.proceed();
+            failed = false;
+            return result;
+        } finally {
+            String name = context.getMethod().getDeclaringClass().getSimpleName()
+                    + "." + context.getMethod().getName();
+            this.registry.record(name, System.nanoTime() - start, MetricsRegistry.sizeOf(result), failed);
+        }
+    }
+}
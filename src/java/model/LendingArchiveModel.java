@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package model;
+
+import database.Persistierer;
+import entities.ArchivedLending;
+import entities.ArchivedLendingObject;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import metrics.Timed;
+
+/**
+ * Die Klasse LendingArchiveModel stellt lesende Funktionen auf das Archiv
+ * beendeter Ausleihen bereit, z.B. fuer Pruefungen. Aktuelle Ausleihen
+ * liefert das {@link LendingModel}.
+ */
+@Timed
+@Dependent
+public class LendingArchiveModel implements Serializable {
+
+    /**
+     * Persistierer für den Zugriff auf die Datenbank.
+     */
+    @Inject
+    private Persistierer db;
+
+    /**
+     * Erstellt ein neues LendingArchiveModel ohne Eigenschaften.
+     */
+    public LendingArchiveModel() {
+        this.db = new Persistierer();
+    }
+
+    /**
+     * Gibt eine Seite archivierter Ausleihen im Zeitraum [begin, end] zurück.
+     *
+     * @param begin Startdatum
+     * @param end Enddatum
+     * @param lastId zuletzt gesehene Id, 0 für die erste Seite
+     * @param pageSize maximale Anzahl der Ausleihen
+     * @return Liste archivierter Ausleihen
+     */
+    public List<ArchivedLending> getArchivedLendingsAfter(Date begin, Date end, long lastId, int pageSize) {
+        return db.findArchivedLendingsAfter(begin, end, lastId, pageSize);
+    }
+
+    /**
+     * Gibt alle archivierten Ausleihen einer Person zurück.
+     *
+     * @param personId Personid
+     * @return Liste archivierter Ausleihen
+     */
+    public List<ArchivedLending> getArchivedLendingsOfPerson(long personId) {
+        return db.findArchivedLendingsOfPerson(personId);
+    }
+
+    /**
+     * Gibt die archivierten Ausleihobjekte einer Ausleihe zurück.
+     *
+     * @param lendingId Ausleihid
+     * @return Liste archivierter Ausleihobjekte
+     */
+    public List<ArchivedLendingObject> getArchivedLendingObjects(long lendingId) {
+        return db.findArchivedLendingObjects(lendingId);
+    }
+
+    /**
+     * Gibt die archivierte Menge eines Materials im Zeitraum [begin, end]
+     * zurück.
+     *
+     * @param materialId Materialid
+     * @param begin Startdatum
+     * @param end Enddatum
+     * @return archivierte ausgeliehene Menge
+     */
+    public int getArchivedQuantityWithMaterialId(long materialId, Date begin, Date end) {
+        return db.getArchivedQuantityWithMaterialId(materialId, begin, end);
+    }
+}
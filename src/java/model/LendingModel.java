@@ -17,6 +17,8 @@ package model;
 
 import database.Persistierer;
 import entities.Lending;
+import entities.LendingObject;
+import entities.LendingSummary;
 import entities.Material;
 import entities.Person;
 import java.io.Serializable;
@@ -24,6 +26,7 @@ import java.sql.Date;
 import java.util.List;
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
+import metrics.Timed;
 
 /**
  * Die Klasse LendingModel stellt abstrahierte Funktionen zur Erstellung und
@@ -31,6 +34,7 @@ import javax.inject.Inject;
  *
  * @author Fabian
  */
+@Timed
 @Dependent
 public class LendingModel implements Serializable {
 
@@ -86,6 +90,28 @@ public class LendingModel implements Serializable {
         }
     }
 
+    /**
+     * Erstellt eine neue Ausleihe der Person mit den uebergebenen
+     * Ausleihobjekten und persistiert sie. Neue Ausleihobjekte werden dabei
+     * mitpersistiert.
+     *
+     * @param person Ausleihende Person
+     * @param lendingObjects Ausleihobjekte
+     * @return Persistierte Ausleihe
+     */
+    public Lending createLending(Person person, List<LendingObject> lendingObjects) {
+        Lending tmp = new Lending();
+        tmp.setPerson(person);
+
+        for (LendingObject lo : lendingObjects) {
+            tmp.addLendingObject(lo);
+        }
+
+        db.persist(tmp);
+
+        return tmp;
+    }
+
     /**
      * Erstellt eine neue leere Ausleihe.
      *
@@ -118,6 +144,37 @@ public class LendingModel implements Serializable {
         return db.findAllLendings();
     }
 
+    /**
+     * Gibt die Zusammenfassungen aller Ausleihen zurück.
+     *
+     * @return Liste der Zusammenfassungen
+     */
+    public List<LendingSummary> getLendingSummaries() {
+        return db.findAllLendingSummaries();
+    }
+
+    /**
+     * Gibt eine Seite von Ausleihen zurück.
+     *
+     * @param lastId zuletzt gesehene Id, 0 für die erste Seite
+     * @param pageSize maximale Anzahl der Ausleihen
+     * @return Liste der Ausleihen
+     */
+    public List<Lending> getLendingsAfter(long lastId, int pageSize) {
+        return db.findLendingsAfter(lastId, pageSize);
+    }
+
+    /**
+     * Gibt eine Seite von Zusammenfassungen zurück.
+     *
+     * @param lastId zuletzt gesehene Id einer Ausleihe, 0 für die erste Seite
+     * @param pageSize maximale Anzahl der Zusammenfassungen
+     * @return Liste der Zusammenfassungen
+     */
+    public List<LendingSummary> getLendingSummariesAfter(long lastId, int pageSize) {
+        return db.findLendingSummariesAfter(lastId, pageSize);
+    }
+
     /**
      * Löscht eine Ausleihe anhand der Id.
      *
@@ -127,6 +184,16 @@ public class LendingModel implements Serializable {
         db.removeLending(id);
     }
 
+    /**
+     * Löscht alle Ausleihen, die vor dem übergebenen Datum enden.
+     *
+     * @param date Stichtag
+     * @return Anzahl der gelöschten Ausleihen
+     */
+    public int deleteLendingsEndedBefore(java.util.Date date) {
+        return db.removeLendingsEndedBefore(date);
+    }
+
     /**
      * Gibt Menge der Ausleihobjekte über die Ausleihid zurück.
      *
@@ -142,7 +209,8 @@ public class LendingModel implements Serializable {
      * Gibt das früheste Datum der Ausleihe zurück.
      *
      * @param lendingId Ausleihe
-     * @return frühestes Datum
+     * @return frühestes Datum oder null, wenn die Ausleihe keine
+     * Ausleihobjekte hat
      */
     public java.sql.Date getMinDateFromLendingId(long lendingId) {
         return db.getMinDateFromLendingId(lendingId);
@@ -152,7 +220,8 @@ public class LendingModel implements Serializable {
      * Gibt das spätestes Datum der Ausleihe zurück.
      *
      * @param lendingId Ausleihe
-     * @return spätestes Datum
+     * @return spätestes Datum oder null, wenn die Ausleihe keine
+     * Ausleihobjekte hat
      */
     public java.sql.Date getMaxDateFromLendingId(long lendingId) {
         return db.getMaxDateFromLendingId(lendingId);
@@ -15,19 +15,25 @@
  */
 package model;
 
+import database.LendingObjectChange;
 import database.Persistierer;
 import entities.LendingObject;
+import entities.LendingObjectSummary;
 import entities.Material;
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.enterprise.context.Dependent;
+import javax.enterprise.event.Event;
 import javax.faces.application.FacesMessage;
 import javax.faces.context.FacesContext;
 import javax.inject.Inject;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
+import metrics.Timed;
 
 /**
  * Die Klasse LendingModel stellt abstrahierte Funktionen zur Erstellung und
@@ -35,6 +41,7 @@ import javax.validation.ConstraintViolationException;
  *
  * @author Fabian
  */
+@Timed
 @Dependent
 public class LendingObjectModel implements Serializable {
 
@@ -48,6 +55,11 @@ public class LendingObjectModel implements Serializable {
      */
     @Inject
     private MaterialModel material;
+    /**
+     * Event zur Benachrichtigung über neue Ausleihobjekte.
+     */
+    @Inject
+    private Event<LendingObjectChange> changes;
 
     /**
      * Erstellt ein neues LendingObjectModel ohne Eigenschaften.
@@ -75,23 +87,14 @@ public class LendingObjectModel implements Serializable {
 
             if (tmp != null) {
                 db.persist(tmp);
-            }
 
-        } catch (Exception e) {
-            Throwable t = e;
-
-            while (t != null) {
-                if (t instanceof ConstraintViolationException) {
-                    FacesContext context = FacesContext.getCurrentInstance();
-                    Set<ConstraintViolation<?>> constraintViolations = ((ConstraintViolationException) t).getConstraintViolations();
-                    for (ConstraintViolation<?> constraintViolation : constraintViolations) {
-                        FacesMessage facesMessage = new FacesMessage(constraintViolation.getMessage());
-                        facesMessage.setSeverity(FacesMessage.SEVERITY_ERROR);
-                        context.addMessage(null, facesMessage);
-                    }
+                if (this.changes != null) {
+                    this.changes.fire(LendingObjectChange.added(tmp));
                 }
-                t = t.getCause();
             }
+
+        } catch (Exception e) {
+            addConstraintViolations(e);
             db.remove(tmp);
             return null;
         }
@@ -100,6 +103,49 @@ public class LendingObjectModel implements Serializable {
 
     }
 
+    /**
+     * Persistiert die übergebenen Ausleihobjekte gebündelt über
+     * {@link Persistierer#persistAll(java.util.Collection)}.
+     *
+     * @param lendingObjects neue Ausleihobjekte
+     * @return true, wenn alle gespeichert wurden, false wenn nicht
+     */
+    public boolean createNewLendingObjects(List<LendingObject> lendingObjects) {
+        try {
+            db.persistAll(lendingObjects);
+        } catch (Exception e) {
+            addConstraintViolations(e);
+            return false;
+        }
+
+        if (this.changes != null) {
+            for (LendingObject lo : lendingObjects) {
+                this.changes.fire(LendingObjectChange.added(lo));
+            }
+        }
+
+        return true;
+    }
+
+    private static void addConstraintViolations(Exception e) {
+        Throwable t = e;
+
+        while (t != null) {
+            if (t instanceof ConstraintViolationException) {
+                FacesContext context = FacesContext.getCurrentInstance();
+                Set<ConstraintViolation<?>> constraintViolations = ((ConstraintViolationException) t).getConstraintViolations();
+                for (ConstraintViolation<?> constraintViolation : constraintViolations) {
+                    FacesMessage facesMessage = new FacesMessage(constraintViolation.getMessage());
+                    facesMessage.setSeverity(FacesMessage.SEVERITY_ERROR);
+                    if (context != null) {
+                        context.addMessage(null, facesMessage);
+                    }
+                }
+            }
+            t = t.getCause();
+        }
+    }
+
     /**
      * Gibt alle Ausleihobjekte zurück.
      *
@@ -109,6 +155,27 @@ public class LendingObjectModel implements Serializable {
         return db.findAllLendingObjects();
     }
 
+    /**
+     * Gibt eine Seite von Zusammenfassungen der Ausleihobjekte zurück.
+     *
+     * @param lastId zuletzt gesehene Id, 0 für die erste Seite
+     * @param pageSize maximale Anzahl der Ausleihobjekte
+     * @return Liste der Zusammenfassungen
+     */
+    public List<LendingObjectSummary> getLendingObjectSummariesAfter(long lastId, int pageSize) {
+        return db.findLendingObjectSummariesAfter(lastId, pageSize);
+    }
+
+    /**
+     * Prüft, ob es Ausleihobjekte eines Materials gibt.
+     *
+     * @param materialId Materialid
+     * @return true, wenn es mindestens ein Ausleihobjekt gibt
+     */
+    public boolean hasLendingObjectsWithMaterialId(long materialId) {
+        return db.hasLendingObjectsWithMaterialId(materialId);
+    }
+
     /**
      * Gibt alle Ausleihobjekte über die Materialid zurück.
      *
@@ -119,6 +186,32 @@ public class LendingObjectModel implements Serializable {
         return db.getLendingObjectsWithMaterialId(materialId);
     }
 
+    /**
+     * Gibt die Menge der Gegenstaende eines Materials zurück, die im Zeitraum
+     * [beginDay, endDay] (Epochentage) ausgeliehen sind.
+     *
+     * @param materialId Materialid
+     * @param beginDay Starttag
+     * @param endDay Endtag
+     * @return ausgeliehene Menge
+     */
+    public int getLentQuantityWithMaterialId(long materialId, int beginDay, int endDay) {
+        return db.getLentQuantityWithMaterialId(materialId, beginDay, endDay);
+    }
+
+    /**
+     * Gibt die ausgeliehene Menge der Materialien pro Tag im Zeitraum
+     * [beginDay, endDay] (Epochentage) zurück.
+     *
+     * @param materialIds Materialids
+     * @param beginDay Starttag
+     * @param endDay Endtag
+     * @return ausgeliehene Menge pro Tag je Materialid, Index 0 ist beginDay
+     */
+    public Map<Long, int[]> getLentQuantitiesPerDay(Collection<Long> materialIds, int beginDay, int endDay) {
+        return db.getLentQuantitiesPerDay(materialIds, beginDay, endDay);
+    }
+
     /**
      * Gibt Namen der ausleihenden Person zuruück.
      *
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package model;
+
+import database.Persistierer;
+import entities.Material;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import metrics.MetricsRegistry;
+
+/**
+ * Der MaterialCatalog haelt alle Materialien im Speicher, damit wiederholte
+ * Abfragen beim Rendern der Seiten nicht jedes Mal die Datenbank lesen. Nach
+ * jeder Aenderung an einem Material wird der Katalog ueber
+ * {@link #invalidate()} verworfen und beim naechsten Zugriff neu geladen.
+ *
+ * Aenderungen auf anderen Servern erkennt der Katalog ueber die Kennung
+ * {@link Persistierer#getMaterialStamp()}. Sie wird spaetestens nach
+ * {@link #CHECK_MILLIS_PROPERTY} Millisekunden erneut abgefragt; weicht sie ab,
+ * wird der Katalog neu geladen.
+ *
+ * Die gelieferten Materialien werden von allen Sitzungen geteilt und duerfen
+ * nicht veraendert werden, ohne anschliessend {@link #invalidate()}
+ * aufzurufen. Treffer und Fehlzugriffe werden in der {@link MetricsRegistry}
+ * unter {@value #CACHE_NAME} gezaehlt.
+ */
+@ApplicationScoped
+public class MaterialCatalog implements Serializable {
+
+    /**
+     * Name des Katalogs in der {@link MetricsRegistry}.
+     */
+    public static final String CACHE_NAME = "MaterialCatalog";
+    /**
+     * Systemproperty fuer den Abstand in Millisekunden, in dem die Kennung
+     * der Materialien in der Datenbank abgefragt wird. Bei 0 wird sie bei
+     * jedem Zugriff abgefragt.
+     */
+    public static final String CHECK_MILLIS_PROPERTY = "catalog.checkMillis";
+    /**
+     * Standardwert fuer {@link #CHECK_MILLIS_PROPERTY}.
+     */
+    public static final int DEFAULT_CHECK_MILLIS = 1000;
+
+    /**
+     * Persistierer für den Zugriff auf die Datenbank.
+     */
+    @Inject
+    private Persistierer db;
+    /**
+     * Messwerte, hier fuer Treffer und Fehlzugriffe des Katalogs.
+     */
+    @Inject
+    private MetricsRegistry metrics;
+    /**
+     * Zuletzt geladener Stand des Katalogs, null wenn noch nichts geladen
+     * wurde. Er ist nur gueltig, solange seine Version der aktuellen
+     * entspricht.
+     */
+    private final AtomicReference<Snapshot> snapshot;
+    /**
+     * Version des Katalogs, wird bei jeder Invalidierung erhoeht.
+     */
+    private final AtomicLong version;
+    /**
+     * Abstand, in dem die Kennung in der Datenbank abgefragt wird, in
+     * Nanosekunden.
+     */
+    private final long checkNanos;
+
+    /**
+     * Erstellt einen leeren MaterialCatalog.
+     */
+    public MaterialCatalog() {
+        this.db = new Persistierer();
+        this.snapshot = new AtomicReference<>();
+        this.version = new AtomicLong();
+        this.checkNanos = TimeUnit.MILLISECONDS.toNanos(
+                Math.max(0, Integer.getInteger(CHECK_MILLIS_PROPERTY, DEFAULT_CHECK_MILLIS)));
+    }
+
+    /**
+     * Gibt alle Materialien zurueck.
+     *
+     * @return unveraenderliche Liste der Materialien
+     */
+    public List<Material> getMaterials() {
+        return this.current().materials;
+    }
+
+    /**
+     * Sucht ein Material ueber die Id.
+     *
+     * @param id Id
+     * @return Material oder null, wenn es nicht existiert
+     */
+    public Material findMaterial(long id) {
+        return this.current().byId.get(id);
+    }
+
+    /**
+     * Sucht ein Material ueber den normalisierten Namen.
+     *
+     * @param normalizedName normalisierter Name
+     * @return Material oder null, wenn es nicht existiert
+     */
+    public Material findMaterialByNormalizedName(String normalizedName) {
+        return this.current().byNormalizedName.get(normalizedName);
+    }
+
+    /**
+     * Verwirft den Katalog. Der naechste Zugriff laedt ihn neu.
+     */
+    public void invalidate() {
+        this.version.incrementAndGet();
+        this.snapshot.set(null);
+    }
+
+    /**
+     * Gibt die Kennung des Stands der Materialien zurueck, aus dem der
+     * Katalog geladen wurde (siehe {@link Persistierer#getMaterialStamp()}).
+     * Server, die denselben Stand geladen haben, liefern dieselbe Kennung.
+     *
+     * @return Kennung
+     */
+    public String getStamp() {
+        return this.current().stamp;
+    }
+
+    /**
+     * Gibt die aktuelle Version des Katalogs zurueck. Sie aendert sich bei
+     * jeder Invalidierung.
+     *
+     * @return Version
+     */
+    public long getVersion() {
+        return this.version.get();
+    }
+
+    private Snapshot current() {
+        Snapshot current = this.snapshot.get();
+        long currentVersion = this.version.get();
+
+        if (current != null && current.version == currentVersion && this.isUpToDate(current)) {
+            this.recordAccess(true);
+            return current;
+        }
+
+        this.recordAccess(false);
+        // Kennung vor den Materialien lesen: aendert sich dazwischen etwas,
+        // weicht sie bei der naechsten Pruefung ab und es wird neu geladen.
+        String stamp = this.db.getMaterialStamp();
+        Snapshot loaded = new Snapshot(currentVersion, stamp, this.db.findAllMaterials());
+
+        // Wird waehrend des Ladens invalidiert, bleibt der geladene Stand mit
+        // seiner alten Version beim naechsten Zugriff unbenutzt.
+        this.snapshot.compareAndSet(current, loaded);
+        return loaded;
+    }
+
+    private boolean isUpToDate(Snapshot current) {
+        long now = System.nanoTime();
+
+        if (now - current.checkedAt < this.checkNanos) {
+            return true;
+        }
+        if (!this.db.getMaterialStamp().equals(current.stamp)) {
+            return false;
+        }
+
+        current.checkedAt = now;
+        return true;
+    }
+
+    private void recordAccess(boolean hit) {
+        if (this.metrics != null) {
+            this.metrics.recordCacheAccess(CACHE_NAME, hit);
+        }
+    }
+
+    /**
+     * Unveraenderlicher Stand des Katalogs, nur der Zeitpunkt der letzten
+     * Pruefung gegen die Datenbank wird fortgeschrieben.
+     */
+    private static class Snapshot {
+
+        private final long version;
+        private final String stamp;
+        private final List<Material> materials;
+        private final Map<Long, Material> byId;
+        private final Map<String, Material> byNormalizedName;
+        private volatile long checkedAt;
+
+        Snapshot(long version, String stamp, List<Material> materials) {
+            this.version = version;
+            this.stamp = stamp;
+            this.checkedAt = System.nanoTime();
+            this.materials = Collections.unmodifiableList(materials);
+            this.byId = new HashMap<>();
+            this.byNormalizedName = new HashMap<>();
+
+            for (Material m : materials) {
+                this.byId.put(m.getId(), m);
+                if (m.getNormalizedName() != null) {
+                    this.byNormalizedName.put(m.getNormalizedName(), m);
+                }
+            }
+        }
+    }
+}
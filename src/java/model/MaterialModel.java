@@ -15,12 +15,16 @@
  */
 package model;
 
+import controller.LendingSystem;
 import database.Persistierer;
 import entities.Material;
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
+import metrics.Timed;
 
 /**
  * Die Klasse MaterialModel stellt abstrahierte Funktionen zur Erstellung,
@@ -28,6 +32,7 @@ import javax.inject.Inject;
  *
  * @author Miriam
  */
+@Timed
 @Dependent
 public class MaterialModel implements Serializable {
 
@@ -36,6 +41,11 @@ public class MaterialModel implements Serializable {
      */
     @Inject
     private Persistierer db;
+    /**
+     * Zwischenspeicher aller Materialien.
+     */
+    @Inject
+    private MaterialCatalog catalog;
     /**
      * Id des Materials.
      */
@@ -58,6 +68,7 @@ public class MaterialModel implements Serializable {
      */
     public MaterialModel() {
         db = new Persistierer();
+        catalog = new MaterialCatalog();
     }
 
     /**
@@ -75,18 +86,88 @@ public class MaterialModel implements Serializable {
         if (db != null && tmp != null) {
 
             db.persist(tmp);
+            catalog.invalidate();
         }
 
         return tmp;
     }
 
+    /**
+     * Persistiert mehrere neue Materialien gebündelt.
+     *
+     * @param materials neue Materialien
+     */
+    public void createMaterials(List<Material> materials) {
+
+        if (db != null && !materials.isEmpty()) {
+
+            db.persistAll(materials);
+            catalog.invalidate();
+        }
+    }
+
+    /**
+     * Persistiert eine große Menge neuer Materialien. Der Persistenzkontext
+     * wird dabei blockweise geleert, die übergebenen Materialien sind danach
+     * nicht mehr verwaltet.
+     *
+     * @param materials neue Materialien
+     */
+    public void importMaterials(List<Material> materials) {
+
+        if (db != null && !materials.isEmpty()) {
+
+            db.persistAll(materials, true);
+            catalog.invalidate();
+        }
+    }
+
+    /**
+     * Erhöht die Menge mehrerer Materialien wie
+     * {@link #updateMaterial(long, String, int)}, aber in einer Transaktion.
+     *
+     * @param quantities zu addierende Menge pro MaterialId
+     * @param descriptions Beschreibung pro MaterialId
+     * @return Anzahl der aktualisierten Materialien
+     */
+    public int updateMaterials(Map<Long, Integer> quantities, Map<Long, String> descriptions) {
+
+        if (quantities.isEmpty()) {
+            return 0;
+        }
+
+        int result = db.increaseMaterialQuantities(quantities, descriptions);
+        catalog.invalidate();
+        return result;
+    }
+
+    /**
+     * Gibt die Ids aller Materialien über den normalisierten Namen zurück.
+     *
+     * @return MaterialId pro normalisiertem Namen
+     */
+    public Map<String, Long> getMaterialIdsByNormalizedName() {
+        return db.getMaterialIdsByNormalizedName();
+    }
+
     /**
      * Gibt die Liste aller Materialien zurueck.
      *
      * @return Liste von Materialien
      */
     public List<Material> getMaterials() {
-        return db.findAllMaterials();
+        return catalog.getMaterials();
+    }
+
+    /**
+     * Gibt eine Seite von Materialien direkt aus der Datenbank zurueck.
+     *
+     * @param lastId zuletzt gesehene Id, 0 fuer die erste Seite
+     * @param pageSize maximale Anzahl der Materialien
+     * @return Liste von Materialien
+     */
+    public List<Material> getMaterialsAfter(long lastId, int pageSize) {
+        return db.findMaterialsAfter(lastId, pageSize);
     }
 
     /**
@@ -96,6 +177,7 @@ public class MaterialModel implements Serializable {
     public void deleteMaterial(long pId) {
 
         db.removeMaterial(pId);
+        catalog.invalidate();
     }
 
     @Override
@@ -147,6 +229,7 @@ public class MaterialModel implements Serializable {
      */
     public void saveChanges(Material material) {
         db.merge(material);
+        catalog.invalidate();
     }
 
     /**
@@ -159,6 +242,7 @@ public class MaterialModel implements Serializable {
 
         material.increaseQuantity(count);
         db.merge(material);
+        catalog.invalidate();
     }
 
     /**
@@ -171,6 +255,7 @@ public class MaterialModel implements Serializable {
 
         material.decreaseQuantity(count);
         db.merge(material);
+        catalog.invalidate();
     }
 
     /**
@@ -207,7 +292,42 @@ public class MaterialModel implements Serializable {
      * @return Material
      */
     public Material findMaterial(long id) {
-        return this.db.findMaterial(id);
+        return this.catalog.findMaterial(id);
+    }
+
+    /**
+     * Sperrt die Materialien in der Datenbank bis zum Ende der laufenden
+     * Transaktion.
+     *
+     * @param materialIds Ids der Materialien
+     * @return gesperrte Materialien mit ihrem aktuellen Bestand nach Id
+     */
+    public Map<Long, Material> lockMaterials(Collection<Long> materialIds) {
+        return db.lockMaterials(materialIds);
+    }
+
+    /**
+     * Lädt ein Material am Katalog vorbei direkt aus der Datenbank. Das
+     * Ergebnis wird mit keiner anderen Sitzung geteilt und darf verändert
+     * werden.
+     *
+     * @param id Id
+     * @return Material
+     */
+    public Material loadMaterial(long id) {
+        return this.db.loadMaterial(id);
+    }
+
+    /**
+     * Sucht ein Material über den Namen. Groß- und Kleinschreibung sowie
+     * Umlaute werden dabei wie in
+     * {@link LendingSystem#makeStringConform(String)} behandelt.
+     *
+     * @param name Name
+     * @return Material oder null, wenn es nicht existiert
+     */
+    public Material findMaterialByName(String name) {
+        return this.catalog.findMaterialByNormalizedName(LendingSystem.makeStringConform(name));
     }
 
     /**
@@ -229,7 +349,7 @@ public class MaterialModel implements Serializable {
      */
     public Material updateMaterial(long id, String description, int quantity) {
 
-        Material tmp = findMaterial(id);
+        Material tmp = loadMaterial(id);
         
         tmp.increaseQuantity(quantity);
         if (tmp.getDescription().equals("")) {
@@ -237,6 +357,7 @@ public class MaterialModel implements Serializable {
         }
         
         db.merge(tmp);
+        catalog.invalidate();
         return tmp;
     }
 
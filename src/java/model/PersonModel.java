@@ -20,8 +20,10 @@ import database.Persistierer;
 import entities.Person;
 import java.io.Serializable;
 import java.util.List;
+import java.util.Map;
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
+import metrics.Timed;
 
 /**
  * Die Klasse PersonModel stellt abstrahierte Funktionen zur Erstellung,
@@ -29,6 +31,7 @@ import javax.inject.Inject;
  *
  * @author Fabian
  */
+@Timed
 @Dependent
 public class PersonModel implements Serializable {
 
@@ -76,18 +79,7 @@ public class PersonModel implements Serializable {
      * @return gefundene Person
      */
     public Person checkIfPersonNotAlreadyExists(String name) {
-
-        List<Person> tmpPersons = this.db.findAllPersons();
-        String nameConform = LendingSystem.makeStringConform(name);
-
-        for (Person p : tmpPersons) {
-            String tmpPersonnameStringConform = LendingSystem.makeStringConform(p.getName());
-            if (tmpPersonnameStringConform.equals(nameConform)) {
-                return p;
-            }
-        }
-
-        return null;
+        return this.db.findPersonByNormalizedName(LendingSystem.makeStringConform(name));
     }
 
     /**
@@ -99,6 +91,17 @@ public class PersonModel implements Serializable {
         return this.db.findAllPersons();
     }
 
+    /**
+     * Gibt eine Seite von Personen zurück.
+     *
+     * @param lastId zuletzt gesehene Id, 0 für die erste Seite
+     * @param pageSize maximale Anzahl der Personen
+     * @return Liste der Personen
+     */
+    public List<Person> getPersonsAfter(long lastId, int pageSize) {
+        return this.db.findPersonsAfter(lastId, pageSize);
+    }
+
     /**
      * Sucht eine Person über die übergebene Id.
      *
@@ -119,6 +122,15 @@ public class PersonModel implements Serializable {
         return this.db.getLendingObjectsQuantityWithPersonId(personId);
     }
 
+    /**
+     * Gibt die Anzahl der Ausleihobjekte aller Personen zurück.
+     *
+     * @return Anzahl der Ausleihobjekte pro PersonId
+     */
+    public Map<Long, Integer> getLendingObjectsQuantityPerPerson() {
+        return this.db.getLendingObjectsQuantityPerPerson();
+    }
+
     /**
      * Löscht eine Person anhand der Id in der Datenbank.
      *
@@ -15,7 +15,9 @@
  */
 package validation.validator;
 
+import entities.EpochDays;
 import entities.LendingObject;
+import java.time.format.DateTimeFormatter;
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
 import validation.annotation.LendingCheck;
@@ -46,18 +48,25 @@ public class LendingValidator implements ConstraintValidator<LendingCheck, Lendi
     @Override
     public boolean isValid(LendingObject value, ConstraintValidatorContext context) {
 
-        if (value.getStartLendDate() == null || value.getEndLendDate() == null) {
+        if (!value.hasPeriod()) {
             context.disableDefaultConstraintViolation();
             //System.out.println("Startdautm und Enddatum m\u00fcssen angegeben werden");
             context.buildConstraintViolationWithTemplate("Startdatum und Enddatum m\u00fcssen angegeben werden").addConstraintViolation();
             return false;
         }
-        if (value.getStartLendDate().after(value.getEndLendDate())) {
+        if (value.getStartDay() > value.getEndDay()) {
             context.disableDefaultConstraintViolation();
             //System.out.println("Enddatum darf nicht vor Startdatum liegen");
             context.buildConstraintViolationWithTemplate("Enddatum darf nicht vor Startdatum liegen").addConstraintViolation();
             return false;
         }
+        if (!EpochDays.isBookable(value.getStartDay()) || !EpochDays.isBookable(value.getEndDay())) {
+            context.disableDefaultConstraintViolation();
+            context.buildConstraintViolationWithTemplate("Ausleihen sind nur vom 01.01.1970 bis zum "
+                    + EpochDays.toLocalDate(EpochDays.lastBookableDay()).format(DateTimeFormatter.ofPattern("dd.MM.yyyy"))
+                    + " m\u00f6glich").addConstraintViolation();
+            return false;
+        }
 
         return true;
     }
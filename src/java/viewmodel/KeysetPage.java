@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package viewmodel;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Eine Seite einer nach Id sortierten Liste. Die naechste Seite wird nicht
+ * ueber einen Offset, sondern ueber die zuletzt angezeigte Id abgefragt
+ * (Keyset-Pagination), damit die Datenbank unabhaengig von der Seitenzahl nur
+ * die benoetigten Zeilen liest.
+ *
+ * Fuer eine Seite wird ein Datensatz mehr abgefragt als angezeigt, daran
+ * wird erkannt, ob es eine weitere Seite gibt.
+ *
+ * @param <T> Typ der Eintraege
+ */
+public class KeysetPage<T> implements Serializable {
+
+    /**
+     * Systemproperty fuer die Anzahl der Eintraege pro Seite.
+     */
+    public static final String PAGE_SIZE_PROPERTY = "viewmodel.pageSize";
+    /**
+     * Standardwert fuer {@link #PAGE_SIZE_PROPERTY}.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final List<T> items;
+    private final long after;
+    private final long nextAfter;
+    private final boolean hasNext;
+
+    /**
+     * Erstellt eine Seite aus dem Ergebnis einer Abfrage mit
+     * {@link #getFetchSize()} Zeilen.
+     *
+     * @param rows abgefragte Zeilen, nach Id sortiert
+     * @param after zuletzt gesehene Id vor dieser Seite
+     * @param id liefert die Id eines Eintrags
+     */
+    public KeysetPage(List<T> rows, long after, ToLongFunction<T> id) {
+        int pageSize = getPageSize();
+
+        this.hasNext = rows.size() > pageSize;
+        this.items = Collections.unmodifiableList(this.hasNext ? rows.subList(0, pageSize) : rows);
+        this.after = after;
+        this.nextAfter = this.items.isEmpty() ? after : id.applyAsLong(this.items.get(this.items.size() - 1));
+    }
+
+    /**
+     * Gibt die Anzahl der Eintraege pro Seite zurueck.
+     *
+     * @return Anzahl der Eintraege pro Seite
+     */
+    public static int getPageSize() {
+        return Math.max(1, Integer.getInteger(PAGE_SIZE_PROPERTY, DEFAULT_PAGE_SIZE));
+    }
+
+    /**
+     * Gibt die Anzahl der Zeilen zurueck, die fuer eine Seite abgefragt
+     * werden muessen.
+     *
+     * @return Seitengroesse plus eins
+     */
+    public static int getFetchSize() {
+        return getPageSize() + 1;
+    }
+
+    /**
+     * Gibt die Eintraege der Seite zurueck.
+     *
+     * @return Eintraege
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gibt die zuletzt gesehene Id vor dieser Seite zurueck.
+     *
+     * @return Id, 0 auf der ersten Seite
+     */
+    public long getAfter() {
+        return after;
+    }
+
+    /**
+     * Gibt die Id zurueck, hinter der die naechste Seite beginnt.
+     *
+     * @return Id des letzten Eintrags
+     */
+    public long getNextAfter() {
+        return nextAfter;
+    }
+
+    /**
+     * Gibt zurueck, ob es eine weitere Seite gibt.
+     *
+     * @return true, wenn es eine weitere Seite gibt, false wenn nicht
+     */
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    /**
+     * Gibt zurueck, ob dies die erste Seite ist.
+     *
+     * @return true, wenn dies die erste Seite ist, false wenn nicht
+     */
+    public boolean isFirst() {
+        return after == 0;
+    }
+}
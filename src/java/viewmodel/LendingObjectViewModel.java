@@ -18,6 +18,7 @@ package viewmodel;
 import controller.LendingController;
 import entities.Lending;
 import entities.LendingObject;
+import entities.LendingObjectSummary;
 import entities.Material;
 import java.io.Serializable;
 import java.util.Date;
@@ -83,6 +84,16 @@ public class LendingObjectViewModel implements Serializable {
     @Inject
     private LendingObjectModel lendingObject;
 
+    /**
+     * Zuletzt gesehene Id vor der angezeigten Seite der Ausleihobjekte.
+     */
+    private long after;
+
+    /**
+     * Angezeigte Seite der Ausleihobjekte, wird einmal pro Request geladen.
+     */
+    private KeysetPage<LendingObjectSummary> lendingObjectPage;
+
     /**
      * Erstellt ein LendingObjectViewModel ohne Eigenschaften.
      */
@@ -113,6 +124,38 @@ public class LendingObjectViewModel implements Serializable {
         return this.lendingObject.getLendingObjects();
     }
 
+    /**
+     * Gibt die angezeigte Seite der ausgeliehenen Objekte zurueck.
+     *
+     * @return Seite der ausgeliehenen Objekte
+     */
+    public KeysetPage<LendingObjectSummary> getLendingObjectPage() {
+        if (this.lendingObjectPage == null) {
+            this.lendingObjectPage = new KeysetPage<>(
+                    this.lendingObject.getLendingObjectSummariesAfter(this.after, KeysetPage.getFetchSize()),
+                    this.after, LendingObjectSummary::getLendingObjectId);
+        }
+        return this.lendingObjectPage;
+    }
+
+    /**
+     * Gibt die zuletzt gesehene Id vor der angezeigten Seite zurueck.
+     *
+     * @return Id, 0 fuer die erste Seite
+     */
+    public long getAfter() {
+        return after;
+    }
+
+    /**
+     * Setzt die zuletzt gesehene Id vor der angezeigten Seite.
+     *
+     * @param after Id, 0 fuer die erste Seite
+     */
+    public void setAfter(long after) {
+        this.after = Math.max(0, after);
+    }
+
     
 
     /**
@@ -16,12 +16,16 @@
 package viewmodel;
 
 import api.Navigation;
+import controller.AvailabilityCalculator;
 import controller.LendingSystem;
 import entities.LendingObject;
 import entities.Material;
 import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.StringJoiner;
 import javax.enterprise.context.SessionScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -35,12 +39,20 @@ import javax.inject.Named;
 @SessionScoped
 public class LendingSystemViewModel implements Serializable {
 
+    private static final DateTimeFormatter DATEPICKER_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
     /**
      * LendingSystem zur Verwaltung.
      */
     @Inject
     private LendingSystem lendingSystem;
 
+    /**
+     * AvailabilityCalculator für den Buchungskalender.
+     */
+    @Inject
+    private AvailabilityCalculator availability;
+
     /**
      * Aktuelles Material.
      */
@@ -54,6 +66,7 @@ public class LendingSystemViewModel implements Serializable {
      */
     public LendingSystemViewModel() {
         this.lendingSystem = new LendingSystem();
+        this.availability = new AvailabilityCalculator();
         this.hasErrors = false;
         this.errors = new ArrayList<String>();
     }
@@ -156,7 +169,7 @@ public class LendingSystemViewModel implements Serializable {
      */
     public String editMaterial(Material material) {
 
-        this.currentMaterial = material;
+        this.currentMaterial = this.lendingSystem.loadMaterialForEdit(material.getId());
 
         return Navigation.goToEditMaterial();
     }
@@ -206,6 +219,25 @@ public class LendingSystemViewModel implements Serializable {
         return this.lendingSystem.getCurrentLendingArrangements();
     }
 
+    /**
+     * Gibt die Tage zurueck, an denen die gewuenschte Menge des Materials
+     * nicht verfuegbar ist, im Format des Datepickers (MM/dd/yyyy, durch
+     * Kommas getrennt). Der Datepicker graut diese Tage aus.
+     *
+     * @param lendingObject geplante Ausleihe
+     * @return nicht verfuegbare Tage
+     */
+    public String getUnavailableDates(LendingObject lendingObject) {
+        StringJoiner result = new StringJoiner(",");
+
+        for (LocalDate day : this.availability.unavailableDays(lendingObject.getType(),
+                Math.max(lendingObject.getLendingQuantity(), 1))) {
+            result.add(DATEPICKER_FORMAT.format(day));
+        }
+
+        return result.toString();
+    }
+
     /**
      * Beendet die Ausleihe.
      *
@@ -18,6 +18,7 @@ package viewmodel;
 import controller.LendingController;
 import entities.Lending;
 import entities.LendingObject;
+import entities.LendingSummary;
 import entities.Person;
 import java.io.Serializable;
 import java.util.List;
@@ -72,6 +73,21 @@ public class LendingViewModel implements Serializable {
     @Inject
     private LendingModel lending;
 
+    /**
+     * Zusammenfassungen der Ausleihen, werden einmal pro Request geladen.
+     */
+    private List<LendingSummary> lendingSummaries;
+
+    /**
+     * Zuletzt gesehene Id vor der angezeigten Seite der Ausleihen.
+     */
+    private long after;
+
+    /**
+     * Angezeigte Seite der Zusammenfassungen, wird einmal pro Request geladen.
+     */
+    private KeysetPage<LendingSummary> lendingSummaryPage;
+
     /**
      * Erstellt ein LendingViewModel ohne Eigenschaften.
      */
@@ -101,6 +117,50 @@ public class LendingViewModel implements Serializable {
     }
 
 
+    /**
+     * Gibt die Zusammenfassungen aller Ausleihen für die Übersicht zurueck.
+     *
+     * @return Liste der Zusammenfassungen
+     */
+    public List<LendingSummary> getLendingSummaries() {
+        if (this.lendingSummaries == null) {
+            this.lendingSummaries = this.lending.getLendingSummaries();
+        }
+        return this.lendingSummaries;
+    }
+
+    /**
+     * Gibt die angezeigte Seite der Zusammenfassungen zurueck.
+     *
+     * @return Seite der Zusammenfassungen
+     */
+    public KeysetPage<LendingSummary> getLendingSummaryPage() {
+        if (this.lendingSummaryPage == null) {
+            this.lendingSummaryPage = new KeysetPage<>(
+                    this.lending.getLendingSummariesAfter(this.after, KeysetPage.getFetchSize()),
+                    this.after, LendingSummary::getLendingId);
+        }
+        return this.lendingSummaryPage;
+    }
+
+    /**
+     * Gibt die zuletzt gesehene Id vor der angezeigten Seite zurueck.
+     *
+     * @return Id, 0 fuer die erste Seite
+     */
+    public long getAfter() {
+        return after;
+    }
+
+    /**
+     * Setzt die zuletzt gesehene Id vor der angezeigten Seite.
+     *
+     * @param after Id, 0 fuer die erste Seite
+     */
+    public void setAfter(long after) {
+        this.after = Math.max(0, after);
+    }
+
     /**
      * Gibt die Ausleihen in einer Liste zurueck.
      *
@@ -188,7 +248,8 @@ public class LendingViewModel implements Serializable {
      * Gibt das früheste Datum der Ausleihe zurueck.
      *
      * @param lendingId Id der Ausleihe
-     * @return frühestes Datum
+     * @return frühestes Datum oder null, wenn die Ausleihe keine
+     * Ausleihobjekte hat
      */
     public java.sql.Date getMinDateFromLendingId(long lendingId) {
         return this.lending.getMinDateFromLendingId(lendingId);
@@ -198,7 +259,8 @@ public class LendingViewModel implements Serializable {
      * Gibt das späteste Datum der Ausleihe zurueck.
      *
      * @param lendingId Id der Ausleihe
-     * @return spätestes Datum
+     * @return spätestes Datum oder null, wenn die Ausleihe keine
+     * Ausleihobjekte hat
      */
     public java.sql.Date getMaxDateFromLendingId(long lendingId) {
         return this.lending.getMaxDateFromLendingId(lendingId);
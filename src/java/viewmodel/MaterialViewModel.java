@@ -15,10 +15,13 @@
  */
 package viewmodel;
 
+import controller.AvailabilityCalculator;
 import model.MaterialModel;
 import entities.Material;
 import java.io.Serializable;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -66,6 +69,27 @@ public class MaterialViewModel implements Serializable {
     @Inject
     private MaterialModel material;
 
+    /**
+     * AvailabilityCalculator zur Berechnung des verfügbaren Bestands.
+     */
+    @Inject
+    private AvailabilityCalculator availability;
+
+    /**
+     * Heute verfügbare Anzahl pro Material, wird einmal pro Request berechnet.
+     */
+    private Map<Long, Integer> availableQuantities;
+
+    /**
+     * Zuletzt gesehene Id vor der angezeigten Seite der Materialien.
+     */
+    private long after;
+
+    /**
+     * Angezeigte Seite der Materialien, wird einmal pro Request geladen.
+     */
+    private KeysetPage<Material> materialPage;
+
     /**
      * Erstellt ein MaterialViewModel ohne Eigenschaften.
      */
@@ -73,6 +97,7 @@ public class MaterialViewModel implements Serializable {
         this.name = "";
         this.quantity = 0;
         this.material = new MaterialModel();
+        this.availability = new AvailabilityCalculator();
     }
 
     /**
@@ -106,6 +131,34 @@ public class MaterialViewModel implements Serializable {
         return this.material.getMaterials();
     }
 
+    /**
+     * Gibt die angezeigte Seite der Materialien zurueck.
+     *
+     * @return Seite der Materialien
+     */
+    public KeysetPage<Material> getMaterialPage() {
+        if (this.materialPage == null) {
+            this.materialPage = new KeysetPage<>(this.material.getMaterialsAfter(this.after, KeysetPage.getFetchSize()),
+                    this.after, Material::getId);
+        }
+        return this.materialPage;
+    }
+
+    /**
+     * Gibt die heute verfügbare Anzahl pro Material-Id zurueck. Alle
+     * Materialien der angezeigten Seite werden dabei in einem Durchlauf
+     * berechnet.
+     *
+     * @return verfügbare Anzahl pro Material-Id
+     */
+    public Map<Long, Integer> getAvailableQuantities() {
+        if (this.availableQuantities == null) {
+            Date today = new Date();
+            this.availableQuantities = this.availability.availableQuantities(this.getMaterialPage().getItems(), today, today);
+        }
+        return this.availableQuantities;
+    }
+
     /**
      * Löscht ein Material über die ID.
      *
@@ -139,6 +192,24 @@ public class MaterialViewModel implements Serializable {
 
     }
 
+    /**
+     * Gibt die zuletzt gesehene Id vor der angezeigten Seite zurueck.
+     *
+     * @return Id, 0 fuer die erste Seite
+     */
+    public long getAfter() {
+        return after;
+    }
+
+    /**
+     * Setzt die zuletzt gesehene Id vor der angezeigten Seite.
+     *
+     * @param after Id, 0 fuer die erste Seite
+     */
+    public void setAfter(long after) {
+        this.after = Math.max(0, after);
+    }
+
     /**
      * Gibt den Namen des MaterialViewModels zurueck.
      *
@@ -19,6 +19,7 @@ import controller.PersonController;
 import entities.Person;
 import java.io.Serializable;
 import java.util.List;
+import java.util.Map;
 
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
@@ -47,6 +48,20 @@ public class PersonViewModel implements Serializable {
      */
     @Inject
     private PersonController person;
+    /**
+     * Anzahl der LendingObjects pro Person, wird einmal pro Request geladen.
+     */
+    private Map<Long, Integer> lendingObjects;
+
+    /**
+     * Zuletzt gesehene Id vor der angezeigten Seite der Personen.
+     */
+    private long after;
+
+    /**
+     * Angezeigte Seite der Personen, wird einmal pro Request geladen.
+     */
+    private KeysetPage<Person> personPage;
 
     /**
      * Erstellt ein PersonViewModel ohne Eigenschaften.
@@ -65,6 +80,37 @@ public class PersonViewModel implements Serializable {
         return this.person.getPersons();
     }
 
+    /**
+     * Gibt die angezeigte Seite der Personen zurueck.
+     *
+     * @return Seite der Personen
+     */
+    public KeysetPage<Person> getPersonPage() {
+        if (this.personPage == null) {
+            this.personPage = new KeysetPage<>(this.person.getPersonsAfter(this.after, KeysetPage.getFetchSize()),
+                    this.after, Person::getId);
+        }
+        return this.personPage;
+    }
+
+    /**
+     * Gibt die zuletzt gesehene Id vor der angezeigten Seite zurueck.
+     *
+     * @return Id, 0 fuer die erste Seite
+     */
+    public long getAfter() {
+        return after;
+    }
+
+    /**
+     * Setzt die zuletzt gesehene Id vor der angezeigten Seite.
+     *
+     * @param after Id, 0 fuer die erste Seite
+     */
+    public void setAfter(long after) {
+        this.after = Math.max(0, after);
+    }
+
     /**
      * Gibt Anzahl der LendingObjects zurueck.
      *
@@ -72,7 +118,10 @@ public class PersonViewModel implements Serializable {
      * @return Anzahl der LendingObjects
      */
     public int getLendingObjects(long personId) {
-        return this.person.getLendingObjects(personId);
+        if (this.lendingObjects == null) {
+            this.lendingObjects = this.person.getLendingObjectsPerPerson();
+        }
+        return this.lendingObjects.getOrDefault(personId, 0);
     }
 
     /**
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package api;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CsvReaderTest {
+
+    /**
+     * Was der CsvWriter schreibt, liest der CsvReader unveraendert zurueck.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        String[][] rows = {
+            {"1", "Objektiv", "", "3"},
+            {"a;b", "\"Zoom\"", "Zeile\r\nzwei"},
+            {""}
+        };
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out);
+        for (String[] row : rows) {
+            csv.writeRow((Object[]) row);
+        }
+
+        CsvReader reader = new CsvReader(new BufferedReader(new StringReader(out.toString())));
+        assertArrayEquals(rows[0], reader.next());
+        assertArrayEquals(rows[1], reader.next());
+        // Eine Zeile mit einem einzelnen leeren Feld ist nicht von einer Leerzeile zu unterscheiden.
+        assertFalse(reader.hasNext());
+    }
+
+    /**
+     * Leerzeilen und eine fehlende Zeilenendung am Ende werden toleriert.
+     */
+    @Test
+    public void testBlankLines() throws IOException {
+        CsvReader reader = new CsvReader(new BufferedReader(new StringReader("\nKabel;;2\r\n\r\nStativ;Alu;1")));
+
+        assertArrayEquals(new String[]{"Kabel", "", "2"}, reader.readRow());
+        assertArrayEquals(new String[]{"Stativ", "Alu", "1"}, reader.readRow());
+        assertNull(reader.readRow());
+    }
+}
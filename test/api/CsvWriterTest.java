@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package api;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CsvWriterTest {
+
+    /**
+     * Felder mit Trennzeichen, Anfuehrungszeichen oder Zeilenumbruch werden
+     * maskiert, null wird als leeres Feld geschrieben.
+     */
+    @Test
+    public void testWriteRow() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out);
+
+        csv.writeRow(1, "Objektiv", null, 3);
+        csv.writeRow("a;b", "\"Zoom\"", "Zeile\nzwei");
+
+        assertEquals("1;Objektiv;;3\r\n\"a;b\";\"\"\"Zoom\"\"\";\"Zeile\nzwei\"\r\n", out.toString());
+    }
+}
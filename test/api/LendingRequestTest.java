@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package api;
+
+import entities.EpochDays;
+import java.io.StringReader;
+import java.time.LocalDate;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LendingRequestTest {
+
+    private static JsonObject json(String json) {
+        try (JsonReader reader = Json.createReader(new StringReader(json.replace('\'', '"')))) {
+            return reader.readObject();
+        }
+    }
+
+    private static String item(String materialId, String quantity, String from, String to) {
+        return "{'materialId': " + materialId + ", 'quantity': " + quantity
+                + ", 'from': " + from + ", 'to': " + to + "}";
+    }
+
+    private static void assertInvalid(String items) {
+        String request = "{'person': 'Müller', 'items': " + items + "}";
+        try {
+            LendingRequest.fromJson(json(request));
+            fail("Keine Exception fuer " + request);
+        } catch (IllegalArgumentException e) {
+            assertNotNull(e.getMessage());
+        }
+    }
+
+    private static void assertInvalidItem(String materialId, String quantity, String from, String to) {
+        assertInvalid("[" + item(materialId, quantity, from, to) + "]");
+    }
+
+    /**
+     * Gueltige Anfrage mit zwei Positionen.
+     */
+    @Test
+    public void testFromJson() {
+        LendingRequest request = LendingRequest.fromJson(json("{'person': ' Müller ', 'items': ["
+                + item("1", "2", "'2016-05-01'", "'2016-05-03'") + ", "
+                + item("7", "1", "'2016-05-02'", "'2016-05-02'") + "]}"));
+
+        assertEquals("Müller", request.getPerson());
+        assertEquals(2, request.getItems().size());
+        LendingRequest.Item first = request.getItems().get(0);
+        assertEquals(1, first.getMaterialId());
+        assertEquals(2, first.getQuantity());
+        assertEquals(EpochDays.of(LocalDate.of(2016, 5, 1)), first.getBeginDay());
+        assertEquals(EpochDays.of(LocalDate.of(2016, 5, 3)), first.getEndDay());
+        assertEquals(7, request.getItems().get(1).getMaterialId());
+
+        assertTrue(LendingRequest.fromJson(json("{'person': 'Müller'}")).getItems().isEmpty());
+        assertTrue(LendingRequest.fromJson(json("{'person': 'Müller', 'items': null}")).getItems().isEmpty());
+    }
+
+    /**
+     * Fehlende Felder, falsche Typen, nicht ganzzahlige oder zu grosse
+     * Zahlen sowie ungueltige oder nicht buchbare Daten fuehren zu einer
+     * IllegalArgumentException (400).
+     */
+    @Test
+    public void testInvalid() {
+        try {
+            LendingRequest.fromJson(json("{'person': 5, 'items': []}"));
+            fail("Keine Exception fuer eine Zahl als Person");
+        } catch (IllegalArgumentException e) {
+            assertNotNull(e.getMessage());
+        }
+        try {
+            LendingRequest.fromJson(json("{'items': []}"));
+            fail("Keine Exception ohne Person");
+        } catch (IllegalArgumentException e) {
+            assertNotNull(e.getMessage());
+        }
+
+        assertInvalid("'keine Liste'");
+        assertInvalid("['kein Objekt']");
+        assertInvalidItem("1.5", "1", "'2016-05-01'", "'2016-05-01'");
+        assertInvalidItem("1e30", "1", "'2016-05-01'", "'2016-05-01'");
+        assertInvalidItem("100000000000000000000000000000", "1", "'2016-05-01'", "'2016-05-01'");
+        assertInvalidItem("-1", "1", "'2016-05-01'", "'2016-05-01'");
+        assertInvalidItem("'1'", "1", "'2016-05-01'", "'2016-05-01'");
+        assertInvalidItem("1", "3000000000", "'2016-05-01'", "'2016-05-01'");
+        assertInvalidItem("1", "1", "'2016-02-30'", "'2016-05-01'");
+        assertInvalidItem("1", "1", "'2016-05-01'", "null");
+        assertInvalidItem("1", "1", "'1969-12-31'", "'2016-05-01'");
+        assertInvalidItem("1", "1", "'2016-05-01'", "'+9999999-01-01'");
+        assertInvalidItem("1", "1", "'2016-05-01'",
+                "'" + EpochDays.toLocalDate(EpochDays.lastBookableDay() + 1) + "'");
+    }
+}
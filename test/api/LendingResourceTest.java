@@ -0,0 +1,292 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package api;
+
+import controller.CheckoutService;
+import database.Persistierer;
+import entities.EpochDays;
+import entities.LendingObject;
+import entities.Material;
+import entities.Person;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.ws.rs.core.Response;
+import model.MaterialCatalog;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static testutil.Fields.set;
+
+public class LendingResourceTest {
+
+    private static final int MAY_1 = EpochDays.of(LocalDate.of(2016, 5, 1));
+
+    private Database db;
+    private LendingResource resource;
+    private Material camera;
+    private Material tripod;
+
+    /**
+     * Persistierer, der alle Daten im Speicher haelt.
+     */
+    private static class Database extends Persistierer {
+
+        private final List<Material> materials = new ArrayList<>();
+        private final Map<Long, Person> persons = new HashMap<>();
+        private final List<LendingObject> lendingObjects = new ArrayList<>();
+        /**
+         * Bestand in der Datenbank, wenn er von dem im Katalog abweicht.
+         */
+        private final Map<Long, Integer> rowQuantities = new HashMap<>();
+        private long nextId = 1;
+
+        @Override
+        public void persist(Object object) {
+            set(object, "id", this.nextId++);
+
+            if (object instanceof Material) {
+                this.materials.add((Material) object);
+            } else if (object instanceof Person) {
+                ((Person) object).updateNormalizedName();
+                this.persons.put(((Person) object).getId(), (Person) object);
+            } else if (object instanceof LendingObject) {
+                this.lendingObjects.add((LendingObject) object);
+            }
+        }
+
+        @Override
+        public void persistAll(Collection<?> objects, boolean detach) {
+            for (Object object : objects) {
+                this.persist(object);
+            }
+        }
+
+        @Override
+        public List<Material> findAllMaterials() {
+            return new ArrayList<>(this.materials);
+        }
+
+        @Override
+        public Material loadMaterial(long id) {
+            for (Material m : this.materials) {
+                if (m.getId() == id) {
+                    Material row = new Material(m.getName(), m.getDescription(),
+                            this.rowQuantities.getOrDefault(id, m.getQuantity()));
+                    set(row, "id", id);
+                    return row;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Map<Long, Material> lockMaterials(Collection<Long> materialIds) {
+            Map<Long, Material> result = new HashMap<>();
+            for (long id : materialIds) {
+                result.put(id, this.loadMaterial(id));
+            }
+            return result;
+        }
+
+        @Override
+        public String getMaterialStamp() {
+            return Integer.toString(this.materials.size());
+        }
+
+        @Override
+        public Person findPerson(long id) {
+            return this.persons.get(id);
+        }
+
+        @Override
+        public Person findPersonByNormalizedName(String normalizedName) {
+            for (Person p : this.persons.values()) {
+                if (p.getNormalizedName().equals(normalizedName)) {
+                    return p;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public int getLentQuantityWithMaterialId(long materialId, int beginDay, int endDay) {
+            int sum = 0;
+            for (LendingObject lo : this.lendingObjects) {
+                if (lo.getType().getId() == materialId && lo.overlaps(beginDay, endDay)) {
+                    sum += lo.getLendingQuantity();
+                }
+            }
+            return sum;
+        }
+
+        private int lentOn(Material m, int day) {
+            return this.getLentQuantityWithMaterialId(m.getId(), day, day);
+        }
+    }
+
+    /**
+     * Ersetzt im Objektgraphen unter target alle Persistierer- und
+     * MaterialCatalog-Felder, so wie es CDI im Server tun wuerde.
+     */
+    private static void wire(Object target, Persistierer db, MaterialCatalog catalog, Set<Object> seen)
+            throws IllegalAccessException {
+        if (target == null || !seen.add(target)) {
+            return;
+        }
+
+        for (Class<?> c = target.getClass(); c != Object.class; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers()) || Modifier.isFinal(f.getModifiers())) {
+                    continue;
+                }
+                f.setAccessible(true);
+
+                if (f.getType() == Persistierer.class) {
+                    f.set(target, db);
+                } else if (f.getType() == MaterialCatalog.class) {
+                    f.set(target, catalog);
+                    wire(catalog, db, catalog, seen);
+                } else if (f.getType().getName().matches("(api|controller|model)\\..*")) {
+                    wire(f.get(target), db, catalog, seen);
+                }
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        this.db = new Database();
+        this.camera = new Material("Kamera", "", 5);
+        this.tripod = new Material("Stativ", "", 10);
+        this.db.persist(this.camera);
+        this.db.persist(this.tripod);
+
+        MaterialCatalog catalog = new MaterialCatalog();
+        this.resource = new LendingResource();
+        set(this.resource, "catalog", catalog);
+        set(this.resource, "checkout", new CheckoutService());
+        wire(this.resource, this.db, catalog, Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+    }
+
+    private static LendingRequest.Item item(Material m, int quantity, int from, int to) {
+        return new LendingRequest.Item(m.getId(), quantity, MAY_1 + from, MAY_1 + to);
+    }
+
+    private LendingResource.Result post(LendingRequest.Item... items) {
+        return this.resource.checkout(new LendingRequest("Müller", Arrays.asList(items)));
+    }
+
+    /**
+     * Eine gueltige Ausleihe wird gespeichert, Antwort 201.
+     */
+    @Test
+    public void testCreated() {
+        LendingResource.Result result = post(item(this.camera, 2, 0, 3), item(this.tripod, 1, 2, 2));
+
+        assertEquals(Response.Status.CREATED, result.getStatus());
+        assertEquals(2, this.db.lendingObjects.size());
+        assertEquals(2, this.db.lentOn(this.camera, MAY_1 + 3));
+        assertEquals(1, this.db.persons.size());
+    }
+
+    /**
+     * Reicht der Bestand nicht, wird nichts gespeichert, Antwort 409 mit dem
+     * tatsaechlich verfuegbaren Bestand jeder Position, auch fuer Positionen,
+     * die fuer sich ausgereicht haetten.
+     */
+    @Test
+    public void testConflict() {
+        assertEquals(Response.Status.CREATED, post(item(this.camera, 4, 0, 5)).getStatus());
+
+        LendingResource.Result result = post(item(this.camera, 3, 2, 3), item(this.tripod, 2, 2, 3));
+
+        assertEquals(Response.Status.CONFLICT, result.getStatus());
+        assertArrayEquals(new int[]{1, 10}, result.getAvailable());
+        assertEquals(1, this.db.lendingObjects.size());
+        assertFalse(result.getMessages().isEmpty());
+    }
+
+    /**
+     * Mehrere Positionen desselben Materials in ueberlappenden Zeitraeumen
+     * werden zusammen gegen den Bestand geprueft.
+     */
+    @Test
+    public void testDuplicateItems() {
+        LendingResource.Result result = post(item(this.camera, 5, 0, 2), item(this.camera, 5, 1, 3));
+
+        assertEquals(Response.Status.CONFLICT, result.getStatus());
+        assertTrue(this.db.lendingObjects.isEmpty());
+        assertArrayEquals(new int[]{5, 5}, result.getAvailable());
+
+        assertEquals(Response.Status.CREATED, post(item(this.camera, 2, 0, 2), item(this.camera, 3, 0, 2)).getStatus());
+        assertEquals(5, this.db.lentOn(this.camera, MAY_1 + 1));
+        assertEquals(Response.Status.CONFLICT, post(item(this.camera, 1, 1, 1)).getStatus());
+
+        // Nicht ueberlappende Zeitraeume beeinflussen sich nicht.
+        assertEquals(Response.Status.CREATED, post(item(this.camera, 5, 10, 12), item(this.camera, 5, 13, 14)).getStatus());
+
+        // Abgezogen wird die hoechste gleichzeitige Menge, nicht die Summe:
+        // hoechstens 3 + 2 Kameras an einem Tag.
+        result = post(item(this.camera, 3, 20, 21), item(this.camera, 3, 24, 25), item(this.camera, 2, 20, 25));
+        assertEquals(Response.Status.CREATED, result.getStatus());
+        assertEquals(5, this.db.lentOn(this.camera, MAY_1 + 24));
+        assertEquals(Response.Status.CONFLICT,
+                post(item(this.camera, 3, 30, 31), item(this.camera, 3, 31, 32), item(this.camera, 1, 30, 32)).getStatus());
+    }
+
+    /**
+     * Geprueft wird gegen den Bestand der gesperrten Zeile, auch wenn der
+     * Katalog noch den alten Bestand kennt, etwa nach einer Aenderung auf
+     * einem anderen Server.
+     */
+    @Test
+    public void testLockedQuantity() {
+        this.db.rowQuantities.put(this.camera.getId(), 2);
+
+        LendingResource.Result result = post(item(this.camera, 3, 0, 0));
+
+        assertEquals(Response.Status.CONFLICT, result.getStatus());
+        assertArrayEquals(new int[]{2}, result.getAvailable());
+        assertEquals(Response.Status.CREATED, post(item(this.camera, 2, 0, 0)).getStatus());
+    }
+
+    /**
+     * Ungueltige Anfragen werden mit 400 abgelehnt, ohne etwas zu speichern.
+     */
+    @Test
+    public void testBadRequest() {
+        assertEquals(Response.Status.BAD_REQUEST, this.resource.checkout(
+                new LendingRequest("", Collections.singletonList(item(this.camera, 1, 0, 0)))).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST,
+                post(new LendingRequest.Item(999, 1, MAY_1, MAY_1)).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST, post(item(this.camera, 0, 0, 0)).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST, post(item(this.camera, 1, 3, 2)).getStatus());
+        assertEquals(Response.Status.BAD_REQUEST, post().getStatus());
+
+        assertTrue(this.db.lendingObjects.isEmpty());
+        assertTrue(this.db.persons.isEmpty());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package api;
+
+import database.Persistierer;
+import entities.EpochDays;
+import entities.Material;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import model.MaterialCatalog;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static testutil.Fields.set;
+
+public class MaterialResourceTest {
+
+    /**
+     * Persistierer mit einer Kennung, die wie von einem anderen Server
+     * geaendert werden kann.
+     */
+    private static class StampPersistierer extends Persistierer {
+
+        private String stamp = "3-17-5";
+
+        @Override
+        public String getMaterialStamp() {
+            return this.stamp;
+        }
+
+        @Override
+        public List<Material> findAllMaterials() {
+            return new ArrayList<>();
+        }
+    }
+
+    private static MaterialResource resource(Persistierer db) throws Exception {
+        MaterialCatalog catalog;
+        System.setProperty(MaterialCatalog.CHECK_MILLIS_PROPERTY, "0");
+        try {
+            catalog = new MaterialCatalog();
+        } finally {
+            System.clearProperty(MaterialCatalog.CHECK_MILLIS_PROPERTY);
+        }
+        set(catalog, "db", db);
+
+        MaterialResource resource = new MaterialResource();
+        set(resource, "catalog", catalog);
+        return resource;
+    }
+
+    /**
+     * Der ETag folgt der Kennung der Materialien in der Datenbank, auch wenn
+     * sie auf einem anderen Server geaendert wurden. Zwei Server mit
+     * demselben Stand liefern denselben ETag.
+     */
+    @Test
+    public void testTagFollowsDatabase() throws Exception {
+        StampPersistierer db = new StampPersistierer();
+        MaterialResource first = resource(db);
+        MaterialResource second = resource(db);
+
+        String tag = first.catalogTag();
+        assertEquals("3-17-5", tag);
+        assertEquals(tag, second.catalogTag());
+        assertTrue(MaterialResource.matches("\"" + tag + "\"", second.catalogTag()));
+
+        db.stamp = "3-17-6";
+        assertEquals("3-17-6", first.catalogTag());
+        assertFalse(MaterialResource.matches("\"" + tag + "\"", first.catalogTag()));
+    }
+
+    /**
+     * Auswertung von If-None-Match: Listen, schwache ETags und *.
+     */
+    @Test
+    public void testMatches() {
+        String tag = "3-17-5";
+
+        assertTrue(MaterialResource.matches("\"3-17-5\"", tag));
+        assertTrue(MaterialResource.matches("W/\"3-17-5\"", tag));
+        assertTrue(MaterialResource.matches("\"1-1-1\", \"3-17-5\"", tag));
+        assertTrue(MaterialResource.matches("*", tag));
+
+        assertFalse(MaterialResource.matches(null, tag));
+        assertFalse(MaterialResource.matches("", tag));
+        assertFalse(MaterialResource.matches("3-17-5", tag));
+        assertFalse(MaterialResource.matches("\"3-17-50\"", tag));
+        assertFalse(MaterialResource.matches("\"", tag));
+    }
+
+    /**
+     * Ungueltige, zu fruehe und zu spaete Daten fuehren zu
+     * IllegalArgumentException (400), auch wenn sie ausserhalb von int
+     * liegen.
+     */
+    @Test
+    public void testParseDay() {
+        assertEquals(7, MaterialResource.parseDay(null, 7));
+        assertEquals(7, MaterialResource.parseDay("", 7));
+        assertEquals(EpochDays.of(LocalDate.of(2016, 5, 1)), MaterialResource.parseDay("2016-05-01", 7));
+        assertEquals(EpochDays.lastBookableDay(), MaterialResource.parseDay(
+                EpochDays.toLocalDate(EpochDays.lastBookableDay()).toString(), 7));
+
+        for (String date : new String[]{"01.05.2016", "2016-02-30", "1969-12-31", "+9999999-01-01",
+            EpochDays.toLocalDate(EpochDays.lastBookableDay() + 1).toString()}) {
+            try {
+                MaterialResource.parseDay(date, 7);
+                fail("Keine Exception fuer " + date);
+            } catch (IllegalArgumentException e) {
+                assertFalse(e.getMessage().contains(date));
+            }
+        }
+    }
+}
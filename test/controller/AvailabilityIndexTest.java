@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package controller;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AvailabilityIndexTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private static Date day(int n) {
+        return new java.sql.Date(java.sql.Date.valueOf("2016-01-01").getTime() + n * DAY);
+    }
+
+    /**
+     * Testen der bookedQuantity-Methode an Randfaellen.
+     */
+    @Test
+    public void testBookedQuantityBounds() {
+        AvailabilityIndex index = new AvailabilityIndex();
+        index.add(1, day(10), day(20), 2);
+
+        assertEquals("Zeitraum davor", 0, index.bookedQuantity(1, day(0), day(9)));
+        assertEquals("Ende trifft Start", 2, index.bookedQuantity(1, day(0), day(10)));
+        assertEquals("Start trifft Ende", 2, index.bookedQuantity(1, day(20), day(25)));
+        assertEquals("Zeitraum danach", 0, index.bookedQuantity(1, day(21), day(25)));
+        assertEquals("Zeitraum innerhalb", 2, index.bookedQuantity(1, day(12), day(13)));
+        assertEquals("Anderes Material", 0, index.bookedQuantity(2, day(12), day(13)));
+    }
+
+    /**
+     * Vergleich von bookedQuantity mit einer vollstaendigen Suche.
+     */
+    @Test
+    public void testBookedQuantityMatchesScan() {
+        AvailabilityIndex index = new AvailabilityIndex();
+        Random rn = new Random(42);
+        List<int[]> bookings = new ArrayList<>();
+
+        for (int i = 0; i < 500; i++) {
+            int start = rn.nextInt(200);
+            int[] booking = {rn.nextInt(3), start, start + rn.nextInt(30), 1 + rn.nextInt(5)};
+            bookings.add(booking);
+            index.add(booking[0], day(booking[1]), day(booking[2]), booking[3]);
+        }
+        for (int i = 0; i < 100; i++) {
+            int[] booking = bookings.remove(rn.nextInt(bookings.size()));
+            index.remove(booking[0], day(booking[1]), day(booking[2]), booking[3]);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            int material = rn.nextInt(3);
+            int begin = rn.nextInt(240);
+            int end = begin + rn.nextInt(40);
+            int expected = 0;
+            for (int[] b : bookings) {
+                if (b[0] == material && b[1] <= end && b[2] >= begin) {
+                    expected += b[3];
+                }
+            }
+            assertEquals(expected, index.bookedQuantity(material, day(begin), day(end)));
+        }
+    }
+
+    /**
+     * Nicht ueberlappende Ausleihen im Zeitraum duerfen nicht addiert werden.
+     */
+    @Test
+    public void testPeakBookedQuantity() {
+        AvailabilityIndex index = new AvailabilityIndex();
+        index.add(1, day(0), day(4), 3);
+        index.add(1, day(5), day(9), 3);
+        index.add(1, day(9), day(12), 1);
+
+        assertEquals("Summe", 7, index.bookedQuantity(1, day(0), day(12)));
+        assertEquals("Maximum", 4, index.peakBookedQuantity(1, day(0), day(12)));
+        assertEquals("Maximum ohne Ueberschneidung", 3, index.peakBookedQuantity(1, day(0), day(8)));
+        assertEquals("Bulk", Integer.valueOf(4), index.peakBookedQuantities(day(0), day(12)).get(1L));
+    }
+
+    /**
+     * Vergleich von peakBookedQuantity mit einer tageweisen Zaehlung.
+     */
+    @Test
+    public void testPeakBookedQuantityMatchesDailyCount() {
+        AvailabilityIndex index = new AvailabilityIndex();
+        Random rn = new Random(7);
+        int[] perDay = new int[300];
+
+        for (int i = 0; i < 300; i++) {
+            int start = rn.nextInt(250);
+            int end = start + rn.nextInt(20);
+            int quantity = 1 + rn.nextInt(4);
+            index.add(1, day(start), day(end), quantity);
+            for (int d = start; d <= end; d++) {
+                perDay[d] += quantity;
+            }
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            int begin = rn.nextInt(260);
+            int end = Math.min(begin + rn.nextInt(30), perDay.length - 1);
+            int expected = 0;
+            for (int d = begin; d <= end; d++) {
+                expected = Math.max(expected, perDay[d]);
+            }
+            assertEquals(expected, index.peakBookedQuantity(1, day(begin), day(end)));
+        }
+    }
+
+}
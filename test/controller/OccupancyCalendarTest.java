@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package controller;
+
+import entities.EpochDays;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class OccupancyCalendarTest {
+
+    private static int[] scan(List<int[]> bookings, int beginDay, int endDay) {
+        int[] result = new int[endDay - beginDay + 1];
+        for (int[] b : bookings) {
+            for (int d = Math.max(b[0], beginDay); d <= Math.min(b[1], endDay); d++) {
+                result[d - beginDay] += b[2];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Bereiche vor, nach und ueber den gebuchten Tagen.
+     */
+    @Test
+    public void testCopyBounds() {
+        OccupancyCalendar calendar = new OccupancyCalendar(-1000, 1000);
+        calendar.add(10, 12, 2);
+        int[] target = new int[6];
+
+        calendar.copy(8, target);
+        assertArrayEquals(new int[]{0, 0, 2, 2, 2, 0}, target);
+        calendar.copy(0, target);
+        assertArrayEquals(new int[6], target);
+        calendar.copy(12, target);
+        assertArrayEquals(new int[]{2, 0, 0, 0, 0, 0}, target);
+    }
+
+    /**
+     * Vergleich mit einer vollstaendigen Suche nach zufaelligem Eintragen
+     * und Entfernen, auch bei Buchungen vor dem bisher ersten Tag.
+     */
+    @Test
+    public void testMatchesScan() {
+        Random rn = new Random(42);
+        OccupancyCalendar calendar = new OccupancyCalendar(-1000, 1000);
+        List<int[]> bookings = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            if (!bookings.isEmpty() && rn.nextInt(3) == 0) {
+                int[] b = bookings.remove(rn.nextInt(bookings.size()));
+                calendar.remove(b[0], b[1], b[2]);
+            } else {
+                int start = 500 - rn.nextInt(1000);
+                int[] b = {start, start + rn.nextInt(30), 1 + rn.nextInt(3)};
+                bookings.add(b);
+                calendar.add(b[0], b[1], b[2]);
+            }
+        }
+
+        int[] target = new int[1200];
+        calendar.copy(-600, target);
+        assertArrayEquals(scan(bookings, -600, 599), target);
+
+        int[] startDays = new int[bookings.size()];
+        int[] endDays = new int[bookings.size()];
+        int[] quantities = new int[bookings.size()];
+        for (int i = 0; i < bookings.size(); i++) {
+            startDays[i] = bookings.get(i)[0];
+            endDays[i] = bookings.get(i)[1];
+            quantities[i] = bookings.get(i)[2];
+        }
+        new OccupancyCalendar(startDays, endDays, quantities, bookings.size(), -1000, 1000).copy(-600, target);
+        assertArrayEquals("Aufbau aus Arrays", scan(bookings, -600, 599), target);
+    }
+
+    /**
+     * Buchungen werden auf das Fenster abgeschnitten, auch bei einem sehr
+     * weit entfernten Enddatum.
+     */
+    @Test
+    public void testWindow() {
+        OccupancyCalendar calendar = new OccupancyCalendar(0, 9);
+        calendar.add(-5, 2_000_000_000, 1);
+        calendar.add(8, 12, 2);
+        int[] target = new int[14];
+
+        calendar.copy(-2, target);
+        assertArrayEquals(new int[]{0, 0, 1, 1, 1, 1, 1, 1, 1, 1, 3, 3, 0, 0}, target);
+        assertTrue(calendar.covers(9));
+        assertFalse(calendar.covers(10));
+
+        new OccupancyCalendar(new int[]{-5, 8}, new int[]{2_000_000_000, 12}, new int[]{1, 2}, 2, 0, 9)
+                .copy(-2, target);
+        assertArrayEquals("Aufbau aus Arrays", new int[]{0, 0, 1, 1, 1, 1, 1, 1, 1, 1, 3, 3, 0, 0}, target);
+
+        calendar.remove(-5, 2_000_000_000, 1);
+        calendar.copy(-2, target);
+        assertArrayEquals(new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 2, 0, 0}, target);
+    }
+
+    /**
+     * Tage ausserhalb des Kalenderfensters berechnet der AvailabilityIndex
+     * aus den sortierten Listen.
+     */
+    @Test
+    public void testAvailabilityIndexOutsideWindow() {
+        AvailabilityIndex index = new AvailabilityIndex();
+        index.add(1, 100, 2_000_000_000, 1);
+        index.add(1, 1_999_999_999, 2_000_000_000, 2);
+
+        assertArrayEquals(new int[]{0, 1, 1}, index.bookedPerDay(1, 99, 101));
+        assertArrayEquals(new int[]{1, 3, 3, 0}, index.bookedPerDay(1, 1_999_999_998, 2_000_000_001));
+        int today = EpochDays.of(LocalDate.now());
+        index.add(2, today - 1, today + 1, 4);
+        assertArrayEquals(new int[]{0, 4, 4, 4, 0}, index.bookedPerDay(2, today - 2, today + 2));
+        index.rebuild(new ArrayList<>());
+        assertArrayEquals(new int[3], index.bookedPerDay(1, 99, 101));
+    }
+
+    /**
+     * bookedPerDay des AvailabilityIndex ueber den Kalender.
+     */
+    @Test
+    public void testAvailabilityIndexBookedPerDay() {
+        AvailabilityIndex index = new AvailabilityIndex();
+        index.add(1, 100, 101, 2);
+        index.add(1, 101, 103, 1);
+
+        assertArrayEquals(new int[]{0, 2, 3, 1, 1, 0}, index.bookedPerDay(1, 99, 104));
+        index.remove(1, 100, 101, 2);
+        assertArrayEquals(new int[]{0, 0, 1, 1, 1, 0}, index.bookedPerDay(1, 99, 104));
+        assertArrayEquals(new int[3], index.bookedPerDay(2, 99, 101));
+    }
+}
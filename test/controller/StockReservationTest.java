@@ -0,0 +1,260 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package controller;
+
+import database.LendingObjectChange;
+import database.Persistierer;
+import entities.LendingObject;
+import entities.Material;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import model.LendingObjectModel;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static testutil.Fields.set;
+
+public class StockReservationTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private static Date day(int n) {
+        return new java.sql.Date(java.sql.Date.valueOf("2016-01-01").getTime() + n * DAY);
+    }
+
+    private static Material material(long id, int quantity) throws Exception {
+        Material m = new Material("Material " + id, "", quantity);
+        set(m, "id", id);
+        return m;
+    }
+
+    /**
+     * Bestandsabfrage, wie sie der CheckoutService unter der Reservierung
+     * ausfuehrt.
+     */
+    private interface StockCheck {
+
+        int available(Material m, int beginDay, int endDay);
+    }
+
+    /**
+     * Viele Threads leihen gleichzeitig aus, die Bestandsabfrage laeuft ueber
+     * den AvailabilityIndex ({@link LendingController#IN_MEMORY_AVAILABILITY_PROPERTY}).
+     * Kein Material darf an einem Tag ueber seinen Bestand hinaus ausgeliehen
+     * sein.
+     */
+    @Test
+    public void testNoOverbookingUnderLoad() throws Exception {
+        AvailabilityIndex index = new AvailabilityIndex();
+        StockReservation stock = new StockReservation();
+        AvailabilityCalculator calculator = new AvailabilityCalculator();
+        set(stock, "availability", index);
+        set(calculator, "availability", index);
+
+        String inMemory = System.setProperty(LendingController.IN_MEMORY_AVAILABILITY_PROPERTY, "true");
+        try {
+            runLoad(stock, calculator::availableQuantity, null);
+        } finally {
+            if (inMemory == null) {
+                System.clearProperty(LendingController.IN_MEMORY_AVAILABILITY_PROPERTY);
+            } else {
+                System.setProperty(LendingController.IN_MEMORY_AVAILABILITY_PROPERTY, inMemory);
+            }
+        }
+    }
+
+    /**
+     * Wie {@link #testNoOverbookingUnderLoad()}, aber mit der
+     * Standardeinstellung: der Bestand wird wie im CheckoutService als
+     * Menge minus Summe der ueberlappenden Ausleihen aus dem Persistierer
+     * berechnet, und jede Ausleihe wird dort gespeichert, bevor die
+     * Reservierung freigegeben wird.
+     */
+    @Test
+    public void testNoOverbookingUnderLoadDatabase() throws Exception {
+        String inMemory = System.clearProperty(LendingController.IN_MEMORY_AVAILABILITY_PROPERTY);
+        try {
+            final List<LendingObject> stored = Collections.synchronizedList(new ArrayList<LendingObject>());
+            LendingObjectModel model = new LendingObjectModel();
+            LendingController controller = new LendingController();
+            set(model, "db", new Persistierer() {
+                @Override
+                public int getLentQuantityWithMaterialId(long materialId, int beginDay, int endDay) {
+                    int sum = 0;
+                    synchronized (stored) {
+                        for (LendingObject lo : stored) {
+                            if (lo.getType().getId() == materialId && lo.overlaps(beginDay, endDay)) {
+                                sum += lo.getLendingQuantity();
+                            }
+                        }
+                    }
+                    return sum;
+                }
+            });
+            set(controller, "lendingObject", model);
+
+            assertFalse(LendingController.isInMemoryAvailability());
+            runLoad(new StockReservation(),
+                    (m, beginDay, endDay) -> m.getQuantity() - controller.lentObjects(m.getId(), beginDay, endDay),
+                    stored);
+        } finally {
+            if (inMemory != null) {
+                System.setProperty(LendingController.IN_MEMORY_AVAILABILITY_PROPERTY, inMemory);
+            }
+        }
+    }
+
+    /**
+     * Acht Threads leihen zufaellig aus und pruefen den Bestand dabei unter
+     * der Reservierung. Danach darf kein Material an einem Tag ueber seinen
+     * Bestand hinaus ausgeliehen sein.
+     *
+     * @param stock StockReservation
+     * @param check Bestandsabfrage
+     * @param store Liste, in die jede Ausleihe vor der Freigabe gespeichert
+     * wird, oder null
+     */
+    private static void runLoad(StockReservation stock, StockCheck check, List<LendingObject> store) throws Exception {
+        final int days = 40;
+        final Material[] materials = {material(1, 5), material(2, 3), material(65, 4)};
+        final List<LendingObject> booked = Collections.synchronizedList(new ArrayList<LendingObject>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final Random rn = new Random(t);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 3000; i++) {
+                    Material m = materials[rn.nextInt(materials.length)];
+                    int begin = rn.nextInt(days - 5);
+                    Date start = day(begin);
+                    Date end = day(begin + rn.nextInt(5));
+                    int quantity = 1 + rn.nextInt(3);
+
+                    try (StockReservation.Reservation r = stock.reserve(Collections.singletonList(m.getId()))) {
+                        LendingObject lo = new LendingObject(m, quantity, start, end);
+                        if (quantity <= check.available(m, lo.getStartDay(), lo.getEndDay())) {
+                            Thread.yield();
+                            if (store != null) {
+                                store.add(lo);
+                            }
+                            r.hold(lo);
+                            booked.add(lo);
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        executor.shutdown();
+
+        assertTrue(booked.size() > 100);
+        for (Material m : materials) {
+            for (int d = 0; d < days; d++) {
+                int sum = 0;
+                for (LendingObject lo : booked) {
+                    if (lo.getType() == m && !lo.getStartLendDate().after(day(d)) && !lo.getEndLendDate().before(day(d))) {
+                        sum += lo.getLendingQuantity();
+                    }
+                }
+                assertTrue("Material " + m.getId() + ", Tag " + d + ": " + sum, sum <= m.getQuantity());
+            }
+        }
+    }
+
+    /**
+     * Vorgemerkte Ausleihen werden beim Commit nicht doppelt gezaehlt und beim
+     * Rollback wieder entfernt.
+     */
+    @Test
+    public void testReservationFollowsTransaction() throws Exception {
+        AvailabilityIndex index = new AvailabilityIndex();
+        StockReservation stock = new StockReservation();
+        List<Synchronization> synchronizations = new ArrayList<>();
+        set(stock, "availability", index);
+        set(stock, "transactions", registry(synchronizations));
+
+        Material m = material(1, 10);
+        LendingObject committed = new LendingObject(m, 2, day(0), day(3));
+        LendingObject rolledBack = new LendingObject(m, 3, day(1), day(2));
+
+        StockReservation.Reservation r = stock.reserve(Collections.singletonList(1L));
+        r.hold(committed);
+        r.close();
+        assertEquals("Vorgemerkt", 2, index.bookedQuantity(1, day(0), day(3)));
+        r.afterCompletion(Status.STATUS_COMMITTED);
+        index.onChange(LendingObjectChange.added(committed));
+        assertEquals("Nach Commit", 2, index.bookedQuantity(1, day(0), day(3)));
+
+        r = stock.reserve(Collections.singletonList(1L));
+        r.hold(rolledBack);
+        assertEquals("Vorgemerkt", 5, index.bookedQuantity(1, day(0), day(3)));
+        r.afterCompletion(Status.STATUS_ROLLEDBACK);
+        assertEquals("Nach Rollback", 2, index.bookedQuantity(1, day(0), day(3)));
+
+        index.onChange(LendingObjectChange.added(rolledBack));
+        assertEquals("Fremde Ausleihe", 5, index.bookedQuantity(1, day(0), day(3)));
+        assertEquals(2, synchronizations.size());
+    }
+
+    private static TransactionSynchronizationRegistry registry(final List<Synchronization> synchronizations) {
+        return new TransactionSynchronizationRegistry() {
+            @Override
+            public Object getTransactionKey() {
+                return this;
+            }
+
+            @Override
+            public void putResource(Object key, Object value) {
+            }
+
+            @Override
+            public Object getResource(Object key) {
+                return null;
+            }
+
+            @Override
+            public void registerInterposedSynchronization(Synchronization sync) {
+                synchronizations.add(sync);
+            }
+
+            @Override
+            public int getTransactionStatus() {
+                return Status.STATUS_ACTIVE;
+            }
+
+            @Override
+            public void setRollbackOnly() {
+            }
+
+            @Override
+            public boolean getRollbackOnly() {
+                return false;
+            }
+        };
+    }
+
+}
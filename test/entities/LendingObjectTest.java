@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package entities;
+
+import java.time.LocalDate;
+import java.util.Date;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LendingObjectTest {
+
+    private static LendingObject lendingObject(String begin, String end) {
+        return new LendingObject(new Material("Stativ", "", 1), 1,
+                java.sql.Date.valueOf(begin), java.sql.Date.valueOf(end));
+    }
+
+    /**
+     * Start- und Enddatum werden als Epochentage gespeichert und wieder als
+     * derselbe Tag zurueckgegeben.
+     */
+    @Test
+    public void testDatesRoundTrip() {
+        LendingObject lo = lendingObject("2016-03-27", "2016-10-30");
+
+        assertEquals(LocalDate.of(2016, 3, 27).toEpochDay(), lo.getStartDay());
+        assertEquals(LocalDate.of(2016, 10, 30), lo.getEndDate());
+        assertEquals(java.sql.Date.valueOf("2016-03-27"), lo.getStartLendDate());
+        assertEquals(java.sql.Date.valueOf("2016-10-30"), lo.getEndLendDate());
+    }
+
+    /**
+     * Die Uhrzeit eines java.util.Date wird ignoriert.
+     */
+    @Test
+    public void testUtilDateUsesLocalDay() {
+        LendingObject lo = new LendingObject();
+        Date noon = new Date(java.sql.Date.valueOf("2016-05-01").getTime() + 12L * 60 * 60 * 1000);
+
+        lo.setStartLendDate(noon);
+        assertEquals(LocalDate.of(2016, 5, 1), lo.getStartDate());
+    }
+
+    /**
+     * Ohne Zeitraum gibt es keine Datumswerte und keine Ueberschneidung.
+     */
+    @Test
+    public void testNoPeriod() {
+        LendingObject lo = new LendingObject();
+
+        assertFalse(lo.hasPeriod());
+        assertNull(lo.getStartLendDate());
+        assertNull(lo.getEndDate());
+        assertFalse(lo.overlaps(Integer.MIN_VALUE + 1, Integer.MAX_VALUE));
+        assertFalse(lo.contains(0));
+    }
+
+    /**
+     * Zeitraeume sind an beiden Enden einschliesslich.
+     */
+    @Test
+    public void testOverlapsAndContains() {
+        LendingObject lo = lendingObject("2016-01-10", "2016-01-20");
+
+        assertTrue(lo.overlaps(LocalDate.of(2016, 1, 20), LocalDate.of(2016, 1, 25)));
+        assertTrue(lo.overlaps(LocalDate.of(2016, 1, 1), LocalDate.of(2016, 1, 10)));
+        assertTrue(lo.overlaps(LocalDate.of(2016, 1, 12), LocalDate.of(2016, 1, 13)));
+        assertFalse(lo.overlaps(LocalDate.of(2016, 1, 21), LocalDate.of(2016, 1, 25)));
+        assertFalse(lo.overlaps(LocalDate.of(2016, 1, 1), LocalDate.of(2016, 1, 9)));
+
+        assertTrue(lo.contains(LocalDate.of(2016, 1, 10)));
+        assertTrue(lo.contains(LocalDate.of(2016, 1, 20)));
+        assertFalse(lo.contains(LocalDate.of(2016, 1, 21)));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package entities;
+
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class NameNormalizerTest {
+
+    private static final String ALPHABET = "aAbBzZ09 -äÄöÖüÜßẞéÉİıIiΣσςÆŸ";
+
+    private static String randomName(Random rn) {
+        StringBuilder sb = new StringBuilder();
+        int length = rn.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(rn.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Ergebnis muss der frueheren Umsetzung entsprechen.
+     */
+    @Test
+    public void testNormalizeMatchesLegacy() {
+        Random rn = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            String name = randomName(rn);
+            assertEquals(name, NameNormalizer.legacyNormalize(name, Locale.getDefault()),
+                    NameNormalizer.normalize(name));
+        }
+    }
+
+    /**
+     * Bereits konforme Namen werden unveraendert zurueckgegeben.
+     */
+    @Test
+    public void testNormalizeReturnsConformInput() {
+        String name = "canon eos 1d";
+        assertSame(name, NameNormalizer.normalize(name));
+    }
+
+    /**
+     * Vergleich ohne Strings muss dem Vergleich der konformen Strings
+     * entsprechen.
+     */
+    @Test
+    public void testEqualsNormalized() {
+        assertTrue(NameNormalizer.equalsNormalized("Müller", "mueller"));
+        assertTrue(NameNormalizer.equalsNormalized("STRASSE", "straße"));
+        assertFalse(NameNormalizer.equalsNormalized("Müller", "muell"));
+        assertFalse(NameNormalizer.equalsNormalized("Äpfel", "aepfel"));
+
+        Random rn = new Random(2);
+        for (int i = 0; i < 20000; i++) {
+            String a = randomName(rn);
+            String b = rn.nextBoolean() ? randomName(rn) : NameNormalizer.normalize(a);
+            assertEquals(a + " / " + b, NameNormalizer.normalize(a).equals(NameNormalizer.normalize(b)),
+                    NameNormalizer.equalsNormalized(a, b));
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package metrics;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+
+    /**
+     * Perzentile duerfen hoechstens eine Klasse (12,5 %) vom exakten Wert
+     * abweichen.
+     */
+    @Test
+    public void testPercentiles() {
+        Histogram histogram = new Histogram();
+        Random rn = new Random(3);
+        long[] values = new long[10000];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(rn.nextDouble() * 20);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.5, 0.95, 0.99, 1.0}) {
+            long exact = values[(int) Math.ceil(q * values.length) - 1];
+            long approx = histogram.getPercentile(q);
+            assertTrue(q + ": " + approx + " < " + exact, approx >= exact);
+            assertTrue(q + ": " + approx + " > " + exact, approx <= exact + exact / 8);
+        }
+        assertEquals(values[values.length - 1], histogram.getMax());
+    }
+
+    /**
+     * Aufrufe, Fehler, langsame Aufrufe und Ergebnisgroessen werden pro
+     * Methode gezaehlt.
+     */
+    @Test
+    public void testRecord() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.setSlowCallMillis(10);
+
+        registry.record("Persistierer.findAllMaterials", 1000, 3, false);
+        registry.record("Persistierer.findAllMaterials", 20000000, 5, false);
+        registry.record("Persistierer.persist", 1000, MetricsRegistry.sizeOf(null), true);
+
+        MethodMetrics m = registry.getMethod("Persistierer.findAllMaterials");
+        assertEquals(2, m.getCalls());
+        assertEquals(1, m.getSlowCalls());
+        assertEquals(0, m.getFailures());
+        assertEquals(5, m.getMaxResultSize());
+
+        MethodMetrics p = registry.getMethod("Persistierer.persist");
+        assertEquals(1, p.getFailures());
+        assertEquals(0, p.getResults());
+        assertEquals(2, registry.getMethods().size());
+    }
+
+    /**
+     * Treffer und Fehlzugriffe werden pro Cache gezaehlt.
+     */
+    @Test
+    public void testCacheAccess() {
+        MetricsRegistry registry = new MetricsRegistry();
+
+        registry.recordCacheAccess("Material", true);
+        registry.recordCacheAccess("Material", true);
+        registry.recordCacheAccess("Material", true);
+        registry.recordCacheAccess("Material", false);
+        registry.recordCacheAccess("Person", false);
+
+        CacheMetrics material = registry.getCaches().get("Material");
+        assertEquals(3, material.getHits());
+        assertEquals(1, material.getMisses());
+        assertEquals(0.75, material.getHitRatio(), 1e-9);
+        assertEquals(0.0, registry.getCaches().get("Person").getHitRatio(), 1e-9);
+
+        registry.clear();
+        assertTrue(registry.getCaches().isEmpty());
+    }
+
+}
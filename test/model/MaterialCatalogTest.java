@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package model;
+
+import database.Persistierer;
+import entities.Material;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import metrics.CacheMetrics;
+import metrics.MetricsRegistry;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static testutil.Fields.set;
+
+public class MaterialCatalogTest {
+
+    /**
+     * Persistierer, der die Ladevorgaenge zaehlt und beim ersten Laden
+     * optional den Katalog invalidiert.
+     */
+    private static class CountingPersistierer extends Persistierer {
+
+        private MaterialCatalog invalidateDuringLoad;
+        private String stamp = "1";
+        private int loads;
+        private int stampChecks;
+
+        @Override
+        public String getMaterialStamp() {
+            this.stampChecks++;
+            return this.stamp;
+        }
+
+        @Override
+        public List<Material> findAllMaterials() {
+            this.loads++;
+            if (this.invalidateDuringLoad != null) {
+                MaterialCatalog catalog = this.invalidateDuringLoad;
+                this.invalidateDuringLoad = null;
+                catalog.invalidate();
+            }
+            return new ArrayList<>(Arrays.asList(new Material("Stativ", "", 2)));
+        }
+    }
+
+    /**
+     * Treffer und Fehlzugriffe werden in der MetricsRegistry gezaehlt, nach
+     * invalidate wird neu geladen.
+     */
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        MaterialCatalog catalog = new MaterialCatalog();
+        CountingPersistierer db = new CountingPersistierer();
+        MetricsRegistry registry = new MetricsRegistry();
+        set(catalog, "db", db);
+        set(catalog, "metrics", registry);
+
+        catalog.getMaterials();
+        catalog.getMaterials();
+        catalog.getMaterials();
+        catalog.invalidate();
+        catalog.getMaterials();
+
+        CacheMetrics metrics = registry.getCaches().get(MaterialCatalog.CACHE_NAME);
+        assertEquals(2, metrics.getHits());
+        assertEquals(2, metrics.getMisses());
+        assertEquals(2, db.loads);
+    }
+
+    /**
+     * Ein Stand, waehrend dessen Laden invalidiert wurde, darf nicht fuer
+     * spaetere Zugriffe verwendet werden.
+     */
+    @Test
+    public void testInvalidateDuringLoad() throws Exception {
+        MaterialCatalog catalog = new MaterialCatalog();
+        CountingPersistierer db = new CountingPersistierer();
+        set(catalog, "db", db);
+
+        db.invalidateDuringLoad = catalog;
+        catalog.getMaterials();
+        catalog.getMaterials();
+        catalog.getMaterials();
+
+        assertEquals(2, db.loads);
+        assertEquals(1, catalog.getVersion());
+    }
+
+    /**
+     * Aendert sich die Kennung in der Datenbank (z.B. durch einen anderen
+     * Server), wird der Katalog bei der naechsten Pruefung neu geladen.
+     */
+    @Test
+    public void testChangeOnOtherServer() throws Exception {
+        System.setProperty(MaterialCatalog.CHECK_MILLIS_PROPERTY, "0");
+        MaterialCatalog catalog;
+        try {
+            catalog = new MaterialCatalog();
+        } finally {
+            System.clearProperty(MaterialCatalog.CHECK_MILLIS_PROPERTY);
+        }
+        CountingPersistierer db = new CountingPersistierer();
+        set(catalog, "db", db);
+
+        assertEquals("1", catalog.getStamp());
+        catalog.getMaterials();
+        assertEquals(1, db.loads);
+
+        db.stamp = "2";
+        assertEquals("2", catalog.getStamp());
+        catalog.getMaterials();
+        assertEquals(2, db.loads);
+        assertEquals(0, catalog.getVersion());
+    }
+
+    /**
+     * Innerhalb von {@link MaterialCatalog#CHECK_MILLIS_PROPERTY} wird die
+     * Kennung nicht erneut abgefragt.
+     */
+    @Test
+    public void testStampCheckInterval() throws Exception {
+        MaterialCatalog catalog = new MaterialCatalog();
+        CountingPersistierer db = new CountingPersistierer();
+        set(catalog, "db", db);
+
+        for (int i = 0; i < 100; i++) {
+            catalog.getMaterials();
+        }
+
+        assertEquals(1, db.loads);
+        assertEquals(1, db.stampChecks);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package testutil;
+
+import java.lang.reflect.Field;
+
+/**
+ * Setzt Felder, die im Server per CDI oder JPA befuellt werden, in Tests per
+ * Reflection.
+ */
+public final class Fields {
+
+    private Fields() {
+    }
+
+    /**
+     * Setzt das Feld name in target oder einer seiner Oberklassen.
+     *
+     * @param target Objekt
+     * @param name Name des Feldes
+     * @param value neuer Wert
+     */
+    public static void set(Object target, String name, Object value) {
+        for (Class<?> c = target.getClass(); c != null; c = c.getSuperclass()) {
+            try {
+                Field f = c.getDeclaredField(name);
+                f.setAccessible(true);
+                f.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                // in der Oberklasse weitersuchen
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalArgumentException("Kein Feld " + name + " in " + target.getClass().getName());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 Blom, Brammer, Zeyn
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package viewmodel;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class KeysetPageTest {
+
+    @After
+    public void tearDown() {
+        System.clearProperty(KeysetPage.PAGE_SIZE_PROPERTY);
+    }
+
+    /**
+     * Die zusaetzlich abgefragte Zeile wird nicht angezeigt, zeigt aber an,
+     * dass es eine weitere Seite gibt.
+     */
+    @Test
+    public void testFullPage() {
+        System.setProperty(KeysetPage.PAGE_SIZE_PROPERTY, "3");
+        assertEquals(4, KeysetPage.getFetchSize());
+
+        KeysetPage<Long> page = new KeysetPage<>(ids(11, 12, 13, 14), 10, Long::longValue);
+
+        assertEquals(ids(11, 12, 13), page.getItems());
+        assertTrue(page.isHasNext());
+        assertFalse(page.isFirst());
+        assertEquals(13, page.getNextAfter());
+    }
+
+    /**
+     * Die letzte Seite hat keine Folgeseite, eine leere Seite behaelt die
+     * zuletzt gesehene Id.
+     */
+    @Test
+    public void testLastPage() {
+        System.setProperty(KeysetPage.PAGE_SIZE_PROPERTY, "3");
+
+        KeysetPage<Long> page = new KeysetPage<>(ids(1, 2, 3), 0, Long::longValue);
+        assertEquals(3, page.getItems().size());
+        assertFalse(page.isHasNext());
+        assertTrue(page.isFirst());
+
+        KeysetPage<Long> empty = new KeysetPage<>(new ArrayList<Long>(), 3, Long::longValue);
+        assertTrue(empty.getItems().isEmpty());
+        assertFalse(empty.isHasNext());
+        assertEquals(3, empty.getNextAfter());
+    }
+
+    private static List<Long> ids(long... ids) {
+        List<Long> result = new ArrayList<>();
+
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+}